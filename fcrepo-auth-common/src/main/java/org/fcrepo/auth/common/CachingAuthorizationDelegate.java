@@ -0,0 +1,464 @@
+/**
+ * Copyright 2015 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.auth.common;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static com.google.common.cache.RemovalCause.REPLACED;
+import static java.util.Collections.emptySet;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+
+import org.fcrepo.kernel.observer.FedoraEvent;
+import org.fcrepo.metrics.RegistryService;
+import org.modeshape.jcr.value.Name;
+import org.modeshape.jcr.value.Path;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.codahale.metrics.Meter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.MapMaker;
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+
+/**
+ * Remembers the decisions of another authorization delegate, so that the many permission checks
+ * made while a request walks a tree of nodes do not each evaluate access control afresh.
+ *
+ * Decisions are kept at two levels: for each session, by path and actions, and in a shared
+ * least-recently-used cache, by the set of principals, path and actions. The shared cache is only
+ * correct for delegates whose decisions depend on nothing else; in particular not on the servlet
+ * request. Sessions without a set of principals (those of administrators, for instance) are
+ * never cached.
+ *
+ * Every repository event drops the cached decisions at and below the path it touched, since a
+ * change there may have changed access control there or beneath. Shared decisions are indexed by
+ * path, so an event only visits the decisions it drops, and each session's decisions are the shared
+ * ones, so they are dropped along with them. A delegate that keeps access control elsewhere must
+ * call {@link #invalidate(String)} or {@link #invalidateAll()} itself.
+ *
+ * Nodes named in inheritingNames (jcr:content, say) are decided as the resource above them is,
+ * so that checks on the parts of a resource share its cached decision. This is only correct for
+ * delegates that decide those nodes the same way; by default no names inherit.
+ *
+ * @author agent
+ */
+public class CachingAuthorizationDelegate implements FedoraAuthorizationDelegate {
+
+    private static final Logger LOGGER = getLogger(CachingAuthorizationDelegate.class);
+
+    static final Meter hitMeter = RegistryService.getInstance().getMetrics().meter(
+            name(CachingAuthorizationDelegate.class, "hits"));
+
+    static final Meter missMeter = RegistryService.getInstance().getMetrics().meter(
+            name(CachingAuthorizationDelegate.class, "misses"));
+
+    private static final long DEFAULT_MAXIMUM_SIZE = 100000;
+
+    /**
+     * How many decisions to keep for a single session before starting over
+     */
+    private static final int SESSION_MAXIMUM_SIZE = 10000;
+
+    private final FedoraAuthorizationDelegate delegate;
+
+    private final Cache<Key, Decision> decisions;
+
+    /**
+     * The shared decisions, by the local path they were made for
+     */
+    private final ConcurrentSkipListMap<String, Set<Decision>> index = new ConcurrentSkipListMap<>();
+
+    private final ConcurrentMap<Session, ConcurrentMap<Key, Decision>> sessionDecisions =
+            new MapMaker().weakKeys().makeMap();
+
+    /**
+     * Keys of principal sets, by the identity of the set; since the authentication provider
+     * assigns canonical sets, most sessions with equal principals share an entry
+     */
+    private final ConcurrentMap<Set<?>, Set<String>> principalKeys = new MapMaker().weakKeys().makeMap();
+
+    private Set<String> inheritingNames = emptySet();
+
+    @Autowired(required = false)
+    private EventBus eventBus;
+
+    /**
+     * @param delegate the delegate whose decisions to cache
+     */
+    public CachingAuthorizationDelegate(final FedoraAuthorizationDelegate delegate) {
+        this(delegate, DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * @param delegate the delegate whose decisions to cache
+     * @param maximumSize how many decisions to share between sessions
+     */
+    public CachingAuthorizationDelegate(final FedoraAuthorizationDelegate delegate, final long maximumSize) {
+        this.delegate = delegate;
+        this.decisions = CacheBuilder.newBuilder().maximumSize(maximumSize).removalListener(
+                new RemovalListener<Key, Decision>() {
+
+                    @Override
+                    public void onRemoval(final RemovalNotification<Key, Decision> notification) {
+                        // a decision no longer in the cache can no longer be reached by invalidation,
+                        // so the sessions holding it must stop trusting it
+                        if (notification.getCause() != REPLACED) {
+                            notification.getValue().invalidate();
+                            unindex(notification.getValue());
+                        }
+                    }
+                }).build();
+    }
+
+    /**
+     * @param inheritingNames names of nodes (such as jcr:content) that are decided as the
+     *        resource above them is
+     */
+    public void setInheritingNames(final Set<String> inheritingNames) {
+        this.inheritingNames = ImmutableSet.copyOf(inheritingNames);
+    }
+
+    /**
+     * Subscribe to repository events, if there is an event bus to subscribe to
+     */
+    @PostConstruct
+    public void register() {
+        if (eventBus != null) {
+            eventBus.register(this);
+        }
+    }
+
+    /**
+     * Stop listening for repository events
+     */
+    @PreDestroy
+    public void unregister() {
+        if (eventBus != null) {
+            eventBus.unregister(this);
+        }
+    }
+
+    @Override
+    public boolean hasPermission(final Session session, final Path absPath, final String[] actions) {
+        final Object principals = session.getAttribute(FEDORA_ALL_PRINCIPALS);
+        if (!(principals instanceof Set)) {
+            return delegate.hasPermission(session, absPath, actions);
+        }
+        final Path path = decisionPath(session, absPath);
+        final String action = actions.length == 1 ? actions[0] : Arrays.toString(actions);
+
+        final ConcurrentMap<Key, Decision> local = sessionDecisions(session);
+        final Key localKey = new Key(null, path, action);
+        final Decision localDecision = local.get(localKey);
+        if (localDecision != null && localDecision.isDecided()) {
+            hitMeter.mark();
+            return localDecision.permitted;
+        }
+
+        final Key key = new Key(principalKey((Set<?>) principals), path, action);
+        Decision decision = decisions.getIfPresent(key);
+        if (decision != null && decision.isDecided()) {
+            hitMeter.mark();
+        } else {
+            missMeter.mark();
+            // the pending decision is cached before the delegate is asked, so that an invalidation
+            // while the delegate decides drops it
+            final Decision pending = new Decision(key, localPath(path));
+            index(pending);
+            decision = decisions.asMap().putIfAbsent(key, pending);
+            if (decision != null) {
+                unindex(pending);
+            }
+            final boolean permitted;
+            try {
+                permitted = delegate.hasPermission(session, path, actions);
+            } catch (final RuntimeException e) {
+                decisions.asMap().remove(key, pending);
+                throw e;
+            }
+            if (decision != null) {
+                // another session is deciding, or its decision was just dropped
+                return permitted;
+            }
+            pending.permitted = permitted;
+            decision = pending;
+            if (!decision.isDecided()) {
+                return permitted;
+            }
+        }
+        if (local.size() >= SESSION_MAXIMUM_SIZE) {
+            local.clear();
+        }
+        local.put(localKey, decision);
+        return decision.permitted;
+    }
+
+    /**
+     * Drop the cached decisions at and below the path a repository event touched
+     *
+     * @param event
+     */
+    @Subscribe
+    public void invalidate(final FedoraEvent event) {
+        try {
+            invalidate(event.getPath());
+        } catch (final RepositoryException e) {
+            LOGGER.debug("Unable to get the path of event {}; invalidating everything", event, e);
+            invalidateAll();
+        }
+    }
+
+    /**
+     * Drop the cached decisions at and below a path
+     *
+     * @param path
+     */
+    public void invalidate(final String path) {
+        final String prefix = localPath(path);
+        if (prefix.equals("/")) {
+            invalidateAll();
+            return;
+        }
+        invalidate(index.get(prefix));
+        for (final Set<Decision> indexed : index.subMap(prefix + "/", prefix + "0").values()) {
+            invalidate(indexed);
+        }
+    }
+
+    private void invalidate(final Set<Decision> indexed) {
+        if (indexed == null) {
+            return;
+        }
+        final List<Decision> invalidated;
+        synchronized (indexed) {
+            invalidated = new ArrayList<>(indexed);
+        }
+        for (final Decision decision : invalidated) {
+            decision.invalidate();
+            decisions.asMap().remove(decision.key, decision);
+        }
+    }
+
+    /**
+     * Drop every cached decision
+     */
+    public void invalidateAll() {
+        decisions.invalidateAll();
+    }
+
+    private ConcurrentMap<Key, Decision> sessionDecisions(final Session session) {
+        final ConcurrentMap<Key, Decision> local = sessionDecisions.get(session);
+        if (local != null) {
+            return local;
+        }
+        final ConcurrentMap<Key, Decision> fresh = new ConcurrentHashMap<>();
+        final ConcurrentMap<Key, Decision> raced = sessionDecisions.putIfAbsent(session, fresh);
+        return raced == null ? fresh : raced;
+    }
+
+    private void index(final Decision decision) {
+        while (true) {
+            Set<Decision> indexed = index.get(decision.localPath);
+            if (indexed == null) {
+                final Set<Decision> created = new HashSet<>();
+                indexed = index.putIfAbsent(decision.localPath, created);
+                if (indexed == null) {
+                    indexed = created;
+                }
+            }
+            synchronized (indexed) {
+                // an emptied set may have left the index since it was looked up
+                if (index.get(decision.localPath) == indexed) {
+                    indexed.add(decision);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove a decision from the index; by instance, so that the late removal of an old decision
+     * leaves a newer one for the same key indexed
+     */
+    private void unindex(final Decision decision) {
+        final Set<Decision> indexed = index.get(decision.localPath);
+        if (indexed == null) {
+            return;
+        }
+        synchronized (indexed) {
+            if (indexed.remove(decision) && indexed.isEmpty()) {
+                index.remove(decision.localPath, indexed);
+            }
+        }
+    }
+
+    /**
+     * The path whose decision a path shares: that of the resource above the first inheriting node
+     * in it, or the path itself
+     */
+    private Path decisionPath(final Session session, final Path absPath) {
+        if (inheritingNames.isEmpty()) {
+            return absPath;
+        }
+        try {
+            for (int i = 1; i < absPath.size(); i++) {
+                if (inheritingNames.contains(jcrName(session, absPath.getSegment(i).getName()))) {
+                    return absPath.subpath(0, i);
+                }
+            }
+        } catch (final RepositoryException e) {
+            LOGGER.debug("Unable to resolve a name in {}", absPath, e);
+        }
+        return absPath;
+    }
+
+    private static String jcrName(final Session session, final Name name) throws RepositoryException {
+        final String uri = name.getNamespaceUri();
+        return uri.isEmpty() ? name.getLocalName() : session.getNamespacePrefix(uri) + ":" + name.getLocalName();
+    }
+
+    private Set<String> principalKey(final Set<?> principals) {
+        final Set<String> key = principalKeys.get(principals);
+        if (key != null) {
+            return key;
+        }
+        final Set<String> names = principalNames(principals);
+        principalKeys.put(principals, names);
+        return names;
+    }
+
+    /**
+     * The principals, by type and name, since not every kind of principal defines equality
+     */
+    private static Set<String> principalNames(final Set<?> principals) {
+        final ImmutableSet.Builder<String> names = ImmutableSet.builder();
+        for (final Object principal : principals) {
+            if (principal instanceof Principal) {
+                names.add(principal.getClass().getName() + ":" + ((Principal) principal).getName());
+            }
+        }
+        return names.build();
+    }
+
+    /**
+     * A path without namespace prefixes or same-name sibling indexes. Paths of events, which have
+     * prefixes, and of permission checks, which have namespaces, can be compared this way; paths
+     * that differ only in namespace compare equal, which only invalidates more than it must.
+     */
+    private static String localPath(final Path path) {
+        if (path.isRoot()) {
+            return "/";
+        }
+        final StringBuilder local = new StringBuilder();
+        for (final Path.Segment segment : path) {
+            local.append('/').append(segment.getName().getLocalName());
+        }
+        return local.toString();
+    }
+
+    private static String localPath(final String path) {
+        final StringBuilder local = new StringBuilder();
+        for (final String segment : path.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            final int index = segment.indexOf('[');
+            final String name = index < 0 ? segment : segment.substring(0, index);
+            local.append('/').append(name.substring(name.indexOf(':') + 1));
+        }
+        return local.length() == 0 ? "/" : local.toString();
+    }
+
+    private static class Key {
+
+        private final Set<String> principals;
+
+        private final Path path;
+
+        private final String actions;
+
+        private final int hashCode;
+
+        Key(final Set<String> principals, final Path path, final String actions) {
+            this.principals = principals;
+            this.path = path;
+            this.actions = actions;
+            this.hashCode = Objects.hash(principals, path, actions);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return Objects.equals(principals, other.principals) && path.equals(other.path)
+                    && actions.equals(other.actions);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /**
+     * A decision, pending until the delegate has made it, and good until it is invalidated
+     */
+    private static class Decision {
+
+        private final Key key;
+
+        private final String localPath;
+
+        private volatile Boolean permitted;
+
+        private volatile boolean valid = true;
+
+        Decision(final Key key, final String localPath) {
+            this.key = key;
+            this.localPath = localPath;
+        }
+
+        boolean isDecided() {
+            return valid && permitted != null;
+        }
+
+        void invalidate() {
+            valid = false;
+        }
+    }
+}
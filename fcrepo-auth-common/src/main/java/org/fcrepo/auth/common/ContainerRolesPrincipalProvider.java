@@ -31,7 +31,8 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Adds principals based on roles that are configured within the container and
- * through a PrincipalProvider bean in the project.
+ * through a PrincipalProvider bean in the project. The role principals of
+ * recently seen users are cached.
  *
  * @author Kevin S. Clarke
  * @see PrincipalProvider
@@ -78,8 +79,18 @@ public class ContainerRolesPrincipalProvider implements PrincipalProvider {
 
     }
 
+    private static final long DEFAULT_CACHE_SIZE = 1000;
+
+    private static final long DEFAULT_CACHE_TIMEOUT = 60000;
+
     private Set<String> roleNames;
 
+    private long cacheSize = DEFAULT_CACHE_SIZE;
+
+    private long cacheTimeout = DEFAULT_CACHE_TIMEOUT;
+
+    private PrincipalSetCache<String> cache = new PrincipalSetCache<>(cacheSize, cacheTimeout);
+
     /**
      * Sets the role names which have been configured in the repo.xml file.
      *
@@ -88,6 +99,24 @@ public class ContainerRolesPrincipalProvider implements PrincipalProvider {
      */
     public void setRoleNames(final Set<String> roleNames) {
         this.roleNames = roleNames;
+        this.cache = new PrincipalSetCache<>(cacheSize, cacheTimeout);
+    }
+
+    /**
+     * @param cacheSize How many users to remember the role principals of
+     */
+    public void setCacheSize(final long cacheSize) {
+        this.cacheSize = cacheSize;
+        this.cache = new PrincipalSetCache<>(cacheSize, cacheTimeout);
+    }
+
+    /**
+     * @param cacheTimeout How long, in milliseconds, to remember the role principals of a user;
+     *        changes to a user's roles in the container take up to this long to be seen
+     */
+    public void setCacheTimeout(final long cacheTimeout) {
+        this.cacheTimeout = cacheTimeout;
+        this.cache = new PrincipalSetCache<>(cacheSize, cacheTimeout);
     }
 
     /*
@@ -120,6 +149,17 @@ public class ContainerRolesPrincipalProvider implements PrincipalProvider {
             return emptySet();
         }
 
+        // a user's roles are cached by name; anything else is resolved afresh
+        final Principal user = request.getUserPrincipal();
+
+        if (user != null) {
+            final Set<Principal> cached = cache.get(user.getName());
+
+            if (cached != null) {
+                return cached;
+            }
+        }
+
         final Iterator<String> iterator = roleNames.iterator();
         final Set<Principal> principals = new HashSet<>();
 
@@ -133,7 +173,7 @@ public class ContainerRolesPrincipalProvider implements PrincipalProvider {
             }
         }
 
-        return principals;
+        return user == null ? principals : cache.put(user.getName(), principals);
     }
 
 }
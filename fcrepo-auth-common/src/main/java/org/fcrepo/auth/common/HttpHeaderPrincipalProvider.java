@@ -27,7 +27,8 @@ import java.util.HashSet;
 import java.util.Set;
 
 /**
- * An example principal provider that extracts principals from request headers.
+ * An example principal provider that extracts principals from request headers. The principals of
+ * recently seen header values are cached.
  *
  * @author Gregory Jansen
  * @author Mike Daines
@@ -72,15 +73,26 @@ public class HttpHeaderPrincipalProvider implements PrincipalProvider {
 
     }
 
+    private static final long DEFAULT_CACHE_SIZE = 1000;
+
+    private static final long DEFAULT_CACHE_TIMEOUT = 60000;
+
     private String headerName;
 
     private String separator = "";
 
+    private long cacheSize = DEFAULT_CACHE_SIZE;
+
+    private long cacheTimeout = DEFAULT_CACHE_TIMEOUT;
+
+    private PrincipalSetCache<String> cache = new PrincipalSetCache<>(cacheSize, cacheTimeout);
+
     /**
      * @param headerName The name of the header from which to extract principals
      */
     public void setHeaderName(final String headerName) {
         this.headerName = headerName;
+        this.cache = new PrincipalSetCache<>(cacheSize, cacheTimeout);
     }
 
     /**
@@ -88,6 +100,23 @@ public class HttpHeaderPrincipalProvider implements PrincipalProvider {
      */
     public void setSeparator(final String separator) {
         this.separator = separator;
+        this.cache = new PrincipalSetCache<>(cacheSize, cacheTimeout);
+    }
+
+    /**
+     * @param cacheSize How many header values to remember the principals of
+     */
+    public void setCacheSize(final long cacheSize) {
+        this.cacheSize = cacheSize;
+        this.cache = new PrincipalSetCache<>(cacheSize, cacheTimeout);
+    }
+
+    /**
+     * @param cacheTimeout How long, in milliseconds, to remember the principals of a header value
+     */
+    public void setCacheTimeout(final long cacheTimeout) {
+        this.cacheTimeout = cacheTimeout;
+        this.cache = new PrincipalSetCache<>(cacheSize, cacheTimeout);
     }
 
     /*
@@ -121,6 +150,12 @@ public class HttpHeaderPrincipalProvider implements PrincipalProvider {
             return emptySet();
         }
 
+        final Set<Principal> cached = cache.get(value);
+
+        if (cached != null) {
+            return cached;
+        }
+
         final String[] names = value.split(separator);
 
         final Set<Principal> principals = new HashSet<>();
@@ -129,7 +164,7 @@ public class HttpHeaderPrincipalProvider implements PrincipalProvider {
             principals.add(new HttpHeaderPrincipal(name.trim()));
         }
 
-        return principals;
+        return cache.put(value, principals);
 
     }
 
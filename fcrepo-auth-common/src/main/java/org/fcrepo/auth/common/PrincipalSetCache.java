@@ -0,0 +1,105 @@
+/**
+ * Copyright 2015 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.auth.common;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.security.Principal;
+import java.util.Set;
+
+import org.fcrepo.metrics.RegistryService;
+
+import com.codahale.metrics.Meter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+/**
+ * A short-lived, size-bounded cache of the principals resolved from some raw credential (a header
+ * value, a user name), for principal providers.
+ *
+ * Cached sets are immutable and canonical: equal sets of principals, however they were resolved,
+ * are the same instance, as are equal principals. Whatever keeps state per set of principals can
+ * therefore key on the set's identity.
+ *
+ * @author agent
+ * @param <K> the type of raw credential
+ */
+public class PrincipalSetCache<K> {
+
+    static final Meter hitMeter = RegistryService.getInstance().getMetrics().meter(
+            name(PrincipalSetCache.class, "hits"));
+
+    static final Meter missMeter = RegistryService.getInstance().getMetrics().meter(
+            name(PrincipalSetCache.class, "misses"));
+
+    private static final Interner<Principal> principals = Interners.newWeakInterner();
+
+    private static final Interner<Set<Principal>> principalSets = Interners.newWeakInterner();
+
+    private final Cache<K, Set<Principal>> cache;
+
+    /**
+     * @param maximumSize how many credentials to remember
+     * @param timeToLive how long, in milliseconds, to remember each
+     */
+    public PrincipalSetCache(final long maximumSize, final long timeToLive) {
+        this.cache = CacheBuilder.newBuilder().maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive, MILLISECONDS).build();
+    }
+
+    /**
+     * @param credential
+     * @return the principals resolved from the credential, or null if they are not cached
+     */
+    public Set<Principal> get(final K credential) {
+        final Set<Principal> resolved = cache.getIfPresent(credential);
+        if (resolved == null) {
+            missMeter.mark();
+        } else {
+            hitMeter.mark();
+        }
+        return resolved;
+    }
+
+    /**
+     * Remember the principals resolved from a credential
+     *
+     * @param credential
+     * @param resolved
+     * @return the canonical set of the resolved principals
+     */
+    public Set<Principal> put(final K credential, final Set<Principal> resolved) {
+        final Set<Principal> canonical = canonical(resolved);
+        cache.put(credential, canonical);
+        return canonical;
+    }
+
+    /**
+     * @param resolved some principals
+     * @return the canonical, immutable set of the same principals
+     */
+    public static Set<Principal> canonical(final Set<Principal> resolved) {
+        final ImmutableSet.Builder<Principal> set = ImmutableSet.builder();
+        for (final Principal principal : resolved) {
+            set.add(principals.intern(principal));
+        }
+        return principalSets.intern(set.build());
+    }
+}
@@ -66,6 +66,12 @@ public class ServletContainerAuthenticationProvider implements
 
     };
 
+    /**
+     * The principals of every anonymous request
+     */
+    private static final Set<Principal> ANONYMOUS_PRINCIPALS =
+            PrincipalSetCache.canonical(Collections.singleton(EVERYONE));
+
     /**
      * User role for Fedora's admin users
      */
@@ -134,6 +140,10 @@ public class ServletContainerAuthenticationProvider implements
      * authenticated user's principal; FEDORA_ALL_PRINCIPALS will be assigned
      * the singleton set containing the EVERYONE principal otherwise.</li>
      * </ul>
+     * <p>
+     * The set assigned to FEDORA_ALL_PRINCIPALS is immutable and canonical
+     * (see {@link PrincipalSetCache}), so equal sets are the same instance.
+     * </p>
      */
     @Override
     public ExecutionContext authenticate(final Credentials credentials,
@@ -172,7 +182,7 @@ public class ServletContainerAuthenticationProvider implements
 
             sessionAttributes.put(
                     FedoraAuthorizationDelegate.FEDORA_ALL_PRINCIPALS,
-                    principals);
+                    PrincipalSetCache.canonical(principals));
 
         } else {
 
@@ -182,7 +192,7 @@ public class ServletContainerAuthenticationProvider implements
 
             sessionAttributes.put(
                     FedoraAuthorizationDelegate.FEDORA_ALL_PRINCIPALS,
-                    Collections.singleton(EVERYONE));
+                    ANONYMOUS_PRINCIPALS);
 
         }
 
@@ -212,7 +222,7 @@ public class ServletContainerAuthenticationProvider implements
             final Set<Principal> ps = p.getPrincipals(credentials);
 
             if (ps != null) {
-                principals.addAll(p.getPrincipals(credentials));
+                principals.addAll(ps);
             }
         }
 
@@ -0,0 +1,229 @@
+/**
+ * Copyright 2015 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.auth.common;
+
+import static java.util.Collections.singleton;
+import static org.fcrepo.auth.common.FedoraAuthorizationDelegate.FEDORA_ALL_PRINCIPALS;
+import static org.fcrepo.auth.common.ServletContainerAuthenticationProvider.EVERYONE;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.security.Principal;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+
+import org.fcrepo.kernel.observer.FedoraEvent;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.modeshape.jcr.ExecutionContext;
+import org.modeshape.jcr.value.Path;
+import org.modeshape.jcr.value.PathFactory;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * <p>CachingAuthorizationDelegateTest class.</p>
+ *
+ * @author agent
+ */
+public class CachingAuthorizationDelegateTest {
+
+    private static final String[] READ = new String[] { "read" };
+
+    private final PathFactory paths = new ExecutionContext().getValueFactories().getPathFactory();
+
+    private CachingAuthorizationDelegate testObj;
+
+    @Mock
+    private FedoraAuthorizationDelegate mockDelegate;
+
+    @Mock
+    private Session mockSession;
+
+    @Mock
+    private Session otherSession;
+
+    @Mock
+    private Principal mockUser;
+
+    @Mock
+    private FedoraEvent mockEvent;
+
+    private Path path;
+
+    @Before
+    public void setUp() throws RepositoryException {
+        initMocks(this);
+        testObj = new CachingAuthorizationDelegate(mockDelegate);
+        path = paths.create("/a/b");
+        when(mockSession.getAttribute(FEDORA_ALL_PRINCIPALS)).thenReturn(singleton(EVERYONE));
+        when(otherSession.getAttribute(FEDORA_ALL_PRINCIPALS)).thenReturn(singleton(EVERYONE));
+        when(mockSession.getNamespacePrefix("http://www.jcp.org/jcr/1.0")).thenReturn("jcr");
+        when(mockDelegate.hasPermission(mockSession, path, READ)).thenReturn(true);
+        when(mockDelegate.hasPermission(otherSession, path, READ)).thenReturn(true);
+    }
+
+    @Test
+    public void testCachedInSession() {
+        assertTrue(testObj.hasPermission(mockSession, path, READ));
+        assertTrue(testObj.hasPermission(mockSession, path, READ));
+        verify(mockDelegate).hasPermission(mockSession, path, READ);
+    }
+
+    @Test
+    public void testSharedBetweenSessionsWithSamePrincipals() {
+        assertTrue(testObj.hasPermission(mockSession, path, READ));
+        assertTrue(testObj.hasPermission(otherSession, path, READ));
+        verify(mockDelegate).hasPermission(mockSession, path, READ);
+    }
+
+    @Test
+    public void testNotSharedBetweenSessionsWithDifferentPrincipals() {
+        when(mockUser.getName()).thenReturn("someUser");
+        when(otherSession.getAttribute(FEDORA_ALL_PRINCIPALS)).thenReturn(ImmutableSet.of(EVERYONE, mockUser));
+        when(mockDelegate.hasPermission(otherSession, path, READ)).thenReturn(false);
+
+        assertTrue(testObj.hasPermission(mockSession, path, READ));
+        assertFalse(testObj.hasPermission(otherSession, path, READ));
+    }
+
+    @Test
+    public void testNotSharedBetweenActions() {
+        final String[] write = new String[] { "add_node" };
+        assertTrue(testObj.hasPermission(mockSession, path, READ));
+        assertFalse(testObj.hasPermission(mockSession, path, write));
+    }
+
+    @Test
+    public void testNotCachedWithoutPrincipals() {
+        when(mockSession.getAttribute(FEDORA_ALL_PRINCIPALS)).thenReturn(null);
+        testObj.hasPermission(mockSession, path, READ);
+        testObj.hasPermission(mockSession, path, READ);
+        verify(mockDelegate, times(2)).hasPermission(mockSession, path, READ);
+    }
+
+    @Test
+    public void testInvalidatedBelowEventPath() throws RepositoryException {
+        when(mockEvent.getPath()).thenReturn("/a");
+        testObj.hasPermission(mockSession, path, READ);
+        testObj.invalidate(mockEvent);
+        testObj.hasPermission(otherSession, path, READ);
+        testObj.hasPermission(mockSession, path, READ);
+        verify(mockDelegate).hasPermission(otherSession, path, READ);
+        verify(mockDelegate).hasPermission(mockSession, path, READ);
+    }
+
+    @Test
+    public void testNotInvalidatedBesideEventPath() throws RepositoryException {
+        when(mockEvent.getPath()).thenReturn("/a/bc");
+        testObj.hasPermission(mockSession, path, READ);
+        testObj.invalidate(mockEvent);
+        testObj.hasPermission(otherSession, path, READ);
+        verify(mockDelegate, times(0)).hasPermission(otherSession, path, READ);
+    }
+
+    @Test
+    public void testNotInvalidatedBesidePathPrefix() {
+        final Path beside = paths.create("/ab/c");
+        when(mockDelegate.hasPermission(mockSession, beside, READ)).thenReturn(true);
+        testObj.hasPermission(mockSession, beside, READ);
+        testObj.invalidate("/a");
+        testObj.hasPermission(otherSession, beside, READ);
+        testObj.hasPermission(mockSession, beside, READ);
+        verify(mockDelegate).hasPermission(mockSession, beside, READ);
+        verify(mockDelegate, times(0)).hasPermission(otherSession, beside, READ);
+    }
+
+    @Test
+    public void testSessionDecisionsSurviveUnrelatedEvents() {
+        testObj.hasPermission(mockSession, path, READ);
+        testObj.invalidate("/c");
+        testObj.hasPermission(mockSession, path, READ);
+        verify(mockDelegate).hasPermission(mockSession, path, READ);
+    }
+
+    @Test
+    public void testInvalidatedWhileDeciding() {
+        doAnswer(new Answer<Boolean>() {
+
+            @Override
+            public Boolean answer(final InvocationOnMock invocation) {
+                testObj.invalidate("/a");
+                return true;
+            }
+        }).doReturn(true).when(mockDelegate).hasPermission(mockSession, path, READ);
+
+        assertTrue(testObj.hasPermission(mockSession, path, READ));
+        assertTrue(testObj.hasPermission(mockSession, path, READ));
+        assertTrue(testObj.hasPermission(mockSession, path, READ));
+        verify(mockDelegate, times(2)).hasPermission(mockSession, path, READ);
+    }
+
+    @Test
+    public void testFailedDecisionNotCached() {
+        doThrow(new IllegalStateException()).doReturn(true).when(mockDelegate).hasPermission(mockSession, path, READ);
+        try {
+            testObj.hasPermission(mockSession, path, READ);
+        } catch (final IllegalStateException e) {
+            // expected
+        }
+        assertTrue(testObj.hasPermission(mockSession, path, READ));
+        assertTrue(testObj.hasPermission(otherSession, path, READ));
+        verify(mockDelegate, times(2)).hasPermission(mockSession, path, READ);
+        verify(mockDelegate, times(0)).hasPermission(otherSession, path, READ);
+    }
+
+    @Test
+    public void testEvictedDecisionInvalidatedInSession() {
+        testObj = new CachingAuthorizationDelegate(mockDelegate, 1);
+        final Path other = paths.create("/c");
+        testObj.hasPermission(mockSession, path, READ);
+        testObj.hasPermission(mockSession, other, READ);
+        testObj.invalidate("/a");
+        testObj.hasPermission(mockSession, path, READ);
+        verify(mockDelegate, times(2)).hasPermission(mockSession, path, READ);
+    }
+
+    @Test
+    public void testInvalidateAll() {
+        testObj.hasPermission(mockSession, path, READ);
+        testObj.invalidateAll();
+        testObj.hasPermission(mockSession, path, READ);
+        verify(mockDelegate, times(2)).hasPermission(mockSession, path, READ);
+    }
+
+    @Test
+    public void testInheritedDecision() {
+        testObj.setInheritingNames(singleton("jcr:content"));
+        final Path content = paths.create("/a/b/jcr:content");
+        final Path property = paths.create("/a/b/jcr:content/jcr:data");
+
+        assertTrue(testObj.hasPermission(mockSession, content, READ));
+        assertTrue(testObj.hasPermission(mockSession, property, READ));
+        assertTrue(testObj.hasPermission(mockSession, path, READ));
+        verify(mockDelegate).hasPermission(mockSession, path, READ);
+    }
+}
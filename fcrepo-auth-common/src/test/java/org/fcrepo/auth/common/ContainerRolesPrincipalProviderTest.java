@@ -18,8 +18,10 @@ package org.fcrepo.auth.common;
 import static com.google.common.collect.Sets.newHashSet;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
@@ -141,4 +143,21 @@ public class ContainerRolesPrincipalProviderTest {
         assertNotEquals("Principals should not be equal if not the same class", principal, mock(Principal.class));
     }
 
+    /**
+     * Test for {@link ContainerRolesPrincipalProvider#getPrincipals(javax.jcr.Credentials)}.
+     */
+    @Test
+    public void testRolesCachedByUser() {
+        final Principal user = mock(Principal.class);
+        when(user.getName()).thenReturn("someUser");
+        when(request.getUserPrincipal()).thenReturn(user);
+        when(request.isUserInRole("a")).thenReturn(true);
+        provider.setRoleNames(newHashSet("a"));
+
+        final Set<Principal> principals = provider.getPrincipals(credentials);
+
+        assertSame(principals, provider.getPrincipals(credentials));
+        verify(request).isUserInRole("a");
+    }
+
 }
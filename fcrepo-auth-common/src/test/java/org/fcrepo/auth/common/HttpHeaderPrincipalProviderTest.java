@@ -17,6 +17,7 @@ package org.fcrepo.auth.common;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -75,6 +76,23 @@ public class HttpHeaderPrincipalProviderTest {
 
     }
 
+    @Test
+    public void testPrincipalsCachedByHeaderValue() {
+
+        when(request.getHeader("Groups")).thenReturn("a,b");
+
+        provider.setHeaderName("Groups");
+        provider.setSeparator(",");
+
+        final HttpServletRequest otherRequest = mock(HttpServletRequest.class);
+        when(otherRequest.getHeader("Groups")).thenReturn("a,b");
+        final ServletCredentials otherCredentials = mock(ServletCredentials.class);
+        when(otherCredentials.getRequest()).thenReturn(otherRequest);
+
+        assertSame(provider.getPrincipals(credentials), provider.getPrincipals(otherCredentials));
+
+    }
+
     @Test
     public void testShouldTrimPrincipalNames() {
 
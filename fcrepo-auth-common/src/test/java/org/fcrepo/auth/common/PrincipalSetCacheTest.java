@@ -0,0 +1,82 @@
+/**
+ * Copyright 2015 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.auth.common;
+
+import static com.google.common.collect.Sets.newHashSet;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.security.Principal;
+import java.util.Set;
+
+import org.fcrepo.auth.common.HttpHeaderPrincipalProvider.HttpHeaderPrincipal;
+import org.junit.Test;
+
+/**
+ * <p>PrincipalSetCacheTest class.</p>
+ *
+ * @author agent
+ */
+public class PrincipalSetCacheTest {
+
+    @Test
+    public void testGetAndPut() {
+        final PrincipalSetCache<String> testObj = new PrincipalSetCache<>(10, 60000);
+        assertNull(testObj.get("a,b"));
+
+        final Set<Principal> resolved = newHashSet((Principal) new HttpHeaderPrincipal("a"),
+                new HttpHeaderPrincipal("b"));
+        final Set<Principal> cached = testObj.put("a,b", resolved);
+
+        assertEquals(resolved, cached);
+        assertSame(cached, testObj.get("a,b"));
+    }
+
+    @Test
+    public void testExpiry() {
+        final PrincipalSetCache<String> testObj = new PrincipalSetCache<>(10, 0);
+        testObj.put("a", newHashSet((Principal) new HttpHeaderPrincipal("a")));
+        assertNull(testObj.get("a"));
+    }
+
+    @Test
+    public void testCanonicalSets() {
+        final Set<Principal> first = PrincipalSetCache.canonical(
+                newHashSet((Principal) new HttpHeaderPrincipal("a"), new HttpHeaderPrincipal("b")));
+        final Set<Principal> second = PrincipalSetCache.canonical(
+                newHashSet((Principal) new HttpHeaderPrincipal("b"), new HttpHeaderPrincipal("a")));
+        assertSame(first, second);
+    }
+
+    @Test
+    public void testCanonicalPrincipals() {
+        final Set<Principal> first = PrincipalSetCache.canonical(
+                newHashSet((Principal) new HttpHeaderPrincipal("a")));
+        final Set<Principal> second = PrincipalSetCache.canonical(
+                newHashSet((Principal) new HttpHeaderPrincipal("a"), new HttpHeaderPrincipal("c")));
+        assertSame(first.iterator().next(), find(second, "a"));
+    }
+
+    private static Principal find(final Set<Principal> principals, final String name) {
+        for (final Principal principal : principals) {
+            if (principal.getName().equals(name)) {
+                return principal;
+            }
+        }
+        return null;
+    }
+}
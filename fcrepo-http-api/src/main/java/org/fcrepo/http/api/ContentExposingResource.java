@@ -16,6 +16,7 @@
 package org.fcrepo.http.api;
 
 
+import static com.codahale.metrics.MetricRegistry.name;
 import static com.google.common.base.Predicates.alwaysTrue;
 import static com.google.common.base.Predicates.and;
 import static com.google.common.base.Predicates.not;
@@ -23,15 +24,28 @@ import static com.google.common.collect.Iterators.concat;
 import static com.google.common.collect.Iterators.filter;
 import static com.google.common.collect.Iterators.transform;
 import static com.hp.hpl.jena.rdf.model.ModelFactory.createDefaultModel;
+import static java.lang.Long.parseLong;
+import static java.lang.System.getProperty;
 import static javax.ws.rs.core.HttpHeaders.CACHE_CONTROL;
+import static javax.ws.rs.core.HttpHeaders.IF_MODIFIED_SINCE;
+import static javax.ws.rs.core.HttpHeaders.IF_NONE_MATCH;
 import static javax.ws.rs.core.MediaType.APPLICATION_OCTET_STREAM_TYPE;
+import static javax.ws.rs.core.MediaType.TEXT_PLAIN;
+import static javax.ws.rs.core.Response.accepted;
 import static javax.ws.rs.core.Response.ok;
 import static javax.ws.rs.core.Response.status;
+import static javax.ws.rs.core.Response.Status.NOT_MODIFIED;
 import static javax.ws.rs.core.Response.Status.PARTIAL_CONTENT;
 import static javax.ws.rs.core.Response.Status.REQUESTED_RANGE_NOT_SATISFIABLE;
 import static javax.ws.rs.core.Response.temporaryRedirect;
 import static org.apache.commons.lang.StringUtils.isBlank;
-import static org.apache.jena.riot.RDFLanguages.contentTypeToLang;
+import static org.apache.jena.riot.WebContent.contentTypeSPARQLUpdate;
+import static org.fcrepo.http.commons.domain.BinaryRdfReader.isBinaryRdf;
+import static org.fcrepo.http.commons.domain.NegotiationTable.langFor;
+import static org.fcrepo.kernel.FedoraJcrTypes.FCR_METADATA;
+import static org.fcrepo.kernel.FedoraJcrTypes.FEDORA_BINARY;
+import static org.fcrepo.kernel.FedoraJcrTypes.FEDORA_CONTAINER;
+import static org.fcrepo.kernel.FedoraJcrTypes.FCR_VERSIONS;
 import static org.fcrepo.kernel.FedoraJcrTypes.LDP_BASIC_CONTAINER;
 import static org.fcrepo.kernel.FedoraJcrTypes.LDP_DIRECT_CONTAINER;
 import static org.fcrepo.kernel.FedoraJcrTypes.LDP_INDIRECT_CONTAINER;
@@ -41,19 +55,25 @@ import static org.fcrepo.kernel.RdfLexicon.DIRECT_CONTAINER;
 import static org.fcrepo.kernel.RdfLexicon.INDIRECT_CONTAINER;
 import static org.fcrepo.kernel.RdfLexicon.LDP_NAMESPACE;
 import static org.fcrepo.kernel.RdfLexicon.isManagedNamespace;
+import static org.modeshape.jcr.api.JcrConstants.JCR_CONTENT;
 import static org.slf4j.LoggerFactory.getLogger;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.security.Principal;
 import java.util.Date;
 import java.util.Iterator;
+import java.util.Set;
+import java.util.TreeSet;
 
 import javax.inject.Inject;
 import javax.jcr.Binary;
+import javax.jcr.Node;
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.BadRequestException;
 import javax.ws.rs.BeanParam;
@@ -61,20 +81,33 @@ import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.CacheControl;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 
 import org.apache.jena.riot.Lang;
+import org.fcrepo.http.api.jobs.Job;
+import org.fcrepo.http.api.jobs.JobService;
 import org.fcrepo.http.commons.api.rdf.HttpTripleUtil;
+import org.fcrepo.http.commons.domain.BinaryRdfReader;
 import org.fcrepo.http.commons.domain.MultiPrefer;
+import org.fcrepo.http.commons.domain.NegotiationTable;
 import org.fcrepo.http.commons.domain.PreferTag;
 import org.fcrepo.http.commons.domain.Range;
 import org.fcrepo.http.commons.domain.ldp.LdpPreferTag;
+import org.fcrepo.http.commons.responses.AsyncStreamWriter;
+import org.fcrepo.http.commons.responses.CacheableRdfStream;
 import org.fcrepo.http.commons.responses.RangeRequestInputStream;
+import org.fcrepo.http.commons.responses.RepresentationCache;
+import org.fcrepo.http.commons.session.SessionFactory;
+import org.fcrepo.http.commons.session.SessionProvider;
 import org.fcrepo.kernel.exception.InvalidChecksumException;
 import org.fcrepo.kernel.exception.MalformedRdfException;
 import org.fcrepo.kernel.exception.RepositoryRuntimeException;
+import org.fcrepo.kernel.impl.FedoraResourceImpl;
+import org.fcrepo.kernel.impl.NonRdfSourceDescriptionImpl;
+import org.fcrepo.kernel.impl.TombstoneImpl;
 import org.fcrepo.kernel.impl.rdf.ManagedRdf;
 import org.fcrepo.kernel.impl.rdf.impl.AclRdfContext;
 import org.fcrepo.kernel.impl.rdf.impl.BlankNodeRdfContext;
@@ -97,12 +130,15 @@ import org.fcrepo.kernel.models.NonRdfSource;
 import org.fcrepo.kernel.models.NonRdfSourceDescription;
 import org.fcrepo.kernel.services.policy.StoragePolicyDecisionPoint;
 import org.fcrepo.kernel.utils.iterators.RdfStream;
+import org.fcrepo.metrics.RegistryService;
 import org.glassfish.jersey.media.multipart.ContentDisposition;
 import org.jvnet.hk2.annotations.Optional;
 import org.slf4j.Logger;
 
+import com.codahale.metrics.Meter;
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
+import com.google.common.collect.ForwardingIterator;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterators;
 import com.hp.hpl.jena.graph.Triple;
@@ -122,13 +158,32 @@ public abstract class ContentExposingResource extends FedoraBaseResource {
     private static final Logger LOGGER = getLogger(ContentExposingResource.class);
     public static final MediaType MESSAGE_EXTERNAL_BODY = MediaType.valueOf("message/external-body");
 
+    static final Meter notModifiedFastPathMeter = RegistryService.getInstance().getMetrics().meter(
+            name(ContentExposingResource.class, "not-modified", "fast-path"));
+
+    static final Meter notModifiedFullPathMeter = RegistryService.getInstance().getMetrics().meter(
+            name(ContentExposingResource.class, "not-modified", "full-path"));
+
+    static final Meter conditionalModifiedMeter = RegistryService.getInstance().getMetrics().meter(
+            name(ContentExposingResource.class, "conditional", "modified"));
+
     @Context protected Request request;
+    @Context protected HttpServletRequest servletRequest;
     @Context protected HttpServletResponse servletResponse;
+    @Context protected HttpHeaders headers;
 
     @Inject
     @Optional
     private HttpTripleUtil httpTripleUtil;
 
+    @Inject
+    @Optional
+    private RepresentationCache representationCache;
+
+    @Inject
+    @Optional
+    private SessionFactory sessionFactory;
+
     @BeanParam
     protected MultiPrefer prefer;
 
@@ -140,15 +195,36 @@ public abstract class ContentExposingResource extends FedoraBaseResource {
 
     private static long MAX_BUFFER_SIZE = 10240000;
 
+    /**
+     * How many PIDs to mint for a new child before giving up on finding an unused path
+     */
+    protected static final int MAX_MINT_ATTEMPTS = 10;
+
+    /**
+     * Binaries at least this large are written asynchronously, when the container allows it; a
+     * negative threshold disables asynchronous writing.
+     */
+    protected long asyncWriteThreshold = parseLong(getProperty("fcrepo.binary.async.threshold", "-1"));
+
+    @Inject
+    protected JobService jobService;
+
+    /**
+     * The session attribute under which authentication providers record the request's principals
+     */
+    private static final String FEDORA_ALL_PRINCIPALS = "fedora-all-principals";
+
     protected abstract String externalPath();
 
     protected Response getContent(final String rangeValue,
                                   final RdfStream rdfStream) throws IOException {
+        RdfStream entity = rdfStream;
+
         if (resource() instanceof FedoraBinary) {
 
             final String contentTypeString = ((FedoraBinary) resource()).getMimeType();
 
-            final Lang lang = contentTypeToLang(contentTypeString);
+            final Lang lang = langFor(contentTypeString);
 
             if (!contentTypeString.equals("text/plain") && lang != null) {
 
@@ -169,7 +245,7 @@ public abstract class ContentExposingResource extends FedoraBaseResource {
                         }));
             } else {
 
-                final MediaType mediaType = MediaType.valueOf(contentTypeString);
+                final MediaType mediaType = NegotiationTable.mediaType(contentTypeString);
                 if (MESSAGE_EXTERNAL_BODY.isCompatible(mediaType)
                         && mediaType.getParameters().containsKey("access-type")
                         && mediaType.getParameters().get("access-type").equals("URL")
@@ -184,29 +260,89 @@ public abstract class ContentExposingResource extends FedoraBaseResource {
             }
 
         } else {
-            rdfStream.concat(getResourceTriples());
+            final boolean cacheable = isRepresentationCacheable();
+
+            if (cacheable) {
+                // only build the triples if the representation has to be serialized afresh
+                rdfStream.concat(new ForwardingIterator<Triple>() {
+
+                    private Iterator<Triple> triples;
+
+                    @Override
+                    protected Iterator<Triple> delegate() {
+                        if (triples == null) {
+                            triples = getResourceTriples();
+                        }
+                        return triples;
+                    }
+                });
+            } else {
+                rdfStream.concat(getResourceTriples());
+            }
 
             if (prefer != null) {
                 prefer.getReturn().addResponseHeaders(servletResponse);
             }
 
+            if (cacheable) {
+                entity = new CacheableRdfStream(rdfStream, representationCache, resource().getPath(),
+                        resource().getEtagValue(), representationVariant());
+            }
         }
         servletResponse.addHeader("Vary", "Accept, Range, Accept-Encoding, Accept-Language");
 
-        return Response.ok(rdfStream).build();
+        return Response.ok(entity).build();
     }
 
-    protected RdfStream getResourceTriples() {
+    /**
+     * A serialized representation may be reused when nothing it depends on escapes the resource's
+     * etag and the request: i.e. outside a transaction, and without embedded children or inbound
+     * references, which change without touching this resource.
+     *
+     * @return whether the RDF representation of the resource may be served from the cache
+     */
+    private boolean isRepresentationCacheable() {
+        if (representationCache == null || resource().getEtagValue().isEmpty()
+                || TransactionServiceImpl.getCurrentTransactionId(session()) != null) {
+            return false;
+        }
+        final LdpPreferTag ldpPreferences = new LdpPreferTag(returnPreference());
+        return !ldpPreferences.prefersEmbed() && !ldpPreferences.prefersReferences();
+    }
 
-        final PreferTag returnPreference;
+    /**
+     * Everything besides the resource state that a serialized representation depends on. This
+     * includes every principal of the session, so that representations are only shared (whether
+     * from the cache or by coalescing concurrent requests) between identically authorized requests.
+     *
+     * @return the representation variant for this request
+     */
+    private String representationVariant() {
+        final String preferHeader = headers == null ? null : headers.getHeaderString("Prefer");
+        final Set<String> principals = new TreeSet<>();
+        final Object allPrincipals = session().getAttribute(FEDORA_ALL_PRINCIPALS);
+        if (allPrincipals instanceof Iterable) {
+            for (final Object principal : (Iterable<?>) allPrincipals) {
+                principals.add(principal instanceof Principal ? ((Principal) principal).getName()
+                        : String.valueOf(principal));
+            }
+        }
+        return uriInfo.getBaseUri() + " " + preferHeader + " " + session().getUserID() + " " + principals;
+    }
 
+    private PreferTag returnPreference() {
         if (prefer != null && prefer.hasReturn()) {
-            returnPreference = prefer.getReturn();
+            return prefer.getReturn();
         } else if (prefer != null && prefer.hasHandling()) {
-            returnPreference = prefer.getHandling();
+            return prefer.getHandling();
         } else {
-            returnPreference = PreferTag.emptyTag();
+            return PreferTag.emptyTag();
         }
+    }
+
+    protected RdfStream getResourceTriples() {
+
+        final PreferTag returnPreference = returnPreference();
 
         final LdpPreferTag ldpPreferences = new LdpPreferTag(returnPreference);
 
@@ -233,7 +369,12 @@ public abstract class ContentExposingResource extends FedoraBaseResource {
 
         rdfStream.concat(filter(getTriples(PropertiesRdfContext.class), tripleFilter));
 
-        if (!returnPreference.getValue().equals("minimal")) {
+        // The triples are concatenated so that those about this resource come first and together,
+        // followed by those about each other subject in turn, so that serializers which abbreviate
+        // consecutive triples with a shared subject (e.g. Turtle) can do so without sorting.
+        final boolean minimal = returnPreference.getValue().equals("minimal");
+
+        if (!minimal) {
 
             // Additional server-managed triples about this resource
             if (ldpPreferences.prefersServerManaged()) {
@@ -253,6 +394,13 @@ public abstract class ContentExposingResource extends FedoraBaseResource {
                 rdfStream.concat(getTriples(LdpContainerRdfContext.class));
                 rdfStream.concat(getTriples(LdpIsMemberOfRdfContext.class));
             }
+        }
+
+        if (httpTripleUtil != null && ldpPreferences.prefersServerManaged()) {
+            httpTripleUtil.addHttpComponentModelsForResourceToStream(rdfStream, resource(), uriInfo, translator());
+        }
+
+        if (!minimal) {
 
             // Include binary properties if this is a binary description
             if (resource() instanceof NonRdfSourceDescription) {
@@ -291,11 +439,6 @@ public abstract class ContentExposingResource extends FedoraBaseResource {
             }
         }
 
-        if (httpTripleUtil != null && ldpPreferences.prefersServerManaged()) {
-            httpTripleUtil.addHttpComponentModelsForResourceToStream(rdfStream, resource(), uriInfo, translator());
-        }
-
-
         return rdfStream;
     }
 
@@ -378,6 +521,14 @@ public abstract class ContentExposingResource extends FedoraBaseResource {
 
             } else {
                 final InputStream content = binary.getContent();
+                if (asyncWriteThreshold >= 0 && binary.getContentSize() >= asyncWriteThreshold
+                        && AsyncStreamWriter.isSupported(servletRequest)) {
+                    // write the content as the client accepts it, without holding this thread
+                    servletResponse.setContentType(binary.getMimeType());
+                    servletResponse.setHeader(CACHE_CONTROL, cc.toString());
+                    writeAsync(content);
+                    return ok().build();
+                }
                 builder = ok(content);
             }
 
@@ -389,6 +540,33 @@ public abstract class ContentExposingResource extends FedoraBaseResource {
 
         }
 
+    /**
+     * Hand the content to the container to write as the client accepts it. The content is read
+     * from the request's session, so the session stays open, and out of the anonymous session
+     * pool, until the write is done.
+     */
+    private void writeAsync(final InputStream content) throws IOException {
+        final Session session = session();
+        SessionProvider.detach(session);
+        final Runnable release = new Runnable() {
+
+            @Override
+            public void run() {
+                if (sessionFactory != null) {
+                    sessionFactory.releaseSession(session);
+                } else if (!TransactionServiceImpl.isInTransaction(session)) {
+                    session.logout();
+                }
+            }
+        };
+        try {
+            AsyncStreamWriter.write(content, servletRequest, servletResponse, release);
+        } catch (final IOException | RuntimeException e) {
+            release.run();
+            throw e;
+        }
+    }
+
     protected RdfStream getTriples(final Class<? extends RdfStream> x) {
         return getTriples(resource(), x);
     }
@@ -414,6 +592,66 @@ public abstract class ContentExposingResource extends FedoraBaseResource {
         return resource;
     }
 
+    /**
+     * Let the resource for this request answer repeated type, property, date and etag lookups
+     * from a per-request memo. Only for requests that do not modify the resource.
+     */
+    protected void memoizeResourceState() {
+        if (resource() instanceof FedoraResourceImpl) {
+            ((FedoraResourceImpl) resource()).memoizeState();
+        }
+    }
+
+
+    /**
+     * Answer a conditional GET or HEAD with 304 Not Modified using only the path-to-node lookup and
+     * the node's modification stamp, before the resource model, response headers or any RDF are
+     * assembled. Requests that can't be decided this cheaply (transactions, versions, missing or
+     * tombstoned nodes) fall through to the full evaluation.
+     */
+    protected void evaluateNotModifiedFastPath() {
+        if (headers == null || (headers.getHeaderString(IF_NONE_MATCH) == null
+                && headers.getHeaderString(IF_MODIFIED_SINCE) == null)) {
+            return;
+        }
+
+        final String externalPath = externalPath();
+        if (externalPath == null || externalPath.contains(FCR_VERSIONS)
+                || TransactionServiceImpl.getCurrentTransactionId(session()) != null) {
+            return;
+        }
+
+        final FedoraResourceImpl fastResource;
+        try {
+            final String path = translator().asString(translator().toDomain(externalPath));
+            if (path == null) {
+                return;
+            }
+            Node node = session().getNode(path);
+            if (TombstoneImpl.hasMixin(node)) {
+                return;
+            }
+            if (!externalPath.endsWith(FCR_METADATA) && NonRdfSourceDescriptionImpl.hasMixin(node)) {
+                node = node.getNode(JCR_CONTENT);
+            }
+            fastResource = new FedoraResourceImpl(node);
+        } catch (final RepositoryException | RepositoryRuntimeException e) {
+            LOGGER.trace("Conditional request for {} can't take the fast path", externalPath, e);
+            return;
+        }
+
+        fastResource.memoizeState();
+        try {
+            evaluateRequestPreconditions(request, new EntityTag(fastResource.getEtagValue()),
+                    fastResource.getLastModifiedDate(), true);
+        } catch (final WebApplicationException e) {
+            if (e.getResponse().getStatus() == NOT_MODIFIED.getStatusCode()) {
+                notModifiedFastPathMeter.mark();
+            }
+            throw e;
+        }
+        conditionalModifiedMeter.mark();
+    }
 
     /**
      * Add any resource-specific headers to the response
@@ -457,6 +695,34 @@ public abstract class ContentExposingResource extends FedoraBaseResource {
 
     }
 
+    /**
+     * Drop the cached representations that a saved write to a resource may have changed, so that the
+     * writer's next request reads its own write rather than waiting on the write's event. Writes in
+     * a transaction are not seen by anyone else until it is committed, so they leave the cache alone.
+     *
+     * @param path the repository path of the resource written, created or deleted, as given by
+     *        {@link #representationPath(FedoraResource)}
+     */
+    protected void invalidateRepresentations(final String path) {
+        if (path != null && representationCache != null
+                && TransactionServiceImpl.getCurrentTransactionId(session()) == null) {
+            representationCache.invalidateWrite(session(), path);
+        }
+    }
+
+    /**
+     * @param resource
+     * @return the repository path under which representations of a resource are cached, or null if
+     *         representations are not cached
+     */
+    protected String representationPath(final FedoraResource resource) {
+        if (representationCache == null) {
+            return null;
+        }
+        return resource instanceof FedoraBinary ? ((FedoraBinary) resource).getDescription().getPath()
+                : resource.getPath();
+    }
+
     /**
      * Evaluate the cache control headers for the request to see if it can be served from
      * the cache.
@@ -530,6 +796,21 @@ public abstract class ContentExposingResource extends FedoraBaseResource {
 
         final EntityTag etag = new EntityTag(resource.getEtagValue());
         final Date date = resource.getLastModifiedDate();
+
+        try {
+            evaluateRequestPreconditions(request, etag, date, cacheControl);
+        } catch (final WebApplicationException e) {
+            if (e.getResponse().getStatus() == NOT_MODIFIED.getStatusCode()) {
+                notModifiedFullPathMeter.mark();
+            }
+            throw e;
+        }
+    }
+
+    private static void evaluateRequestPreconditions(final Request request,
+                                                     final EntityTag etag,
+                                                     final Date date,
+                                                     final boolean cacheControl) {
         final Date roundedDate = new Date();
 
         if (date != null) {
@@ -565,8 +846,42 @@ public abstract class ContentExposingResource extends FedoraBaseResource {
                 : APPLICATION_OCTET_STREAM_TYPE;
     }
 
+    protected static String getRequestedObjectType(final MediaType requestContentType,
+                                                    final ContentDisposition contentDisposition) {
+
+        if (requestContentType != null) {
+            final String s = requestContentType.toString();
+            if (!s.equals(contentTypeSPARQLUpdate) && !isRdfContentType(s) || s.equals(TEXT_PLAIN)) {
+                return FEDORA_BINARY;
+            }
+        }
+
+        if (contentDisposition != null && contentDisposition.getType().equals("attachment")) {
+            return FEDORA_BINARY;
+        }
+
+        return FEDORA_CONTAINER;
+    }
+
+    protected FedoraResource createFedoraResource(final String path,
+                                                  final MediaType requestContentType,
+                                                  final ContentDisposition contentDisposition) {
+        final String objectType = getRequestedObjectType(requestContentType, contentDisposition);
+
+        final FedoraResource result;
+
+        if (objectType.equals(FEDORA_BINARY)) {
+            result = binaryService.findOrCreate(session(), path);
+        } else {
+            result = containerService.findOrCreate(session(), path);
+        }
+
+        return result;
+    }
+
     protected static boolean isRdfContentType(final String contentTypeString) {
-        return contentTypeToLang(contentTypeString) != null;
+        return langFor(contentTypeString) != null
+                || isBinaryRdf(NegotiationTable.mediaType(contentTypeString));
     }
 
     protected void replaceResourceBinaryWithStream(final FedoraBinary result,
@@ -589,10 +904,21 @@ public abstract class ContentExposingResource extends FedoraBaseResource {
                                              final InputStream requestBodyStream,
                                              final MediaType contentType,
                                              final RdfStream resourceTriples) throws MalformedRdfException {
-        final Lang format = contentTypeToLang(contentType.toString());
+        final Model inputModel;
+
+        if (isBinaryRdf(contentType)) {
+            try {
+                inputModel = BinaryRdfReader.read(requestBodyStream, getUri(resource).toString(),
+                        createDefaultModel());
+            } catch (final IOException e) {
+                throw new WebApplicationException(e);
+            }
+        } else {
+            final Lang format = langFor(contentType.toString());
 
-        final Model inputModel = createDefaultModel()
-                .read(requestBodyStream, getUri(resource).toString(), format.getName().toUpperCase());
+            inputModel = createDefaultModel()
+                    .read(requestBodyStream, getUri(resource).toString(), format.getName().toUpperCase());
+        }
 
         resource.replaceProperties(translator(), inputModel, resourceTriples);
     }
@@ -603,6 +929,29 @@ public abstract class ContentExposingResource extends FedoraBaseResource {
         resource.updateProperties(translator(), requestBody, resourceTriples);
     }
 
+    /**
+     * Requests in a transaction are never handled asynchronously, since the transaction could not
+     * see the outcome before it was committed.
+     *
+     * @return whether the request prefers to be handled asynchronously, and can be
+     */
+    protected boolean prefersAsync() {
+        return prefer != null && prefer.hasRespondAsync() && !TransactionServiceImpl.isInTransaction(session());
+    }
+
+    /**
+     * Hand the request's session to a job and start it in the background
+     *
+     * @param job
+     * @return 202, with the location of the job
+     */
+    protected Response submitJob(final Job job) {
+        SessionProvider.detach(session());
+        jobService.submit(job);
+        final URI location = uriInfo.getBaseUriBuilder().path(FedoraJobs.class).build(job.getId());
+        return accepted().location(location).header("Preference-Applied", "respond-async").build();
+    }
+
     /**
      * Create a checksum URI object.
      **/
@@ -0,0 +1,331 @@
+/**
+ * Copyright 2015 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.api;
+
+import static com.hp.hpl.jena.rdf.model.ResourceFactory.createResource;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static javax.ws.rs.core.MediaType.TEXT_PLAIN;
+import static javax.ws.rs.core.MediaType.TEXT_PLAIN_TYPE;
+import static javax.ws.rs.core.Response.ok;
+import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
+import static javax.ws.rs.core.Response.Status.CONFLICT;
+import static javax.ws.rs.core.Response.Status.CREATED;
+import static javax.ws.rs.core.Response.Status.INTERNAL_SERVER_ERROR;
+import static javax.ws.rs.core.Response.Status.UNSUPPORTED_MEDIA_TYPE;
+import static org.apache.jena.riot.WebContent.contentTypeSPARQLUpdate;
+import static org.fcrepo.kernel.FedoraJcrTypes.FEDORA_PAIRTREE;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.ws.rs.ClientErrorException;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.jena.riot.RiotException;
+import org.fcrepo.kernel.exception.InvalidChecksumException;
+import org.fcrepo.kernel.exception.MalformedRdfException;
+import org.fcrepo.kernel.exception.RepositoryRuntimeException;
+import org.fcrepo.kernel.identifiers.UniquePidMinter;
+import org.fcrepo.kernel.models.Container;
+import org.fcrepo.kernel.models.FedoraBinary;
+import org.fcrepo.kernel.models.FedoraResource;
+import org.fcrepo.kernel.utils.iterators.RdfStream;
+import org.glassfish.jersey.media.multipart.BodyPart;
+import org.glassfish.jersey.media.multipart.BodyPartEntity;
+import org.glassfish.jersey.media.multipart.MultiPart;
+import org.slf4j.Logger;
+import org.springframework.context.annotation.Scope;
+
+import com.codahale.metrics.annotation.Timed;
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Create many resources in a container with one request. Each part of a multipart request body
+ * becomes a new child of the container, just as if it had been POSTed to the container alone: its
+ * Content-Type and Content-Disposition decide whether it becomes an RDF source or a binary, and an
+ * optional Slug header on the part suggests its identifier. All parts are created in the
+ * request's session, which is saved every few parts.
+ *
+ * The response is streamed as parts are saved, one line per part:
+ * the part's index, the HTTP status it would have had on its own, and either the location of the
+ * new resource or a reason it was not created. Parts that fail are not created; a failed save
+ * fails every part since the last successful one.
+ *
+ * @author agent
+ */
+@Scope("request")
+@Path("/{path: .*}/fcr:batch")
+public class FedoraBatch extends ContentExposingResource {
+
+    private static final Logger LOGGER = getLogger(FedoraBatch.class);
+
+    @Inject
+    protected Session session;
+
+    @PathParam("path") protected String externalPath;
+
+    /**
+     * Default JAX-RS entry point
+     */
+    public FedoraBatch() {
+        super();
+    }
+
+    /**
+     * Create a new FedoraBatch instance for a given path
+     * @param externalPath
+     */
+    @VisibleForTesting
+    public FedoraBatch(final String externalPath) {
+        this.externalPath = externalPath;
+    }
+
+    /**
+     * Create a child of this container for each part of the request body
+     *
+     * POST /path/to/container/fcr:batch (with a multipart payload)
+     *
+     * @param multipart
+     * @param saveEvery how many parts to create between saves
+     * @return a stream of per-part results
+     */
+    @POST
+    @Timed
+    @Consumes("multipart/*")
+    @Produces(TEXT_PLAIN)
+    public Response batchCreate(final MultiPart multipart,
+                                @QueryParam("saveEvery") @DefaultValue("100") final int saveEvery) {
+
+        if (!(resource() instanceof Container)) {
+            throw new ClientErrorException("Object cannot have child nodes", CONFLICT);
+        }
+        if (saveEvery < 1) {
+            throw new ClientErrorException("saveEvery must be positive", BAD_REQUEST);
+        }
+        LOGGER.info("Batch create of {} resources in '{}'", multipart.getBodyParts().size(), externalPath);
+
+        final StreamingOutput results = new StreamingOutput() {
+
+            @Override
+            public void write(final OutputStream output) throws IOException {
+                try {
+                    createAll(multipart.getBodyParts(), saveEvery, output);
+                } finally {
+                    multipart.cleanup();
+                }
+            }
+        };
+        return ok(results, TEXT_PLAIN_TYPE).build();
+    }
+
+    private void createAll(final List<BodyPart> parts, final int saveEvery, final OutputStream output)
+            throws IOException {
+        final List<Result> unsaved = new ArrayList<>(saveEvery);
+        int created = 0;
+        for (int i = 0; i < parts.size(); i++) {
+            final Result result = createOne(i, parts.get(i));
+            unsaved.add(result);
+            if (result.status == CREATED.getStatusCode() && ++created == saveEvery) {
+                save(unsaved, output);
+                created = 0;
+            }
+        }
+        save(unsaved, output);
+    }
+
+    private Result createOne(final int index, final BodyPart part) {
+        final MediaType contentType = getSimpleContentType(part.getMediaType());
+        final String contentTypeString = contentType.toString();
+        FedoraResource child = null;
+        try {
+            final String path = mintChildPath(part.getHeaders().getFirst("Slug"));
+            child = createFedoraResource(path, contentType, part.getContentDisposition());
+            final InputStream content = ((BodyPartEntity) part.getEntity()).getInputStream();
+
+            if (child instanceof Container && isRdfContentType(contentTypeString)) {
+                replaceResourceWithStream(child, content, contentType, new RdfStream());
+            } else if (child instanceof FedoraBinary) {
+                replaceResourceBinaryWithStream((FedoraBinary) child, content, part.getContentDisposition(),
+                        part.getMediaType(), null);
+            } else if (contentTypeString.equals(contentTypeSPARQLUpdate)) {
+                patchResourcewithSparql(child, IOUtils.toString(content, UTF_8.name()), new RdfStream());
+            } else if (content.read() != -1) {
+                throw new ClientErrorException("Invalid Content Type " + contentTypeString, UNSUPPORTED_MEDIA_TYPE);
+            }
+            return new Result(index, CREATED.getStatusCode(), getUri(child).toString(), representationPath(child));
+        } catch (final WebApplicationException e) {
+            discard(child);
+            return new Result(index, e.getResponse().getStatus(), e.getMessage());
+        } catch (final MalformedRdfException | InvalidChecksumException | RiotException e) {
+            discard(child);
+            return new Result(index, BAD_REQUEST.getStatusCode(), e.getMessage());
+        } catch (final IOException | RuntimeException e) {
+            LOGGER.warn("Unable to create batch member {}", index, e);
+            discard(child);
+            return new Result(index, INTERNAL_SERVER_ERROR.getStatusCode(), e.getMessage());
+        }
+    }
+
+    /**
+     * Remove a part that was created but failed, along with the pairtree nodes created for it. The
+     * part never existed as far as anyone else knows, so unlike a delete this leaves no tombstone.
+     */
+    private static void discard(final FedoraResource child) {
+        if (child == null || !child.isNew()) {
+            return;
+        }
+        try {
+            // a binary's content node lives under its description node
+            final Node node = child instanceof FedoraBinary ? child.getNode().getParent() : child.getNode();
+            Node parent = node.getParent();
+            node.remove();
+            while (parent.isNew() && parent.isNodeType(FEDORA_PAIRTREE) && !parent.hasNodes()) {
+                final Node next = parent.getParent();
+                parent.remove();
+                parent = next;
+            }
+        } catch (final RepositoryException e) {
+            throw new RepositoryRuntimeException(e);
+        }
+    }
+
+    /**
+     * Save the session, then report the results of the parts it held. If the save fails, the
+     * parts it would have created are reported as failed instead.
+     */
+    private void save(final List<Result> unsaved, final OutputStream output) throws IOException {
+        String failure = null;
+        try {
+            session.save();
+            for (final Result result : unsaved) {
+                if (result.path != null) {
+                    invalidateRepresentations(result.path);
+                }
+            }
+        } catch (final RepositoryException | RepositoryRuntimeException e) {
+            LOGGER.warn("Unable to save batch members", e);
+            failure = e.getMessage();
+            try {
+                session.refresh(false);
+            } catch (final RepositoryException e1) {
+                throw new RepositoryRuntimeException(e1);
+            }
+        }
+        for (final Result result : unsaved) {
+            final Result reported = failure != null && result.status == CREATED.getStatusCode()
+                    ? new Result(result.index, INTERNAL_SERVER_ERROR.getStatusCode(), failure) : result;
+            output.write(reported.toString().getBytes(UTF_8));
+        }
+        output.flush();
+        unsaved.clear();
+    }
+
+    /**
+     * Choose the path of a new child, from its slug if it has one that is not taken
+     */
+    private String mintChildPath(final String slug) {
+        if (slug != null && !slug.isEmpty()) {
+            final String path = toChildPath(slug);
+            if (!nodeService.exists(session, path)) {
+                return path;
+            }
+            LOGGER.trace("Resource with path {} already exists; minting new path instead", path);
+        }
+        final boolean unique = pidMinter instanceof UniquePidMinter;
+        for (int attempt = 0; attempt < MAX_MINT_ATTEMPTS; attempt++) {
+            final String path = toChildPath(pidMinter.mintPid());
+            if (unique || !nodeService.exists(session, path)) {
+                return path;
+            }
+            LOGGER.trace("Resource with path {} already exists; minting new path instead", path);
+        }
+        throw new RepositoryRuntimeException("Unable to mint an unused path after " + MAX_MINT_ATTEMPTS
+                + " attempts");
+    }
+
+    private String toChildPath(final String pid) {
+        final String path = translator().asString(createResource(getUri(resource()) + "/" + pid));
+        try {
+            return URLDecoder.decode(path, "UTF-8");
+        } catch (final UnsupportedEncodingException e) {
+            return path;
+        }
+    }
+
+    /**
+     * The outcome of one part
+     */
+    private static class Result {
+
+        private final int index;
+
+        private final int status;
+
+        private final String detail;
+
+        /**
+         * The repository path of the resource created, if any
+         */
+        private final String path;
+
+        public Result(final int index, final int status, final String detail) {
+            this(index, status, detail, null);
+        }
+
+        public Result(final int index, final int status, final String detail, final String path) {
+            this.index = index;
+            this.status = status;
+            this.detail = detail;
+            this.path = path;
+        }
+
+        @Override
+        public String toString() {
+            return index + "\t" + status + "\t" + (detail == null ? "" : detail.replace('\n', ' ')) + "\n";
+        }
+    }
+
+    @Override
+    protected Session session() {
+        return session;
+    }
+
+    @Override
+    protected String externalPath() {
+        return externalPath;
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * Copyright 2015 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.api;
+
+import static javax.ws.rs.core.MediaType.TEXT_PLAIN;
+import static javax.ws.rs.core.Response.noContent;
+import static javax.ws.rs.core.Response.ok;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.util.Objects;
+
+import javax.inject.Inject;
+import javax.jcr.Session;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.GET;
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Response;
+
+import org.fcrepo.http.api.jobs.Job;
+import org.fcrepo.http.api.jobs.JobService;
+import org.fcrepo.http.commons.AbstractResource;
+import org.slf4j.Logger;
+import org.springframework.context.annotation.Scope;
+
+/**
+ * Follow or cancel a background job started by a request that preferred an asynchronous
+ * response. A job is visible only to the user who started it.
+ *
+ * @author agent
+ */
+@Scope("request")
+@Path("/fcr:jobs/{id}")
+public class FedoraJobs extends AbstractResource {
+
+    private static final Logger LOGGER = getLogger(FedoraJobs.class);
+
+    @Inject
+    private JobService jobService;
+
+    @Inject
+    protected Session session;
+
+    @PathParam("id") protected String id;
+
+    /**
+     * Report the progress of a job
+     *
+     * @return the state of the job and how many resources it has processed
+     */
+    @GET
+    @Produces(TEXT_PLAIN)
+    public Response getJob() {
+        return ok(job().status()).build();
+    }
+
+    /**
+     * Cancel a job. Work it has already saved is kept.
+     *
+     * @return 204
+     */
+    @DELETE
+    public Response cancelJob() {
+        LOGGER.info("Cancel job {}", id);
+        job().cancel();
+        return noContent().build();
+    }
+
+    private Job job() {
+        final Job job = jobService.get(id);
+        if (job == null || !Objects.equals(job.getUserId(), session.getUserID())) {
+            throw new NotFoundException("No such job: " + id);
+        }
+        return job;
+    }
+}
@@ -28,6 +28,7 @@ import static javax.ws.rs.core.Response.Status.CONFLICT;
 import static javax.ws.rs.core.Response.Status.UNSUPPORTED_MEDIA_TYPE;
 import static org.apache.commons.lang.StringUtils.isBlank;
 import static org.apache.jena.riot.WebContent.contentTypeSPARQLUpdate;
+import static org.fcrepo.http.commons.domain.RDFMediaType.BINARY_RDF;
 import static org.fcrepo.http.commons.domain.RDFMediaType.JSON_LD;
 import static org.fcrepo.http.commons.domain.RDFMediaType.N3;
 import static org.fcrepo.http.commons.domain.RDFMediaType.N3_ALT2;
@@ -35,8 +36,6 @@ import static org.fcrepo.http.commons.domain.RDFMediaType.NTRIPLES;
 import static org.fcrepo.http.commons.domain.RDFMediaType.RDF_XML;
 import static org.fcrepo.http.commons.domain.RDFMediaType.TURTLE;
 import static org.fcrepo.http.commons.domain.RDFMediaType.TURTLE_X;
-import static org.fcrepo.kernel.FedoraJcrTypes.FEDORA_BINARY;
-import static org.fcrepo.kernel.FedoraJcrTypes.FEDORA_CONTAINER;
 import static org.fcrepo.kernel.impl.services.TransactionServiceImpl.getCurrentTransactionId;
 import static org.slf4j.LoggerFactory.getLogger;
 
@@ -72,11 +71,13 @@ import javax.ws.rs.core.Response;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.jena.riot.RiotException;
+import org.fcrepo.http.api.jobs.DeleteJob;
 import org.fcrepo.http.commons.domain.ContentLocation;
 import org.fcrepo.http.commons.domain.PATCH;
 import org.fcrepo.kernel.exception.InvalidChecksumException;
 import org.fcrepo.kernel.exception.MalformedRdfException;
 import org.fcrepo.kernel.exception.RepositoryRuntimeException;
+import org.fcrepo.kernel.identifiers.UniquePidMinter;
 import org.fcrepo.kernel.models.Container;
 import org.fcrepo.kernel.models.FedoraBinary;
 import org.fcrepo.kernel.models.FedoraResource;
@@ -109,6 +110,11 @@ public class FedoraLdp extends ContentExposingResource {
 
     @Inject private FedoraHttpConfiguration httpConfiguration;
 
+    /**
+     * How many descendants a background delete removes between saves
+     */
+    protected int deleteBatchSize = Integer.getInteger("fcrepo.jobs.delete.batch", 1000);
+
     /**
      * Default JAX-RS entry point
      */
@@ -143,6 +149,10 @@ public class FedoraLdp extends ContentExposingResource {
     public Response head() {
         LOGGER.info("HEAD for: {}", externalPath);
 
+        evaluateNotModifiedFastPath();
+
+        memoizeResourceState();
+
         checkCacheControlHeaders(request, servletResponse, resource(), session);
 
         addResourceHttpHeaders(resource());
@@ -176,9 +186,13 @@ public class FedoraLdp extends ContentExposingResource {
      */
     @GET
     @Produces({TURTLE + ";qs=10", JSON_LD + ";qs=8",
-            N3, N3_ALT2, RDF_XML, NTRIPLES, APPLICATION_XML, TEXT_PLAIN, TURTLE_X,
+            N3, N3_ALT2, RDF_XML, NTRIPLES, APPLICATION_XML, TEXT_PLAIN, TURTLE_X, BINARY_RDF,
             TEXT_HTML, APPLICATION_XHTML_XML, "*/*"})
     public Response describe(@HeaderParam("Range") final String rangeValue) throws IOException {
+        evaluateNotModifiedFastPath();
+
+        memoizeResourceState();
+
         checkCacheControlHeaders(request, servletResponse, resource(), session);
 
         LOGGER.info("GET resource '{}'", externalPath);
@@ -192,7 +206,8 @@ public class FedoraLdp extends ContentExposingResource {
     }
 
     /**
-     * Deletes an object.
+     * Deletes an object. With Prefer: respond-async, the object is deleted in the background, a
+     * batch of descendants at a time.
      *
      * @return response
      * @throws RepositoryException
@@ -202,7 +217,13 @@ public class FedoraLdp extends ContentExposingResource {
     public Response deleteObject() {
         evaluateRequestPreconditions(request, servletResponse, resource(), session);
 
+        if (prefersAsync()) {
+            LOGGER.info("Delete resource '{}' in the background", externalPath);
+            return submitJob(new DeleteJob(session, resource(), deleteBatchSize));
+        }
+
         LOGGER.info("Delete resource '{}'", externalPath);
+        final String path = representationPath(resource());
         resource().delete();
 
         try {
@@ -210,6 +231,7 @@ public class FedoraLdp extends ContentExposingResource {
         } catch (final RepositoryException e) {
             throw new RepositoryRuntimeException(e);
         }
+        invalidateRepresentations(path);
 
         return noContent().build();
     }
@@ -296,6 +318,7 @@ public class FedoraLdp extends ContentExposingResource {
         } catch (final RepositoryException e) {
             throw new RepositoryRuntimeException(e);
         }
+        invalidateRepresentations(representationPath(resource));
 
         addCacheControlHeaders(servletResponse, resource, session);
 
@@ -350,6 +373,7 @@ public class FedoraLdp extends ContentExposingResource {
             } catch (final RepositoryException e) {
                 throw new RepositoryRuntimeException(e);
             }
+            invalidateRepresentations(representationPath(resource()));
 
             addCacheControlHeaders(servletResponse, resource(), session);
 
@@ -440,6 +464,7 @@ public class FedoraLdp extends ContentExposingResource {
         } catch (final RepositoryException e) {
             throw new RepositoryRuntimeException(e);
         }
+        invalidateRepresentations(representationPath(result));
 
         LOGGER.debug("Finished creating resource with path: {}", newObjectPath);
 
@@ -491,7 +516,7 @@ public class FedoraLdp extends ContentExposingResource {
             servletResponse.addHeader("Accept-Patch", contentTypeSPARQLUpdate);
 
             final String rdfTypes = TURTLE + "," + N3 + ","
-                    + N3_ALT2 + "," + RDF_XML + "," + NTRIPLES;
+                    + N3_ALT2 + "," + RDF_XML + "," + NTRIPLES + "," + BINARY_RDF;
             servletResponse.addHeader("Accept-Post", rdfTypes + "," + MediaType.MULTIPART_FORM_DATA
                     + "," + contentTypeSPARQLUpdate);
         } else {
@@ -525,52 +550,33 @@ public class FedoraLdp extends ContentExposingResource {
 
     }
 
-    private static String getRequestedObjectType(final MediaType requestContentType,
-                                          final ContentDisposition contentDisposition) {
-
-        if (requestContentType != null) {
-            final String s = requestContentType.toString();
-            if (!s.equals(contentTypeSPARQLUpdate) && !isRdfContentType(s) || s.equals(TEXT_PLAIN)) {
-                return FEDORA_BINARY;
-            }
-        }
-
-        if (contentDisposition != null && contentDisposition.getType().equals("attachment")) {
-            return FEDORA_BINARY;
-        }
-
-        return FEDORA_CONTAINER;
-    }
-
-    private FedoraResource createFedoraResource(final String path,
-                                                final MediaType requestContentType,
-                                                final ContentDisposition contentDisposition) {
-        final String objectType = getRequestedObjectType(requestContentType, contentDisposition);
-
-        final FedoraResource result;
-
-        if (objectType.equals(FEDORA_BINARY)) {
-            result = binaryService.findOrCreate(session, path);
-        } else {
-            result = containerService.findOrCreate(session, path);
-        }
-
-        return result;
-    }
-
     @Override
     protected Session session() {
         return session;
     }
 
     private String mintNewPid(final String slug) {
-        String pid;
-
         if (slug != null && !slug.isEmpty()) {
-            pid = slug;
-        } else {
-            pid = pidMinter.mintPid();
+            final String path = toInternalPath(slug);
+            if (!nodeService.exists(session, path)) {
+                return path;
+            }
+            LOGGER.trace("Resource with path {} already exists; minting new path instead", path);
+        }
+        // PIDs from a unique minter cannot collide with one another, so need not be looked up
+        final boolean unique = pidMinter instanceof UniquePidMinter;
+        for (int attempt = 0; attempt < MAX_MINT_ATTEMPTS; attempt++) {
+            final String path = toInternalPath(pidMinter.mintPid());
+            if (unique || !nodeService.exists(session, path)) {
+                return path;
+            }
+            LOGGER.trace("Resource with path {} already exists; minting new path instead", path);
         }
+        throw new RepositoryRuntimeException("Unable to mint an unused path after " + MAX_MINT_ATTEMPTS
+                + " attempts");
+    }
+
+    private String toInternalPath(final String pid) {
         // reverse translate the proffered or created identifier
         LOGGER.trace("Using external identifier {} to create new resource.", pid);
         LOGGER.trace("Using prefixed external identifier {} to create new resource.", uriInfo.getBaseUri() + "/"
@@ -579,21 +585,14 @@ public class FedoraLdp extends ContentExposingResource {
         final URI newResourceUri = uriInfo.getAbsolutePathBuilder().clone().path(FedoraLdp.class)
                 .resolveTemplate("path", pid, false).build();
 
-        pid = translator().asString(createResource(newResourceUri.toString()));
+        String path = translator().asString(createResource(newResourceUri.toString()));
         try {
-            pid = URLDecoder.decode(pid, "UTF-8");
+            path = URLDecoder.decode(path, "UTF-8");
         } catch (final UnsupportedEncodingException e) {
             // noop
         }
-        // remove leading slash left over from translation
-        LOGGER.trace("Using internal identifier {} to create new resource.", pid);
-
-        if (nodeService.exists(session, pid)) {
-            LOGGER.trace("Resource with path {} already exists; minting new path instead", pid);
-            return mintNewPid(null);
-        }
-
-        return pid;
+        LOGGER.trace("Using internal identifier {} to create new resource.", path);
+        return path;
     }
 
 }
@@ -41,6 +41,7 @@ import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 
+import org.fcrepo.http.api.jobs.TransferJob;
 import org.fcrepo.http.commons.domain.COPY;
 import org.fcrepo.http.commons.domain.MOVE;
 import org.fcrepo.kernel.models.FedoraResource;
@@ -100,7 +101,8 @@ public class FedoraNodes extends ContentExposingResource {
     }
 
     /**
-     * Copies an object from one path to another
+     * Copies an object from one path to another. With Prefer: respond-async, the copy is made in
+     * the background.
      */
     @COPY
     @Timed
@@ -122,10 +124,16 @@ public class FedoraNodes extends ContentExposingResource {
                 throw new ClientErrorException("Destination resource already exists", PRECONDITION_FAILED);
             }
 
+            if (prefersAsync()) {
+                LOGGER.info("Copy from '{}' to '{}' in the background", source, destination);
+                return submitJob(new TransferJob(session, nodeService, source, destination, false));
+            }
+
             LOGGER.info("Copy from '{}' to '{}'", source, destination);
             nodeService.copyObject(session, source, destination);
 
             session.save();
+            invalidateRepresentations(destination);
 
             return created(new URI(destinationUri)).build();
         } catch (final RepositoryRuntimeException e) {
@@ -149,7 +157,8 @@ public class FedoraNodes extends ContentExposingResource {
     }
 
     /**
-     * Copies an object from one path to another
+     * Moves an object from one path to another. With Prefer: respond-async, the object is moved in
+     * the background.
      */
     @MOVE
     @Timed
@@ -175,9 +184,17 @@ public class FedoraNodes extends ContentExposingResource {
                 throw new ClientErrorException("Destination resource already exists", PRECONDITION_FAILED);
             }
 
+            if (prefersAsync()) {
+                LOGGER.info("Move from '{}' to '{}' in the background", source, destination);
+                return submitJob(new TransferJob(session, nodeService, resource().getPath(), destination, true));
+            }
+
             LOGGER.info("Move from '{}' to '{}'", source, destination);
-            nodeService.moveObject(session, resource().getPath(), destination);
+            final String moved = resource().getPath();
+            nodeService.moveObject(session, moved, destination);
             session.save();
+            invalidateRepresentations(moved);
+            invalidateRepresentations(destination);
             return created(new URI(destinationUri)).build();
         } catch (final RepositoryRuntimeException e) {
             final Throwable cause = e.getCause();
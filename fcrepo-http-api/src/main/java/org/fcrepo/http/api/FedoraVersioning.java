@@ -24,6 +24,7 @@ import static javax.ws.rs.core.Response.created;
 import static javax.ws.rs.core.Response.noContent;
 import static javax.ws.rs.core.Response.status;
 import static org.apache.commons.lang.StringUtils.isBlank;
+import static org.fcrepo.http.commons.domain.RDFMediaType.BINARY_RDF;
 import static org.fcrepo.http.commons.domain.RDFMediaType.JSON_LD;
 import static org.fcrepo.http.commons.domain.RDFMediaType.N3;
 import static org.fcrepo.http.commons.domain.RDFMediaType.N3_ALT2;
@@ -168,7 +169,7 @@ public class FedoraVersioning extends FedoraBaseResource {
     @GET
     @HtmlTemplate(value = "fcr:versions")
     @Produces({TURTLE + ";qs=10", JSON_LD + ";qs=8", N3, N3_ALT2, RDF_XML, NTRIPLES, APPLICATION_XML, TEXT_PLAIN,
-            TURTLE_X, TEXT_HTML, APPLICATION_XHTML_XML, "*/*"})
+            TURTLE_X, BINARY_RDF, TEXT_HTML, APPLICATION_XHTML_XML, "*/*"})
     public RdfStream getVersionList() {
         if (!resource().isVersioned()) {
             throw new RepositoryVersionRuntimeException("This operation requires that the node be versionable");
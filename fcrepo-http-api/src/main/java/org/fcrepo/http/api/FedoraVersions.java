@@ -21,6 +21,7 @@ import static javax.ws.rs.core.MediaType.APPLICATION_XML;
 import static javax.ws.rs.core.MediaType.TEXT_HTML;
 import static javax.ws.rs.core.MediaType.TEXT_PLAIN;
 import static javax.ws.rs.core.Response.noContent;
+import static org.fcrepo.http.commons.domain.RDFMediaType.BINARY_RDF;
 import static org.fcrepo.http.commons.domain.RDFMediaType.JSON_LD;
 import static org.fcrepo.http.commons.domain.RDFMediaType.N3;
 import static org.fcrepo.http.commons.domain.RDFMediaType.N3_ALT2;
@@ -139,7 +140,7 @@ public class FedoraVersions extends ContentExposingResource {
      */
     @GET
     @Produces({TURTLE + ";qs=10", JSON_LD + ";qs=8",
-            N3, N3_ALT2, RDF_XML, NTRIPLES, APPLICATION_XML, TEXT_PLAIN, TURTLE_X,
+            N3, N3_ALT2, RDF_XML, NTRIPLES, APPLICATION_XML, TEXT_PLAIN, TURTLE_X, BINARY_RDF,
             TEXT_HTML, APPLICATION_XHTML_XML, "*/*"})
     public Response getVersion(@HeaderParam("Range") final String rangeValue) throws IOException {
         LOGGER.trace("Getting version profile for: {} at version: {}", path,
@@ -0,0 +1,115 @@
+/**
+ * Copyright 2015 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.api.jobs;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static javax.jcr.nodetype.NodeType.NT_FILE;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.jcr.Node;
+import javax.jcr.NodeIterator;
+import javax.jcr.Property;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+
+import org.fcrepo.kernel.models.FedoraResource;
+
+import com.google.common.collect.Iterators;
+
+/**
+ * Deletes a resource and everything beneath it a batch at a time, so that no single save has to
+ * hold the whole subtree. Each batch is made of descendants with no children of their own; their
+ * inbound references are removed along with them, and the session is saved before the next batch
+ * is gathered. Once the descendants are gone the resource itself is deleted, leaving a tombstone
+ * as a synchronous delete would. A cancelled job keeps the batches it has saved.
+ *
+ * @author agent
+ */
+public class DeleteJob extends Job {
+
+    private final FedoraResource resource;
+
+    private final int batchSize;
+
+    /**
+     * @param session
+     * @param resource the resource to delete
+     * @param batchSize how many descendants to delete between saves
+     */
+    public DeleteJob(final Session session, final FedoraResource resource, final int batchSize) {
+        super(session, "DELETE " + resource.getPath());
+        checkArgument(batchSize > 0, "Batch size must be positive!");
+        this.resource = resource;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    protected void execute() throws RepositoryException {
+        for (List<Node> batch = leaves(); !batch.isEmpty() && !isCancelled(); batch = leaves()) {
+            for (final Node node : batch) {
+                removeReferences(node);
+            }
+            for (final Node node : batch) {
+                node.remove();
+            }
+            session.save();
+            processed(batch.size());
+        }
+        if (!isCancelled()) {
+            resource.delete();
+            session.save();
+            processed(1);
+        }
+    }
+
+    /**
+     * Find up to a batch of descendants with no children. Files are taken whole, since their
+     * content nodes cannot be removed alone.
+     */
+    private List<Node> leaves() throws RepositoryException {
+        final List<Node> leaves = new ArrayList<>(batchSize);
+        final Deque<NodeIterator> stack = new ArrayDeque<>();
+        stack.push(resource.getNode().getNodes());
+        while (!stack.isEmpty() && leaves.size() < batchSize) {
+            final NodeIterator children = stack.peek();
+            if (!children.hasNext()) {
+                stack.pop();
+                continue;
+            }
+            final Node child = children.nextNode();
+            if (child.isNodeType(NT_FILE) || !child.hasNodes()) {
+                leaves.add(child);
+            } else {
+                stack.push(child.getNodes());
+            }
+        }
+        return leaves;
+    }
+
+    private static void removeReferences(final Node node) throws RepositoryException {
+        final Iterator<Property> references = node.getReferences();
+        final Iterator<Property> weakReferences = node.getWeakReferences();
+        final Iterator<Property> inbound = Iterators.concat(references, weakReferences);
+        while (inbound.hasNext()) {
+            inbound.next().remove();
+        }
+    }
+}
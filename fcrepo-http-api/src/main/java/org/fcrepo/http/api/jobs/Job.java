@@ -0,0 +1,183 @@
+/**
+ * Copyright 2015 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.api.jobs;
+
+import static java.lang.System.currentTimeMillis;
+import static java.util.UUID.randomUUID;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+
+import org.slf4j.Logger;
+
+/**
+ * A long-running operation on the repository, run in the background with a session that has been
+ * detached from the request that started it. The job logs the session out once it finishes.
+ *
+ * @author agent
+ */
+public abstract class Job implements Runnable {
+
+    private static final Logger LOGGER = getLogger(Job.class);
+
+    /**
+     * The life cycle of a job
+     */
+    public enum State {
+        PENDING, RUNNING, COMPLETED, FAILED, CANCELLED
+    }
+
+    private final String id = randomUUID().toString();
+
+    private final String description;
+
+    private final String userId;
+
+    protected final Session session;
+
+    private final AtomicLong processed = new AtomicLong();
+
+    private volatile State state = State.PENDING;
+
+    private volatile boolean cancelled = false;
+
+    private volatile String error;
+
+    private volatile long finished = 0;
+
+    /**
+     * @param session the session to work in, which the job will log out
+     * @param description what the job does, for its status
+     */
+    protected Job(final Session session, final String description) {
+        this.session = session;
+        this.description = description;
+        this.userId = session.getUserID();
+    }
+
+    /**
+     * Do the work of this job, returning early once {@link #isCancelled()}
+     *
+     * @throws RepositoryException
+     */
+    protected abstract void execute() throws RepositoryException;
+
+    @Override
+    public void run() {
+        try {
+            if (cancelled) {
+                state = State.CANCELLED;
+                return;
+            }
+            state = State.RUNNING;
+            LOGGER.info("Starting job {}: {}", id, description);
+            execute();
+            state = cancelled ? State.CANCELLED : State.COMPLETED;
+            LOGGER.info("Job {} {} after {} resources", id, state, processed.get());
+        } catch (final RepositoryException | RuntimeException e) {
+            LOGGER.warn("Job {} failed: {}", id, description, e);
+            error = e.getMessage();
+            state = State.FAILED;
+        } finally {
+            finished = currentTimeMillis();
+            session.logout();
+        }
+    }
+
+    /**
+     * Ask the job to stop. A job that has not started will not start; a running job stops at its
+     * next opportunity, keeping whatever work it has already saved.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * @return whether the job has been asked to stop
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Count resources the job has processed
+     *
+     * @param count
+     */
+    protected void processed(final long count) {
+        processed.addAndGet(count);
+    }
+
+    /**
+     * @return how many resources the job has processed so far
+     */
+    public long getProcessed() {
+        return processed.get();
+    }
+
+    /**
+     * @return the job's identifier
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return the user who started the job
+     */
+    public String getUserId() {
+        return userId;
+    }
+
+    /**
+     * @return the state of the job
+     */
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * @return whether the job has stopped running, for better or worse
+     */
+    public boolean isFinished() {
+        return finished > 0;
+    }
+
+    /**
+     * @return when the job finished, or 0 if it has not
+     */
+    public long getFinished() {
+        return finished;
+    }
+
+    /**
+     * @return a plain-text description of the job's progress
+     */
+    public String status() {
+        final StringBuilder status = new StringBuilder()
+                .append("job: ").append(id).append('\n')
+                .append("operation: ").append(description).append('\n')
+                .append("state: ").append(state).append('\n')
+                .append("processed: ").append(processed.get()).append('\n');
+        if (error != null) {
+            status.append("error: ").append(error.replace('\n', ' ')).append('\n');
+        }
+        return status.toString();
+    }
+}
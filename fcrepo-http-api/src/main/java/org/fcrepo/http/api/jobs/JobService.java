@@ -0,0 +1,109 @@
+/**
+ * Copyright 2015 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.api.jobs;
+
+import static java.lang.System.currentTimeMillis;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.stereotype.Component;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Runs jobs in the background and keeps track of them until a while after they finish, so that
+ * clients can follow their progress.
+ *
+ * @author agent
+ */
+@Component
+public class JobService {
+
+    private static final int DEFAULT_THREADS = 2;
+
+    private static final long DEFAULT_RETENTION = 24 * 60 * 60 * 1000;
+
+    private final ExecutorService executor;
+
+    private final long retention;
+
+    private final ConcurrentMap<String, Job> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * Run jobs on as many threads as fcrepo.jobs.threads (by default 2), and forget them as many
+     * milliseconds after they finish as fcrepo.jobs.retention (by default a day)
+     */
+    public JobService() {
+        this(newFixedThreadPool(Integer.getInteger("fcrepo.jobs.threads", DEFAULT_THREADS),
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("fcrepo-job-%d").build()),
+                Long.getLong("fcrepo.jobs.retention", DEFAULT_RETENTION));
+    }
+
+    JobService(final ExecutorService executor, final long retention) {
+        this.executor = executor;
+        this.retention = retention;
+    }
+
+    /**
+     * Queue a job to run
+     *
+     * @param job
+     * @return the job
+     */
+    public Job submit(final Job job) {
+        purge();
+        jobs.put(job.getId(), job);
+        executor.execute(job);
+        return job;
+    }
+
+    /**
+     * @param id
+     * @return the job with that id, or null if there is none
+     */
+    public Job get(final String id) {
+        purge();
+        return jobs.get(id);
+    }
+
+    /**
+     * Stop running jobs
+     */
+    @PreDestroy
+    public void shutdown() {
+        for (final Job job : jobs.values()) {
+            job.cancel();
+        }
+        executor.shutdown();
+    }
+
+    private void purge() {
+        final long expired = currentTimeMillis() - retention;
+        final Iterator<Job> it = jobs.values().iterator();
+        while (it.hasNext()) {
+            final Job job = it.next();
+            if (job.isFinished() && job.getFinished() < expired) {
+                it.remove();
+            }
+        }
+    }
+}
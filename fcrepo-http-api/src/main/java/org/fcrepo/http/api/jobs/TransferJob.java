@@ -0,0 +1,66 @@
+/**
+ * Copyright 2015 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.api.jobs;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+
+import org.fcrepo.kernel.services.NodeService;
+
+/**
+ * Copies or moves a resource and everything beneath it. The repository does either as a single
+ * workspace operation, so the job cannot report progress part way through or stop once started;
+ * it only frees the request that asked for it from waiting.
+ *
+ * @author agent
+ */
+public class TransferJob extends Job {
+
+    private final NodeService nodeService;
+
+    private final String source;
+
+    private final String destination;
+
+    private final boolean move;
+
+    /**
+     * @param session
+     * @param nodeService
+     * @param source the path to copy or move from
+     * @param destination the path to copy or move to
+     * @param move whether to move rather than copy
+     */
+    public TransferJob(final Session session, final NodeService nodeService, final String source,
+            final String destination, final boolean move) {
+        super(session, (move ? "MOVE " : "COPY ") + source + " " + destination);
+        this.nodeService = nodeService;
+        this.source = source;
+        this.destination = destination;
+        this.move = move;
+    }
+
+    @Override
+    protected void execute() throws RepositoryException {
+        if (move) {
+            nodeService.moveObject(session, source, destination);
+        } else {
+            nodeService.copyObject(session, source, destination);
+        }
+        session.save();
+        processed(1);
+    }
+}
@@ -16,6 +16,12 @@
 package org.fcrepo.http.api.responses;
 
 import static com.hp.hpl.jena.graph.Node.ANY;
+import static com.hp.hpl.jena.graph.NodeFactory.createURI;
+import static com.hp.hpl.jena.rdf.model.ModelFactory.createDefaultModel;
+import static java.lang.Boolean.TRUE;
+import static java.lang.Integer.parseInt;
+import static java.lang.System.getProperty;
+import static java.util.concurrent.TimeUnit.MINUTES;
 import static javax.ws.rs.core.MediaType.APPLICATION_XHTML_XML;
 import static javax.ws.rs.core.MediaType.APPLICATION_XHTML_XML_TYPE;
 import static javax.ws.rs.core.MediaType.TEXT_HTML;
@@ -25,8 +31,8 @@ import static org.fcrepo.http.commons.responses.RdfSerializationUtils.getAllValu
 import static org.fcrepo.http.commons.responses.RdfSerializationUtils.getFirstValueForPredicate;
 import static org.fcrepo.http.commons.responses.RdfSerializationUtils.mixinTypesPredicate;
 import static org.fcrepo.http.commons.responses.RdfSerializationUtils.primaryTypePredicate;
+import static org.fcrepo.kernel.RdfLexicon.CONTAINS;
 import static com.google.common.collect.ImmutableList.copyOf;
-import static com.google.common.collect.ImmutableMap.builder;
 import static org.slf4j.LoggerFactory.getLogger;
 
 import java.io.IOException;
@@ -37,18 +43,20 @@ import java.io.Writer;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
 import java.net.URL;
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.annotation.PostConstruct;
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
 import javax.jcr.nodetype.NodeType;
-import javax.jcr.nodetype.NodeTypeIterator;
+import javax.jcr.nodetype.NodeTypeManager;
 import javax.ws.rs.Produces;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MediaType;
@@ -58,10 +66,13 @@ import javax.ws.rs.ext.MessageBodyWriter;
 import javax.ws.rs.ext.Provider;
 
 import com.google.common.base.Predicate;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
+import com.hp.hpl.jena.graph.Graph;
 import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
 import com.hp.hpl.jena.rdf.model.Model;
 import org.apache.velocity.Template;
 import org.apache.velocity.VelocityContext;
@@ -116,10 +127,24 @@ public class StreamingBaseHtmlProvider implements MessageBodyWriter<RdfStream> {
     public static final String commonJsLocation = "/views/common.js";
 
     /**
-     * A map from String names for primary node types to the Velocity templates
-     * that should be used for those node types.
+     * A map from String names for node types to the Velocity templates that
+     * should be used for those node types, filled in as types are first rendered.
      */
-    protected Map<String, Template> templatesMap;
+    protected Map<String, Template> templatesMap = new ConcurrentHashMap<>();
+
+    /**
+     * Names found to have no template. These expire, so that a node type registered after its
+     * name was first looked up is resolved again.
+     */
+    private final Cache<String, Boolean> untemplatedNames = CacheBuilder.newBuilder()
+            .maximumSize(10000).expireAfterWrite(1, MINUTES).build();
+
+    /**
+     * The template chosen for each combination of mixin and primary types seen, so that
+     * rendering a kind of resource seen before takes a single lookup.
+     */
+    private final Cache<List<String>, Template> templatesByTypes = CacheBuilder.newBuilder()
+            .maximumSize(1000).expireAfterWrite(1, MINUTES).build();
 
     public static final String templateFilenameExtension = ".vsl";
 
@@ -129,6 +154,11 @@ public class StreamingBaseHtmlProvider implements MessageBodyWriter<RdfStream> {
     private static final Logger LOGGER =
         getLogger(StreamingBaseHtmlProvider.class);
 
+    /**
+     * The most children of a container that will be listed in its HTML representation
+     */
+    protected int childrenLimit = parseInt(getProperty("fcrepo.html.children.limit", "1000"));
+
     private final Predicate<NodeType> acceptWhenTemplateExists = new Predicate<NodeType>() {
         @Override
         public boolean apply(final NodeType nodeType) {
@@ -140,16 +170,6 @@ public class StreamingBaseHtmlProvider implements MessageBodyWriter<RdfStream> {
         }
     };
 
-    private final Predicate<String> acceptWhenTemplateMapContainsKey = new Predicate<String>() {
-        @Override
-        public boolean apply(final String key) {
-            if (isBlank(key)) {
-                return false;
-            }
-            return templatesMap.containsKey(key);
-        }
-    };
-
     @PostConstruct
     void init() throws IOException {
 
@@ -163,51 +183,6 @@ public class StreamingBaseHtmlProvider implements MessageBodyWriter<RdfStream> {
         }
         velocity.init(properties);
         LOGGER.trace("Velocity engine initialized.");
-
-        LOGGER.trace("Assembling a map of node primary types -> templates...");
-        final ImmutableMap.Builder<String, Template> templatesMapBuilder = builder();
-        final Session session = sessionFactory.getInternalSession();
-        try {
-            // we search all of the possible node primary types and mixins
-            for (final NodeTypeIterator primaryNodeTypes =
-                         session.getWorkspace().getNodeTypeManager()
-                                 .getPrimaryNodeTypes(); primaryNodeTypes.hasNext();) {
-                final NodeType primaryNodeType =
-                    primaryNodeTypes.nextNodeType();
-                final String primaryNodeTypeName =
-                    primaryNodeType.getName();
-
-                // Create a list of the primary type and all its parents
-                final List<NodeType> nodeTypesList = new ArrayList<>();
-                nodeTypesList.add(primaryNodeType);
-                nodeTypesList.addAll(Arrays.asList(primaryNodeType.getSupertypes()));
-
-                // Find a template that matches the primary type or one of its parents
-                final NodeType templateMatch = Iterables.find(nodeTypesList, acceptWhenTemplateExists, null);
-                if (templateMatch != null) {
-                    addTemplate(primaryNodeTypeName, templateMatch.getName(), templatesMapBuilder);
-                } else {
-                    // No HTML representation available for that kind of node
-                    LOGGER.debug("Didn't find template for nodes with primary type or its parents: {} in location: {}",
-                            primaryNodeTypeName, templatesLocation);
-                }
-            }
-
-            final List<String> otherTemplates =
-                    ImmutableList.of("jcr:nodetypes", "node", "fcr:versions", "fcr:fixity");
-
-            for (final String key : otherTemplates) {
-                final Template template =
-                    velocity.getTemplate(getTemplateLocation(key));
-                templatesMapBuilder.put(key, template);
-            }
-
-            templatesMap = templatesMapBuilder.build();
-
-        } catch (final RepositoryException e) {
-            throw new RepositoryRuntimeException(e);
-        }
-        LOGGER.trace("Assembled template map.");
         LOGGER.trace("HtmlProvider initialization complete.");
     }
 
@@ -225,11 +200,15 @@ public class StreamingBaseHtmlProvider implements MessageBodyWriter<RdfStream> {
 
             final Node subject = rdfStream.topic();
 
-            final Model model = rdfStream.asModel();
+            final Model model = createDefaultModel();
+            final boolean truncated = readBoundedModel(rdfStream, subject, model);
 
             final Template nodeTypeTemplate = getTemplate(model, subject, annotations);
 
             final Context context = getContext(model, subject);
+            if (truncated) {
+                context.put("childrenLimit", childrenLimit);
+            }
 
             // the contract of MessageBodyWriter<T> is _not_ to close the stream
             // after writing to it
@@ -243,6 +222,64 @@ public class StreamingBaseHtmlProvider implements MessageBodyWriter<RdfStream> {
 
     }
 
+    /**
+     * Read a stream into a model for rendering, keeping no more than {@link #childrenLimit} of the
+     * topic's children. Once the limit is reached, containment of further children and any
+     * triples about them (e.g. embedded child descriptions) are dropped as they stream past, so
+     * the size of the model, and of the page rendered from it, no longer grows with the container.
+     * Only the kept children are remembered: the stream groups triples by subject and states
+     * containment before any child is described, so once the listing is truncated, a run of
+     * triples about a resource below the topic (or a hash resource of one) is dropped unless it
+     * is about a kept child. Children nested in pairtree nodes lie below the topic too.
+     *
+     * @param rdfStream
+     * @param topic
+     * @param model the model to read into
+     * @return whether any children were left out
+     */
+    protected boolean readBoundedModel(final RdfStream rdfStream, final Node topic, final Model model) {
+        final Graph graph = model.getGraph();
+        final Set<Node> children = new HashSet<>();
+        final String below = topic.isURI() ? topic.getURI() + "/" : null;
+        boolean truncated = false;
+        Node run = null;
+        boolean dropping = false;
+
+        while (rdfStream.hasNext()) {
+            final Triple t = rdfStream.next();
+            if (t.getSubject().equals(topic) && t.getPredicate().equals(CONTAINS.asNode())) {
+                if (children.size() >= childrenLimit && !children.contains(t.getObject())) {
+                    truncated = true;
+                    continue;
+                }
+                children.add(t.getObject());
+            } else if (truncated) {
+                if (!t.getSubject().equals(run)) {
+                    run = t.getSubject();
+                    dropping = isLeftOut(children, below, run);
+                }
+                if (dropping) {
+                    continue;
+                }
+            }
+            graph.add(t);
+        }
+        model.setNsPrefixes(rdfStream.namespaces());
+        return truncated;
+    }
+
+    /**
+     * Whether a subject lies below the topic, but is neither a kept child nor a hash resource of one
+     */
+    private static boolean isLeftOut(final Set<Node> children, final String below, final Node subject) {
+        if (below == null || !subject.isURI() || !subject.getURI().startsWith(below)) {
+            return false;
+        }
+        final String uri = subject.getURI();
+        final int hash = uri.indexOf('#');
+        return !children.contains(hash > 0 ? createURI(uri.substring(0, hash)) : subject);
+    }
+
     protected Context getContext(final Model model, final Node subject) {
         final FieldTool fieldTool = new FieldTool();
 
@@ -262,50 +299,100 @@ public class StreamingBaseHtmlProvider implements MessageBodyWriter<RdfStream> {
 
     private Template getTemplate(final Model rdf, final Node subject,
                                  final Annotation[] annotations) {
-        Template template = null;
-
         for (final Annotation a : annotations) {
             if (a instanceof HtmlTemplate) {
                 final String value = ((HtmlTemplate) a).value();
                 LOGGER.debug("Found an HtmlTemplate annotation {}", value);
-                template = templatesMap.get(value);
+                final Template template = templateFor(value);
+                if (template != null) {
+                    LOGGER.debug("Choosing template: {}", template.getName());
+                    return template;
+                }
                 break;
             }
         }
 
+        LOGGER.trace("Attempting to discover the node types of the resource in question...");
+        final Iterator<String> mixinTypes = getAllValuesForPredicate(rdf, subject, mixinTypesPredicate);
+        final List<String> mixins = mixinTypes == null ? ImmutableList.<String>of() : copyOf(mixinTypes);
+        final String nodeType = getFirstValueForPredicate(rdf, subject, primaryTypePredicate);
+        LOGGER.debug("Found mixins: {} and primary node type: {}", mixins, nodeType);
+
+        final List<String> types = ImmutableList.<String>builder().addAll(mixins)
+                .add(nodeType == null ? "" : nodeType).build();
+        Template template = templatesByTypes.getIfPresent(types);
+
         if (template == null) {
-            LOGGER.trace("Attempting to discover the mixin types of the node for the resource in question...");
-            final Iterator<String> mixinTypes =
-                getAllValuesForPredicate(rdf, subject,
-                                         mixinTypesPredicate);
-
-            LOGGER.debug("Found mixins: {}", mixinTypes);
-            if (mixinTypes != null) {
-                final ImmutableList<String> copy = copyOf(mixinTypes);
-                final String mixin = Iterables.find(copy, acceptWhenTemplateMapContainsKey, null);
-                if (mixin != null) {
+            for (final String mixin : mixins) {
+                template = templateFor(mixin);
+                if (template != null) {
                     LOGGER.debug("Matched mixin type: {}", mixin);
-                    template = templatesMap.get(mixin);
+                    break;
                 }
             }
+            if (template == null) {
+                template = templateFor(nodeType);
+            }
+            if (template == null) {
+                LOGGER.debug("Falling back on default node template");
+                template = templateFor("node");
+            }
+            templatesByTypes.put(types, template);
         }
 
-        if (template == null) {
-            LOGGER.trace("Attempting to discover the primary type of the node for the resource in question...");
-            final String nodeType =
-                    getFirstValueForPredicate(rdf, subject, primaryTypePredicate);
+        LOGGER.debug("Choosing template: {}", template.getName());
+        return template;
+    }
 
-            LOGGER.debug("Found primary node type: {}", nodeType);
-            template = templatesMap.get(nodeType);
+    /**
+     * Find the template for a node type, or other name, resolving it on first use.
+     *
+     * @param name
+     * @return the template, or null if there is none
+     */
+    private Template templateFor(final String name) {
+        if (isBlank(name)) {
+            return null;
         }
-
-        if (template == null) {
-            LOGGER.debug("Falling back on default node template");
-            template = templatesMap.get("node");
+        final Template template = templatesMap.get(name);
+        if (template != null || untemplatedNames.getIfPresent(name) != null) {
+            return template;
         }
+        final Template resolved = resolveTemplate(name);
+        if (resolved == null) {
+            LOGGER.debug("Didn't find template for {} or its parents in location: {}", name, templatesLocation);
+            untemplatedNames.put(name, TRUE);
+        } else {
+            templatesMap.put(name, resolved);
+        }
+        return resolved;
+    }
 
-        LOGGER.debug("Choosing template: {}", template.getName());
-        return template;
+    /**
+     * Find a template named for the given name or, if that names a node type, for one of its
+     * supertypes.
+     *
+     * @param name
+     * @return the template, or null if there is none
+     */
+    private Template resolveTemplate(final String name) {
+        if (velocity.resourceExists(getTemplateLocation(name))) {
+            return loadTemplate(name, name);
+        }
+        final Session session = sessionFactory.getInternalSession();
+        try {
+            final NodeTypeManager nodeTypeManager = session.getWorkspace().getNodeTypeManager();
+            if (!nodeTypeManager.hasNodeType(name)) {
+                return null;
+            }
+            final NodeType templateMatch = Iterables.find(
+                    Arrays.asList(nodeTypeManager.getNodeType(name).getSupertypes()), acceptWhenTemplateExists, null);
+            return templateMatch == null ? null : loadTemplate(name, templateMatch.getName());
+        } catch (final RepositoryException e) {
+            throw new RepositoryRuntimeException(e);
+        } finally {
+            session.logout();
+        }
     }
 
     @Override
@@ -327,16 +414,14 @@ public class StreamingBaseHtmlProvider implements MessageBodyWriter<RdfStream> {
         return -1;
     }
 
-    private void addTemplate(final String primaryNodeTypeName, final String templateNodeTypeName,
-                             final ImmutableMap.Builder<String, Template> templatesMapBuilder) {
+    private Template loadTemplate(final String nodeTypeName, final String templateNodeTypeName) {
         final String templateLocation = getTemplateLocation(templateNodeTypeName);
         final Template template =
             velocity.getTemplate(templateLocation);
         template.setName(templateLocation);
         LOGGER.debug("Found template: {}", templateLocation);
-        templatesMapBuilder.put(primaryNodeTypeName, template);
-        LOGGER.debug("which we will use for nodes with primary type: {}",
-                     primaryNodeTypeName);
+        LOGGER.debug("which we will use for nodes with type: {}", nodeTypeName);
+        return template;
     }
 
     private static String getTemplateLocation(final String nodeTypeName) {
@@ -0,0 +1,263 @@
+/**
+ * Copyright 2015 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.api;
+
+import static javax.ws.rs.core.MediaType.TEXT_PLAIN_TYPE;
+import static javax.ws.rs.core.Response.Status.OK;
+import static org.apache.commons.io.IOUtils.toInputStream;
+import static org.fcrepo.http.commons.domain.RDFMediaType.NTRIPLES_TYPE;
+import static org.fcrepo.http.commons.test.util.TestHelpers.getUriInfoImpl;
+import static org.fcrepo.http.commons.test.util.TestHelpers.mockSession;
+import static org.fcrepo.kernel.FedoraJcrTypes.FEDORA_PAIRTREE;
+import static org.fcrepo.kernel.FedoraJcrTypes.FEDORA_TOMBSTONE;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.ws.rs.ClientErrorException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.core.UriBuilder;
+
+import org.fcrepo.http.commons.api.rdf.HttpResourceConverter;
+import org.fcrepo.kernel.exception.InvalidChecksumException;
+import org.fcrepo.kernel.identifiers.IdentifierConverter;
+import org.fcrepo.kernel.identifiers.PidMinter;
+import org.fcrepo.kernel.models.Container;
+import org.fcrepo.kernel.models.FedoraBinary;
+import org.fcrepo.kernel.models.FedoraResource;
+import org.fcrepo.kernel.services.BinaryService;
+import org.fcrepo.kernel.services.ContainerService;
+import org.fcrepo.kernel.services.NodeService;
+import org.fcrepo.kernel.services.policy.StoragePolicyDecisionPoint;
+import org.fcrepo.kernel.utils.iterators.RdfStream;
+import org.glassfish.jersey.media.multipart.BodyPart;
+import org.glassfish.jersey.media.multipart.BodyPartEntity;
+import org.glassfish.jersey.media.multipart.MultiPart;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.Resource;
+
+/**
+ * <p>FedoraBatchTest class.</p>
+ *
+ * @author agent
+ */
+public class FedoraBatchTest {
+
+    private final String path = "/some/path";
+
+    private FedoraBatch testObj;
+
+    private Session mockSession;
+
+    @Mock
+    private Container mockParent;
+
+    @Mock
+    private Container mockContainer;
+
+    @Mock
+    private FedoraBinary mockBinary;
+
+    @Mock
+    private NodeService mockNodeService;
+
+    @Mock
+    private ContainerService mockContainerService;
+
+    @Mock
+    private BinaryService mockBinaryService;
+
+    @Mock
+    private PidMinter mockPidMinter;
+
+    @Mock
+    private Node mockContainerNode;
+
+    @Mock
+    private Node mockPairtreeNode;
+
+    @Mock
+    private Node mockParentNode;
+
+    @Mock
+    private Node mockBinaryNode;
+
+    @Mock
+    private Node mockDescriptionNode;
+
+    private IdentifierConverter<Resource, FedoraResource> idTranslator;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+        testObj = spy(new FedoraBatch(path));
+
+        mockSession = mockSession(testObj);
+        setField(testObj, "session", mockSession);
+
+        idTranslator = new HttpResourceConverter(mockSession,
+                UriBuilder.fromUri("http://localhost/fcrepo/{path: .*}"));
+
+        setField(testObj, "uriInfo", getUriInfoImpl());
+        setField(testObj, "idTranslator", idTranslator);
+        setField(testObj, "nodeService", mockNodeService);
+        setField(testObj, "containerService", mockContainerService);
+        setField(testObj, "binaryService", mockBinaryService);
+        setField(testObj, "pidMinter", mockPidMinter);
+
+        doReturn(mockParent).when(testObj).resource();
+        when(mockParent.getPath()).thenReturn(path);
+        when(mockContainer.getPath()).thenReturn(path + "/a");
+        when(mockContainer.isNew()).thenReturn(true);
+        when(mockBinary.getPath()).thenReturn(path + "/b");
+        when(mockBinary.isNew()).thenReturn(true);
+        when(mockPidMinter.mintPid()).thenReturn("b");
+        when(mockContainerService.findOrCreate(mockSession, path + "/a")).thenReturn(mockContainer);
+        when(mockBinaryService.findOrCreate(mockSession, path + "/b")).thenReturn(mockBinary);
+
+        // the container was created under a new pairtree node, the binary directly in the parent
+        when(mockContainer.getNode()).thenReturn(mockContainerNode);
+        when(mockContainerNode.getParent()).thenReturn(mockPairtreeNode);
+        when(mockPairtreeNode.isNew()).thenReturn(true);
+        when(mockPairtreeNode.isNodeType(FEDORA_PAIRTREE)).thenReturn(true);
+        when(mockPairtreeNode.getParent()).thenReturn(mockParentNode);
+        when(mockBinary.getNode()).thenReturn(mockBinaryNode);
+        when(mockBinaryNode.getParent()).thenReturn(mockDescriptionNode);
+        when(mockDescriptionNode.getParent()).thenReturn(mockParentNode);
+    }
+
+    @Test
+    public void testBatchCreate() throws Exception {
+        final MultiPart multipart = new MultiPart()
+                .bodyPart(part(NTRIPLES_TYPE, "<> <info:p> \"x\" .", "a"))
+                .bodyPart(part(MediaType.valueOf("image/png"), "png", null));
+
+        final String results = write(testObj.batchCreate(multipart, 100));
+
+        assertEquals("0\t201\thttp://localhost/fcrepo/some/path/a\n"
+                + "1\t201\thttp://localhost/fcrepo/some/path/b\n", results);
+        verify(mockContainer).replaceProperties(eq(idTranslator), any(Model.class), any(RdfStream.class));
+        verify(mockBinary).setContent(any(InputStream.class), eq("image/png"), any(URI.class),
+                anyString(), any(StoragePolicyDecisionPoint.class));
+        verify(mockSession).save();
+    }
+
+    @Test
+    public void testBatchCreateSavesPeriodically() throws Exception {
+        final MultiPart multipart = new MultiPart()
+                .bodyPart(part(NTRIPLES_TYPE, "<> <info:p> \"x\" .", "a"))
+                .bodyPart(part(MediaType.valueOf("image/png"), "png", null));
+
+        write(testObj.batchCreate(multipart, 1));
+
+        // once after each part, and once at the end
+        verify(mockSession, times(3)).save();
+    }
+
+    @Test
+    public void testBatchCreateWithBadPart() throws Exception {
+        final MultiPart multipart = new MultiPart()
+                .bodyPart(part(NTRIPLES_TYPE, "not n-triples", "a"))
+                .bodyPart(part(MediaType.valueOf("image/png"), "png", null));
+
+        final String results = write(testObj.batchCreate(multipart, 100));
+
+        assertEquals("1\t201\thttp://localhost/fcrepo/some/path/b", results.split("\n")[1]);
+        assertEquals("0\t400", results.substring(0, 5));
+        verify(mockContainerNode).remove();
+        verify(mockPairtreeNode).remove();
+        verify(mockParentNode, never()).remove();
+        verify(mockContainer, never()).delete();
+        verify(mockPairtreeNode, never()).addNode(anyString(), eq(FEDORA_TOMBSTONE));
+    }
+
+    @Test
+    public void testBatchCreateWithBadBinary() throws Exception {
+        doThrow(new InvalidChecksumException("bad")).when(mockBinary).setContent(any(InputStream.class),
+                anyString(), any(URI.class), anyString(), any(StoragePolicyDecisionPoint.class));
+        final MultiPart multipart = new MultiPart()
+                .bodyPart(part(MediaType.valueOf("image/png"), "png", null));
+
+        final String results = write(testObj.batchCreate(multipart, 100));
+
+        assertEquals("0\t400", results.substring(0, 5));
+        // the description node goes too, and with it the content node
+        verify(mockDescriptionNode).remove();
+        verify(mockBinary, never()).delete();
+        verify(mockParentNode, never()).addNode(anyString(), eq(FEDORA_TOMBSTONE));
+    }
+
+    @Test
+    public void testBatchCreateWithFailedSave() throws Exception {
+        doThrow(new RepositoryException("full")).when(mockSession).save();
+        final MultiPart multipart = new MultiPart()
+                .bodyPart(part(MediaType.valueOf("image/png"), "png", null));
+
+        final String results = write(testObj.batchCreate(multipart, 100));
+
+        assertEquals("0\t500\tfull\n", results);
+        verify(mockSession).refresh(false);
+    }
+
+    @Test(expected = ClientErrorException.class)
+    public void testBatchCreateInBinary() {
+        doReturn(mockBinary).when(testObj).resource();
+        testObj.batchCreate(new MultiPart(), 100);
+    }
+
+    private static BodyPart part(final MediaType type, final String content, final String slug) throws IOException {
+        final BodyPartEntity entity = mock(BodyPartEntity.class);
+        when(entity.getInputStream()).thenReturn(toInputStream(content));
+        final BodyPart part = new BodyPart(entity, type);
+        if (slug != null) {
+            part.getHeaders().putSingle("Slug", slug);
+        }
+        return part;
+    }
+
+    private static String write(final Response response) throws IOException {
+        assertEquals(OK.getStatusCode(), response.getStatus());
+        assertEquals(TEXT_PLAIN_TYPE, response.getMediaType());
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ((StreamingOutput) response.getEntity()).write(output);
+        return output.toString("UTF-8");
+    }
+}
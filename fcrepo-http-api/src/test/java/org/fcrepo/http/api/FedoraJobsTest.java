@@ -0,0 +1,100 @@
+/**
+ * Copyright 2015 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.api;
+
+import static javax.ws.rs.core.Response.Status.NO_CONTENT;
+import static javax.ws.rs.core.Response.Status.OK;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+import javax.jcr.Session;
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.core.Response;
+
+import org.fcrepo.http.api.jobs.Job;
+import org.fcrepo.http.api.jobs.JobService;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+/**
+ * <p>FedoraJobsTest class.</p>
+ *
+ * @author agent
+ */
+public class FedoraJobsTest {
+
+    private FedoraJobs testObj;
+
+    @Mock
+    private Session mockSession;
+
+    @Mock
+    private Session mockJobSession;
+
+    @Mock
+    private JobService mockJobService;
+
+    private Job job;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+        when(mockSession.getUserID()).thenReturn("someUser");
+        when(mockJobSession.getUserID()).thenReturn("someUser");
+        job = new Job(mockJobSession, "TEST") {
+
+            @Override
+            protected void execute() {
+                processed(1);
+            }
+        };
+        when(mockJobService.get(job.getId())).thenReturn(job);
+        testObj = new FedoraJobs();
+        setField(testObj, "session", mockSession);
+        setField(testObj, "jobService", mockJobService);
+        setField(testObj, "id", job.getId());
+    }
+
+    @Test
+    public void testGetJob() {
+        final Response actual = testObj.getJob();
+        assertEquals(OK.getStatusCode(), actual.getStatus());
+        assertTrue(((String) actual.getEntity()).contains("state: PENDING"));
+    }
+
+    @Test
+    public void testCancelJob() {
+        final Response actual = testObj.cancelJob();
+        assertEquals(NO_CONTENT.getStatusCode(), actual.getStatus());
+        assertTrue(job.isCancelled());
+    }
+
+    @Test(expected = NotFoundException.class)
+    public void testGetUnknownJob() {
+        setField(testObj, "id", "no-such-job");
+        testObj.getJob();
+    }
+
+    @Test(expected = NotFoundException.class)
+    public void testGetAnotherUsersJob() {
+        when(mockSession.getUserID()).thenReturn("someoneElse");
+        testObj.getJob();
+    }
+}
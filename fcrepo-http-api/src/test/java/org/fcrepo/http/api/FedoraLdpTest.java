@@ -24,7 +24,10 @@ import static com.hp.hpl.jena.graph.NodeFactory.createURI;
 import static javax.ws.rs.core.MediaType.APPLICATION_OCTET_STREAM;
 import static javax.ws.rs.core.MediaType.APPLICATION_OCTET_STREAM_TYPE;
 import static javax.ws.rs.core.MediaType.TEXT_PLAIN_TYPE;
+import static javax.ws.rs.core.HttpHeaders.IF_NONE_MATCH;
+import static javax.ws.rs.core.Response.Status.ACCEPTED;
 import static javax.ws.rs.core.Response.Status.CREATED;
+import static javax.ws.rs.core.Response.Status.NOT_MODIFIED;
 import static javax.ws.rs.core.Response.Status.NO_CONTENT;
 import static javax.ws.rs.core.Response.Status.OK;
 import static javax.ws.rs.core.Response.Status.TEMPORARY_REDIRECT;
@@ -45,10 +48,12 @@ import static org.fcrepo.kernel.RdfLexicon.LDP_NAMESPACE;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -65,18 +70,34 @@ import java.util.List;
 import javax.jcr.Node;
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.BadRequestException;
 import javax.ws.rs.ClientErrorException;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriBuilder;
 
 import org.apache.commons.io.IOUtils;
+import org.fcrepo.http.api.jobs.DeleteJob;
+import org.fcrepo.http.api.jobs.JobService;
 import org.fcrepo.http.commons.api.rdf.HttpResourceConverter;
 import org.fcrepo.http.commons.domain.MultiPrefer;
+import org.fcrepo.http.commons.responses.RepresentationCache;
+import org.fcrepo.http.commons.session.SessionFactory;
+import org.fcrepo.http.commons.session.SessionProvider;
+import org.fcrepo.kernel.exception.RepositoryRuntimeException;
 import org.fcrepo.kernel.identifiers.IdentifierConverter;
+import org.fcrepo.kernel.identifiers.PidMinter;
+import org.fcrepo.kernel.identifiers.UniquePidMinter;
 import org.fcrepo.kernel.impl.rdf.impl.ReferencesRdfContext;
 import org.fcrepo.kernel.models.Container;
 import org.fcrepo.kernel.models.FedoraBinary;
@@ -88,6 +109,7 @@ import org.fcrepo.kernel.services.NodeService;
 import org.fcrepo.kernel.utils.iterators.RdfStream;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
@@ -119,6 +141,9 @@ public class FedoraLdpTest {
 
     private HttpServletResponse mockResponse;
 
+    @Mock
+    private SessionFactory mockSessionFactory;
+
     private Session mockSession;
 
     @Mock
@@ -147,6 +172,9 @@ public class FedoraLdpTest {
     @Mock
     private FedoraHttpConfiguration mockHttpConfiguration;
 
+    @Mock
+    private JobService mockJobService;
+
     private static final Logger log = getLogger(FedoraLdpTest.class);
 
 
@@ -345,6 +373,36 @@ public class FedoraLdpTest {
     }
 
 
+    @Test
+    public void testGetNotModifiedFastPath() throws Exception {
+        final HttpHeaders mockHeaders = mock(HttpHeaders.class);
+        when(mockHeaders.getHeaderString(IF_NONE_MATCH)).thenReturn("\"some-etag\"");
+        setField(testObj, "headers", mockHeaders);
+        when(mockSession.getNode(path)).thenReturn(mockNode);
+        when(mockNode.getPath()).thenReturn(path);
+        when(mockRequest.evaluatePreconditions(any(EntityTag.class))).thenReturn(Response.notModified());
+
+        try {
+            testObj.describe(null);
+            fail("Expected a 304 Not Modified");
+        } catch (final WebApplicationException e) {
+            assertEquals(NOT_MODIFIED.getStatusCode(), e.getResponse().getStatus());
+        }
+        verify(testObj, never()).resource();
+    }
+
+    @Test
+    public void testGetModifiedFallsThroughFastPath() throws Exception {
+        final HttpHeaders mockHeaders = mock(HttpHeaders.class);
+        when(mockHeaders.getHeaderString(IF_NONE_MATCH)).thenReturn("\"some-etag\"");
+        setField(testObj, "headers", mockHeaders);
+        setResource(FedoraResource.class);
+        when(mockSession.getNode(path)).thenReturn(mockNode);
+
+        final Response actual = testObj.describe(null);
+        assertEquals(OK.getStatusCode(), actual.getStatus());
+    }
+
     @Test
     public void testGet() throws Exception {
         setResource(FedoraResource.class);
@@ -562,6 +620,48 @@ public class FedoraLdpTest {
         assertTrue(IOUtils.toString((InputStream)actual.getEntity()).equals("xyz"));
     }
 
+    @Test
+    public void testGetWithBinaryAsync() throws Exception {
+        final FedoraBinary mockResource = (FedoraBinary)setResource(FedoraBinary.class);
+        when(mockResource.getDescription()).thenReturn(mockNonRdfSourceDescription);
+        when(mockResource.getMimeType()).thenReturn("text/plain");
+        when(mockResource.getContentSize()).thenReturn(3L);
+        when(mockResource.getContent()).thenReturn(toInputStream("xyz"));
+        final HttpServletRequest mockServletRequest = mock(HttpServletRequest.class);
+        final HttpServletResponse mockServletResponse = mock(HttpServletResponse.class);
+        final ServletContext mockServletContext = mock(ServletContext.class);
+        final AsyncContext mockAsyncContext = mock(AsyncContext.class);
+        final ServletOutputStream mockOutput = mock(ServletOutputStream.class);
+        when(mockServletRequest.isAsyncSupported()).thenReturn(true);
+        when(mockServletRequest.getServletContext()).thenReturn(mockServletContext);
+        when(mockServletContext.getMajorVersion()).thenReturn(3);
+        when(mockServletContext.getMinorVersion()).thenReturn(1);
+        when(mockServletRequest.startAsync()).thenReturn(mockAsyncContext);
+        when(mockServletResponse.getOutputStream()).thenReturn(mockOutput);
+        when(mockOutput.isReady()).thenReturn(true);
+        setField(testObj, "servletRequest", mockServletRequest);
+        setField(testObj, "servletResponse", mockServletResponse);
+        setField(testObj, "sessionFactory", mockSessionFactory);
+        setField(testObj, "asyncWriteThreshold", 0L);
+
+        final Response actual = testObj.describe(null);
+        assertEquals(OK.getStatusCode(), actual.getStatus());
+
+        // the request ends before the content is written, and its session must outlive it
+        final SessionProvider sessionProvider = new SessionProvider(mockServletRequest);
+        setField(sessionProvider, "sessionFactory", mockSessionFactory);
+        sessionProvider.dispose(mockSession);
+        verify(mockSessionFactory, never()).releaseSession(mockSession);
+
+        final ArgumentCaptor<WriteListener> listener = ArgumentCaptor.forClass(WriteListener.class);
+        verify(mockOutput).setWriteListener(listener.capture());
+        listener.getValue().onWritePossible();
+
+        verify(mockOutput).write(any(byte[].class), eq(0), eq(3));
+        verify(mockAsyncContext).complete();
+        verify(mockSessionFactory).releaseSession(mockSession);
+    }
+
     @Test
     public void testGetWithExternalMessageBinary() throws Exception {
         final FedoraBinary mockResource = (FedoraBinary)setResource(FedoraBinary.class);
@@ -625,6 +725,28 @@ public class FedoraLdpTest {
         verify(fedoraResource).delete();
     }
 
+    @Test
+    public void testDeleteInvalidatesRepresentations() throws Exception {
+        setResource(FedoraResource.class);
+        final RepresentationCache cache = mock(RepresentationCache.class);
+        setField(testObj, "representationCache", cache);
+        testObj.deleteObject();
+        verify(cache).invalidateWrite(mockSession, path);
+    }
+
+    @Test
+    public void testDeleteAsync() throws Exception {
+        final FedoraResource fedoraResource = setResource(FedoraResource.class);
+        setField(testObj, "prefer", new MultiPrefer("respond-async"));
+        setField(testObj, "jobService", mockJobService);
+        final Response actual = testObj.deleteObject();
+        assertEquals(ACCEPTED.getStatusCode(), actual.getStatus());
+        assertTrue(actual.getLocation().toString().contains("/fcr:jobs/"));
+        verify(mockJobService).submit(any(DeleteJob.class));
+        verify(fedoraResource, never()).delete();
+        verify(mockSession, never()).save();
+    }
+
     @Test
     public void testPutNewObject() throws Exception {
         setField(testObj, "externalPath", "some/path");
@@ -755,6 +877,35 @@ public class FedoraLdpTest {
         assertEquals(CREATED.getStatusCode(), actual.getStatus());
     }
 
+    @Test
+    public void testCreateNewObjectWithUniqueMinter() throws Exception {
+
+        setResource(Container.class);
+        final UniquePidMinter mockMinter = mock(UniquePidMinter.class);
+        when(mockMinter.mintPid()).thenReturn("b");
+        setField(testObj, "pidMinter", mockMinter);
+
+        when(mockContainerService.findOrCreate(mockSession, "/b")).thenReturn(mockContainer);
+
+        final Response actual = testObj.createObject(null, null, null, null, null);
+
+        assertEquals(CREATED.getStatusCode(), actual.getStatus());
+        verify(mockNodeService, never()).exists(mockSession, "/b");
+    }
+
+    @Test(expected = RepositoryRuntimeException.class)
+    public void testCreateNewObjectWithCollidingMinter() throws Exception {
+
+        setResource(Container.class);
+        final PidMinter mockMinter = mock(PidMinter.class);
+        when(mockMinter.mintPid()).thenReturn("b");
+        setField(testObj, "pidMinter", mockMinter);
+
+        when(mockNodeService.exists(mockSession, "/b")).thenReturn(true);
+
+        testObj.createObject(null, null, null, null, null);
+    }
+
     @Test
     public void testCreateNewObjectWithSparql() throws Exception {
 
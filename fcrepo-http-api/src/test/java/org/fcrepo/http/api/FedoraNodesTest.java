@@ -15,6 +15,7 @@
  */
 package org.fcrepo.http.api;
 
+import static javax.ws.rs.core.Response.Status.ACCEPTED;
 import static javax.ws.rs.core.Response.Status.PRECONDITION_FAILED;
 import static org.fcrepo.http.commons.test.util.TestHelpers.getUriInfoImpl;
 import static org.fcrepo.http.commons.test.util.TestHelpers.mockSession;
@@ -22,6 +23,7 @@ import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.isA;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
@@ -48,7 +50,10 @@ import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriBuilder;
 import javax.ws.rs.core.UriInfo;
 
+import org.fcrepo.http.api.jobs.JobService;
+import org.fcrepo.http.api.jobs.TransferJob;
 import org.fcrepo.http.commons.api.rdf.HttpResourceConverter;
+import org.fcrepo.http.commons.domain.MultiPrefer;
 import org.fcrepo.kernel.exception.RepositoryRuntimeException;
 import org.fcrepo.kernel.identifiers.PidMinter;
 import org.fcrepo.kernel.models.FedoraResource;
@@ -121,6 +126,9 @@ public class FedoraNodesTest {
     @Mock
     private ValueFactory mockValueFactory;
 
+    @Mock
+    private JobService mockJobService;
+
     private String path = "/some/path";
 
     @Before
@@ -168,6 +176,22 @@ public class FedoraNodesTest {
         verify(mockNodes).copyObject(mockSession, path, "/bar");
     }
 
+    @Test
+    public void testCopyObjectAsync() throws RepositoryException, URISyntaxException {
+
+        final ValueFactory mockVF = mock(ValueFactory.class);
+        when(mockSession.getValueFactory()).thenReturn(mockVF);
+        when(mockNodes.exists(mockSession, path)).thenReturn(true);
+        when(mockContainer.getPath()).thenReturn(path);
+        setField(testObj, "prefer", new MultiPrefer("respond-async"));
+        setField(testObj, "jobService", mockJobService);
+
+        final Response response = testObj.copyObject("http://localhost/fcrepo/bar");
+        assertEquals(ACCEPTED.getStatusCode(), response.getStatus());
+        verify(mockJobService).submit(isA(TransferJob.class));
+        verify(mockNodes, never()).copyObject(mockSession, path, "/bar");
+    }
+
     @Test(expected = ClientErrorException.class)
     public void testCopyMissingObject() throws RepositoryException, URISyntaxException {
 
@@ -0,0 +1,154 @@
+/**
+ * Copyright 2015 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.api.jobs;
+
+import static javax.jcr.nodetype.NodeType.NT_FILE;
+import static org.fcrepo.kernel.impl.testutilities.TestNodeIterator.nodeIterator;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import javax.jcr.Node;
+import javax.jcr.Property;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+
+import org.fcrepo.kernel.impl.testutilities.TestPropertyIterator;
+import org.fcrepo.kernel.models.FedoraResource;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+/**
+ * <p>DeleteJobTest class.</p>
+ *
+ * @author agent
+ */
+public class DeleteJobTest {
+
+    @Mock
+    private Session mockSession;
+
+    @Mock
+    private FedoraResource mockResource;
+
+    @Mock
+    private Node mockNode;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+        when(mockResource.getPath()).thenReturn("/some/path");
+        when(mockResource.getNode()).thenReturn(mockNode);
+    }
+
+    @Test
+    public void testDeleteInBatches() throws RepositoryException {
+        final Node leaf1 = leaf();
+        final Node leaf2 = leaf();
+        final Node leaf3 = leaf();
+        final Node branch = leaf();
+        when(branch.hasNodes()).thenReturn(true, false);
+        when(branch.getNodes()).thenReturn(nodeIterator(leaf2, leaf3));
+        when(mockNode.getNodes()).thenReturn(nodeIterator(leaf1, branch), nodeIterator(branch),
+                nodeIterator());
+
+        final DeleteJob testObj = new DeleteJob(mockSession, mockResource, 3);
+        testObj.run();
+
+        verify(leaf1).remove();
+        verify(leaf2).remove();
+        verify(leaf3).remove();
+        verify(branch).remove();
+        verify(mockResource).delete();
+        verify(mockSession, times(3)).save();
+        verify(mockSession).logout();
+        assertEquals(Job.State.COMPLETED, testObj.getState());
+        assertEquals(5, testObj.getProcessed());
+    }
+
+    @Test
+    public void testDeleteRemovesReferences() throws RepositoryException {
+        final Node leaf = leaf();
+        final Property mockReference = mock(Property.class);
+        final Property mockWeakReference = mock(Property.class);
+        when(leaf.getReferences()).thenReturn(new TestPropertyIterator(mockReference));
+        when(leaf.getWeakReferences()).thenReturn(new TestPropertyIterator(mockWeakReference));
+        when(mockNode.getNodes()).thenReturn(nodeIterator(leaf), nodeIterator());
+
+        new DeleteJob(mockSession, mockResource, 10).run();
+
+        verify(mockReference).remove();
+        verify(mockWeakReference).remove();
+        verify(leaf).remove();
+    }
+
+    @Test
+    public void testDeleteFileWhole() throws RepositoryException {
+        final Node file = leaf();
+        when(file.isNodeType(NT_FILE)).thenReturn(true);
+        when(file.hasNodes()).thenReturn(true);
+        when(mockNode.getNodes()).thenReturn(nodeIterator(file), nodeIterator());
+
+        new DeleteJob(mockSession, mockResource, 10).run();
+
+        verify(file, never()).getNodes();
+        verify(file).remove();
+    }
+
+    @Test
+    public void testCancelledBeforeStarting() {
+        final DeleteJob testObj = new DeleteJob(mockSession, mockResource, 10);
+        testObj.cancel();
+        testObj.run();
+
+        verify(mockResource, never()).delete();
+        verify(mockSession).logout();
+        assertEquals(Job.State.CANCELLED, testObj.getState());
+        assertTrue(testObj.isFinished());
+    }
+
+    @Test
+    public void testFailedSave() throws RepositoryException {
+        when(mockNode.getNodes()).thenReturn(nodeIterator());
+        doThrow(new RepositoryException("expected")).when(mockSession).save();
+
+        final DeleteJob testObj = new DeleteJob(mockSession, mockResource, 10);
+        testObj.run();
+
+        verify(mockSession).logout();
+        assertEquals(Job.State.FAILED, testObj.getState());
+        assertTrue(testObj.status().contains("error: expected"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBadBatchSize() {
+        new DeleteJob(mockSession, mockResource, 0);
+    }
+
+    private static Node leaf() throws RepositoryException {
+        final Node node = mock(Node.class);
+        when(node.getReferences()).thenReturn(new TestPropertyIterator());
+        when(node.getWeakReferences()).thenReturn(new TestPropertyIterator());
+        return node;
+    }
+}
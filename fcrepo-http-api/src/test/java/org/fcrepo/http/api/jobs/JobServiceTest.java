@@ -0,0 +1,99 @@
+/**
+ * Copyright 2015 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.api.jobs;
+
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.verify;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.util.concurrent.ExecutorService;
+
+import javax.jcr.Session;
+
+import org.fcrepo.kernel.services.NodeService;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+/**
+ * <p>JobServiceTest class.</p>
+ *
+ * @author agent
+ */
+public class JobServiceTest {
+
+    @Mock
+    private Session mockSession;
+
+    @Mock
+    private NodeService mockNodeService;
+
+    @Mock
+    private ExecutorService mockExecutor;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+    }
+
+    @Test
+    public void testSubmit() {
+        final JobService testObj = new JobService(newDirectExecutorService(), 60000);
+        final Job job = testObj.submit(newJob());
+
+        assertEquals(Job.State.COMPLETED, job.getState());
+        assertEquals(job, testObj.get(job.getId()));
+    }
+
+    @Test
+    public void testUnknownJob() {
+        assertNull(new JobService(newDirectExecutorService(), 60000).get("no-such-job"));
+    }
+
+    @Test
+    public void testPurgeFinishedJobs() {
+        final JobService testObj = new JobService(newDirectExecutorService(), -1);
+        final Job job = testObj.submit(newJob());
+
+        assertNull(testObj.get(job.getId()));
+    }
+
+    @Test
+    public void testKeepUnfinishedJobs() {
+        final JobService testObj = new JobService(mockExecutor, -1);
+        final Job job = testObj.submit(newJob());
+
+        verify(mockExecutor).execute(job);
+        assertEquals(job, testObj.get(job.getId()));
+    }
+
+    @Test
+    public void testShutdown() {
+        final JobService testObj = new JobService(mockExecutor, 60000);
+        final Job job = testObj.submit(newJob());
+        testObj.shutdown();
+
+        assertTrue(job.isCancelled());
+        verify(mockExecutor).shutdown();
+    }
+
+    private Job newJob() {
+        return new TransferJob(mockSession, mockNodeService, "/a", "/b", false);
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright 2015 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.api.jobs;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+
+import org.fcrepo.kernel.exception.RepositoryRuntimeException;
+import org.fcrepo.kernel.services.NodeService;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+/**
+ * <p>TransferJobTest class.</p>
+ *
+ * @author agent
+ */
+public class TransferJobTest {
+
+    @Mock
+    private Session mockSession;
+
+    @Mock
+    private NodeService mockNodeService;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+    }
+
+    @Test
+    public void testCopy() throws RepositoryException {
+        final Job testObj = new TransferJob(mockSession, mockNodeService, "/a", "/b", false);
+        testObj.run();
+
+        verify(mockNodeService).copyObject(mockSession, "/a", "/b");
+        verify(mockSession).save();
+        verify(mockSession).logout();
+        assertEquals(Job.State.COMPLETED, testObj.getState());
+    }
+
+    @Test
+    public void testMove() throws RepositoryException {
+        final Job testObj = new TransferJob(mockSession, mockNodeService, "/a", "/b", true);
+        testObj.run();
+
+        verify(mockNodeService).moveObject(mockSession, "/a", "/b");
+        verify(mockSession).save();
+        assertEquals(Job.State.COMPLETED, testObj.getState());
+    }
+
+    @Test
+    public void testFailedMove() throws RepositoryException {
+        doThrow(new RepositoryRuntimeException("expected")).when(mockNodeService)
+                .moveObject(mockSession, "/a", "/b");
+        final Job testObj = new TransferJob(mockSession, mockNodeService, "/a", "/b", true);
+        testObj.run();
+
+        verify(mockSession, never()).save();
+        verify(mockSession).logout();
+        assertEquals(Job.State.FAILED, testObj.getState());
+    }
+}
@@ -18,17 +18,22 @@ package org.fcrepo.http.api.responses;
 import static com.google.common.collect.ImmutableMap.of;
 import static com.hp.hpl.jena.graph.NodeFactory.createLiteral;
 import static com.hp.hpl.jena.graph.NodeFactory.createURI;
+import static com.hp.hpl.jena.rdf.model.ModelFactory.createDefaultModel;
+import static com.hp.hpl.jena.rdf.model.ResourceFactory.createResource;
 import static java.util.Collections.singletonMap;
 import static javax.ws.rs.core.MediaType.TEXT_HTML_TYPE;
 import static javax.ws.rs.core.MediaType.TEXT_PLAIN_TYPE;
 import static org.fcrepo.http.commons.responses.RdfSerializationUtils.primaryTypePredicate;
 import static org.fcrepo.http.commons.responses.RdfSerializationUtils.mixinTypesPredicate;
+import static org.fcrepo.kernel.RdfLexicon.CONTAINS;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.isA;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 import static org.springframework.test.util.ReflectionTestUtils.setField;
@@ -43,6 +48,8 @@ import javax.jcr.NamespaceRegistry;
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
 import javax.jcr.Workspace;
+import javax.jcr.nodetype.NodeType;
+import javax.jcr.nodetype.NodeTypeManager;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedHashMap;
@@ -50,8 +57,10 @@ import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.UriInfo;
 
 import org.apache.velocity.Template;
+import org.apache.velocity.app.VelocityEngine;
 import org.apache.velocity.context.Context;
 import org.fcrepo.http.commons.responses.HtmlTemplate;
+import org.fcrepo.http.commons.session.SessionFactory;
 import org.fcrepo.kernel.utils.iterators.RdfStream;
 import org.junit.Before;
 import org.junit.Test;
@@ -60,7 +69,9 @@ import org.mockito.Mockito;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
+import com.hp.hpl.jena.graph.Node;
 import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.rdf.model.Model;
 
 /**
  * <p>BaseHtmlProviderTest class.</p>
@@ -214,4 +225,105 @@ public class StreamingBaseHtmlProviderTest {
         final byte[] results = outStream.toByteArray();
         assertTrue("Got no output from serialization!", results.length > 0);
     }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    @Test
+    public void testWriteToWithLazilyResolvedTemplate() throws RepositoryException, IOException {
+        final Template mockTemplate = mock(Template.class);
+        final VelocityEngine mockVelocity = mock(VelocityEngine.class);
+        final SessionFactory mockSessionFactory = mock(SessionFactory.class);
+        final NodeTypeManager mockNodeTypeManager = mock(NodeTypeManager.class);
+        final NodeType mockNodeType = mock(NodeType.class);
+        final NodeType mockSupertype = mock(NodeType.class);
+        when(mockVelocity.resourceExists("/views/nt-file.vsl")).thenReturn(true);
+        when(mockVelocity.getTemplate("/views/nt-file.vsl")).thenReturn(mockTemplate);
+        when(mockSessionFactory.getInternalSession()).thenReturn(mockSession);
+        when(mockWorkspace.getNodeTypeManager()).thenReturn(mockNodeTypeManager);
+        when(mockNodeTypeManager.hasNodeType("my:type")).thenReturn(true);
+        when(mockNodeTypeManager.getNodeType("my:type")).thenReturn(mockNodeType);
+        when(mockNodeType.getSupertypes()).thenReturn(new NodeType[] { mockSupertype });
+        when(mockSupertype.getName()).thenReturn("nt:file");
+        setField(testProvider, "velocity", mockVelocity);
+        setField(testProvider, "sessionFactory", mockSessionFactory);
+
+        for (int i = 0; i < 2; i++) {
+            final RdfStream rdfStream = new RdfStream(new Triple(createURI("test:subject3"), primaryTypePredicate,
+                    createLiteral("my:type"))).session(mockSession).topic(createURI("test:subject3"));
+            testProvider.writeTo(rdfStream, RdfStream.class, mock(Type.class), new Annotation[] {},
+                    MediaType.valueOf("text/html"), (MultivaluedMap) new MultivaluedHashMap<>(),
+                    new ByteArrayOutputStream());
+        }
+        verify(mockTemplate, times(2)).merge(isA(Context.class), isA(Writer.class));
+        verify(mockNodeTypeManager).getNodeType("my:type");
+        verify(mockVelocity).getTemplate("/views/nt-file.vsl");
+    }
+
+    @Test
+    public void testReadBoundedModel() {
+        final Node topic = createURI("http://localhost/a");
+        final RdfStream container = new RdfStream().topic(topic);
+        for (final String child : new String[] { "b", "c", "d" }) {
+            container.concat(new Triple(topic, CONTAINS.asNode(), createURI("http://localhost/a/" + child)));
+        }
+        container.concat(new Triple(createURI("http://localhost/a/b"), createURI("test:predicate"),
+                createLiteral("kept")));
+        container.concat(new Triple(createURI("http://localhost/a/d"), createURI("test:predicate"),
+                createLiteral("dropped")));
+        container.concat(new Triple(createURI("http://localhost/a#hash"), createURI("test:predicate"),
+                createLiteral("kept")));
+        setField(testProvider, "childrenLimit", 2);
+
+        final Model model = createDefaultModel();
+        assertTrue("Expected the children to be truncated!", testProvider.readBoundedModel(container, topic, model));
+        assertEquals(2, model.listObjectsOfProperty(CONTAINS).toList().size());
+        assertFalse(model.contains(createResource("http://localhost/a/d"), null));
+        assertTrue(model.contains(createResource("http://localhost/a/b"), null));
+        assertTrue(model.contains(createResource("http://localhost/a#hash"), null));
+    }
+
+    @Test
+    public void testReadBoundedModelWithPairtree() {
+        final Node topic = createURI("http://localhost/a");
+        final RdfStream container = new RdfStream().topic(topic);
+        for (final String child : new String[] { "b", "c", "d" }) {
+            container.concat(new Triple(topic, CONTAINS.asNode(),
+                    createURI("http://localhost/a/x1/y2/" + child)));
+        }
+        container.concat(new Triple(createURI("http://localhost/a/x1/y2/b"), createURI("test:predicate"),
+                createLiteral("kept")));
+        container.concat(new Triple(createURI("http://localhost/a/x1/y2/d"), createURI("test:predicate"),
+                createLiteral("dropped")));
+        container.concat(new Triple(createURI("http://localhost/a/x1/y2/d#hash"), createURI("test:predicate"),
+                createLiteral("dropped")));
+        setField(testProvider, "childrenLimit", 2);
+
+        final Model model = createDefaultModel();
+        assertTrue("Expected the children to be truncated!", testProvider.readBoundedModel(container, topic, model));
+        assertEquals(2, model.listObjectsOfProperty(CONTAINS).toList().size());
+        assertFalse(model.contains(createResource("http://localhost/a/x1/y2/d"), null));
+        assertFalse(model.contains(createResource("http://localhost/a/x1/y2/d#hash"), null));
+        assertTrue(model.contains(createResource("http://localhost/a/x1/y2/b"), null));
+    }
+
+    @Test
+    public void testReadBoundedModelKeepsOtherSubjects() {
+        final Node topic = createURI("http://localhost/a");
+        final RdfStream container = new RdfStream().topic(topic);
+        for (final String child : new String[] { "b", "c", "d" }) {
+            container.concat(new Triple(topic, CONTAINS.asNode(), createURI("http://localhost/a/" + child)));
+        }
+        container.concat(new Triple(createURI("http://localhost/z"), createURI("test:references"), topic));
+        setField(testProvider, "childrenLimit", 2);
+
+        final Model model = createDefaultModel();
+        assertTrue("Expected the children to be truncated!", testProvider.readBoundedModel(container, topic, model));
+        assertTrue(model.contains(createResource("http://localhost/z"), null));
+    }
+
+    @Test
+    public void testReadBoundedModelUnderLimit() {
+        final Model model = createDefaultModel();
+        assertFalse(testProvider.readBoundedModel(testData, testData.topic(), model));
+        assertEquals(2, model.size());
+    }
 }
@@ -57,6 +57,8 @@ import org.fcrepo.kernel.identifiers.IdentifierConverter;
 import org.fcrepo.kernel.impl.TombstoneImpl;
 import org.fcrepo.kernel.impl.identifiers.HashConverter;
 import org.fcrepo.kernel.impl.identifiers.NamespaceConverter;
+import org.fcrepo.kernel.impl.identifiers.ResourcePathCache;
+import org.fcrepo.kernel.impl.identifiers.ResourcePathCache.Resolution;
 
 import org.glassfish.jersey.uri.UriTemplate;
 import org.slf4j.Logger;
@@ -86,6 +88,8 @@ public class HttpResourceConverter extends IdentifierConverter<Resource,FedoraRe
     protected Converter<String, String> forward = identity();
     protected Converter<String, String> reverse = identity();
 
+    protected ResourcePathCache pathCache = ResourcePathCache.getInstance();
+
     private final UriTemplate uriTemplate;
 
     /**
@@ -227,7 +231,60 @@ public class HttpResourceConverter extends IdentifierConverter<Resource,FedoraRe
     }
 
 
+    /**
+     * Load the node at a path, from the path cache when it resolved before
+     */
     private Node getNode(final String path) throws RepositoryException {
+        if (!pathCache.isEnabled()) {
+            return resolveNode(path);
+        }
+        final Node cached = getCachedNode(path);
+        if (cached != null) {
+            return cached;
+        }
+        final Node node = resolveNode(path);
+        if (!node.isNew() && getCurrentTransactionId(session) == null) {
+            final String versionedIdentifier = path.contains(FCR_VERSIONS) ? getVersionedIdentifier(path) : null;
+            pathCache.put(path, node.getIdentifier(), versionedIdentifier);
+        }
+        return node;
+    }
+
+    /**
+     * The node a path resolved to before, if it is still there; a version is trusted while the
+     * node it is a version of is there, since frozen nodes never change. Anything else that goes
+     * wrong is left to the full resolution to report.
+     */
+    private Node getCachedNode(final String path) {
+        final Resolution resolution = pathCache.get(path);
+        if (resolution == null) {
+            return null;
+        }
+        try {
+            final Node node = session.getNodeByIdentifier(resolution.getIdentifier());
+            if (resolution.getVersionedIdentifier() != null) {
+                session.getNodeByIdentifier(resolution.getVersionedIdentifier());
+                return node;
+            }
+            if (node.getPath().equals(path)) {
+                return node;
+            }
+        } catch (final RepositoryException e) {
+            LOGGER.trace("Cached resolution of {} is gone", path, e);
+        }
+        pathCache.remove(path);
+        return null;
+    }
+
+    /**
+     * @param path a path into a version
+     * @return the identifier of the node it is a version of
+     */
+    private String getVersionedIdentifier(final String path) throws RepositoryException {
+        return session.getNode(path.split("/" + FCR_VERSIONS + "/", 2)[0]).getIdentifier();
+    }
+
+    private Node resolveNode(final String path) throws RepositoryException {
         if (path.contains(FCR_VERSIONS)) {
             final String[] split = path.split("/" + FCR_VERSIONS + "/", 2);
             final String versionedPath = split[0];
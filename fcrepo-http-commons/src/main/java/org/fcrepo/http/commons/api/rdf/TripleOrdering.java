@@ -16,7 +16,10 @@
 package org.fcrepo.http.commons.api.rdf;
 
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
 
+import com.hp.hpl.jena.graph.Node;
 import com.hp.hpl.jena.graph.Triple;
 import com.hp.hpl.jena.shared.PrefixMapping;
 
@@ -24,12 +27,19 @@ import com.hp.hpl.jena.shared.PrefixMapping;
  * Comparator to sort a list of Quads by subject, predicate, and object
  * to ensure a consistent order for human-readable output
  *
+ * Each node is rendered only once per comparator, however many comparisons it takes part in, so
+ * a comparator should be used for a single sort and not shared between threads.
+ *
  * @author awoods
  */
 public class TripleOrdering implements Comparator<Triple> {
 
     private final PrefixMapping prefixMapping;
 
+    private final Map<Node, String> prefixedRenderings = new HashMap<>();
+
+    private final Map<Node, String> renderings = new HashMap<>();
+
     /**
      * When sorting predicates, take into account the given PrefixMapping
      * @param prefixMapping
@@ -43,25 +53,48 @@ public class TripleOrdering implements Comparator<Triple> {
     @Override
     public int compare(final Triple left, final Triple right) {
 
-        final int s =
-                left.getSubject().toString(prefixMapping, false).compareTo(
-                        right.getSubject().toString(prefixMapping, false));
+        final int s = compareWithPrefixes(left.getSubject(), right.getSubject());
 
         if (s != 0) {
             return s;
         }
 
-        final int p =
-                left.getPredicate().toString(prefixMapping, false).compareTo(
-                        right.getPredicate().toString(prefixMapping, false));
+        final int p = compareWithPrefixes(left.getPredicate(), right.getPredicate());
 
         if (p != 0) {
             return p;
         }
 
-        return left.getObject().toString(false).compareTo(
-                right.getObject().toString(false));
+        if (left.getObject().equals(right.getObject())) {
+            return 0;
+        }
+        return render(left.getObject()).compareTo(render(right.getObject()));
 
     }
 
+    private int compareWithPrefixes(final Node left, final Node right) {
+        if (left.equals(right)) {
+            return 0;
+        }
+        return renderWithPrefixes(left).compareTo(renderWithPrefixes(right));
+    }
+
+    private String renderWithPrefixes(final Node node) {
+        String rendering = prefixedRenderings.get(node);
+        if (rendering == null) {
+            rendering = node.toString(prefixMapping, false);
+            prefixedRenderings.put(node, rendering);
+        }
+        return rendering;
+    }
+
+    private String render(final Node node) {
+        String rendering = renderings.get(node);
+        if (rendering == null) {
+            rendering = node.toString(false);
+            renderings.put(node, rendering);
+        }
+        return rendering;
+    }
+
 }
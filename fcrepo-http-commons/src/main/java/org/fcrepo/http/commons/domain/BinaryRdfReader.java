@@ -0,0 +1,111 @@
+/**
+ * Copyright 2015 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.domain;
+
+import static com.hp.hpl.jena.graph.NodeFactory.createAnon;
+import static com.hp.hpl.jena.graph.NodeFactory.createLiteral;
+import static com.hp.hpl.jena.graph.NodeFactory.createURI;
+import static org.fcrepo.http.commons.domain.RDFMediaType.BINARY_RDF_TYPE;
+import static org.openrdf.rio.RDFFormat.BINARY;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.ws.rs.core.MediaType;
+
+import org.apache.jena.riot.RiotException;
+import org.openrdf.model.BNode;
+import org.openrdf.model.Literal;
+import org.openrdf.model.Statement;
+import org.openrdf.model.Value;
+import org.openrdf.rio.RDFHandlerException;
+import org.openrdf.rio.RDFParseException;
+import org.openrdf.rio.RDFParser;
+import org.openrdf.rio.Rio;
+import org.openrdf.rio.helpers.RDFHandlerBase;
+
+import com.hp.hpl.jena.datatypes.TypeMapper;
+import com.hp.hpl.jena.graph.Graph;
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.rdf.model.AnonId;
+import com.hp.hpl.jena.rdf.model.Model;
+
+/**
+ * Reads Sesame's binary RDF format, which Jena cannot, into a Jena {@link Model}. The format
+ * dictionary-encodes repeated terms, so machine clients can send and receive RDF without text
+ * parsing.
+ *
+ * @author agent
+ */
+public final class BinaryRdfReader {
+
+    private BinaryRdfReader() {
+    }
+
+    /**
+     * @param mediaType
+     * @return whether the media type is binary RDF
+     */
+    public static boolean isBinaryRdf(final MediaType mediaType) {
+        return mediaType != null && BINARY_RDF_TYPE.isCompatible(mediaType) && !mediaType.isWildcardType()
+                && !mediaType.isWildcardSubtype();
+    }
+
+    /**
+     * Read binary RDF into a model
+     *
+     * @param input
+     * @param baseUri
+     * @param model
+     * @return the model
+     * @throws IOException
+     * @throws RiotException if the input is not well-formed binary RDF
+     */
+    public static Model read(final InputStream input, final String baseUri, final Model model) throws IOException {
+        final Graph graph = model.getGraph();
+        final RDFParser parser = Rio.createParser(BINARY);
+        parser.setRDFHandler(new RDFHandlerBase() {
+
+            @Override
+            public void handleStatement(final Statement st) {
+                graph.add(new Triple(asNode(st.getSubject()), asNode(st.getPredicate()), asNode(st.getObject())));
+            }
+        });
+        try {
+            parser.parse(input, baseUri);
+        } catch (final RDFParseException | RDFHandlerException e) {
+            throw new RiotException(e);
+        }
+        return model;
+    }
+
+    private static Node asNode(final Value value) {
+        if (value instanceof BNode) {
+            return createAnon(new AnonId(((BNode) value).getID()));
+        } else if (value instanceof Literal) {
+            final Literal literal = (Literal) value;
+            if (literal.getLanguage() != null) {
+                return createLiteral(literal.getLabel(), literal.getLanguage(), false);
+            } else if (literal.getDatatype() != null) {
+                return createLiteral(literal.getLabel(),
+                        TypeMapper.getInstance().getSafeTypeByName(literal.getDatatype().stringValue()));
+            }
+            return createLiteral(literal.getLabel());
+        }
+        return createURI(value.stringValue());
+    }
+}
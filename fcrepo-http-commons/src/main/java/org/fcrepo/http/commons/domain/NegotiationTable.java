@@ -0,0 +1,141 @@
+/**
+ * Copyright 2015 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.domain;
+
+import static java.util.Collections.unmodifiableMap;
+import static java.util.Locale.ENGLISH;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.ws.rs.core.MediaType;
+
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFLanguages;
+import org.fcrepo.http.commons.responses.RdfStreamProvider.NTriplesWithCorrectMimeType;
+import org.openrdf.rio.RDFFormat;
+import org.openrdf.rio.RDFWriterFactory;
+import org.openrdf.rio.RDFWriterRegistry;
+import org.slf4j.Logger;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Content-negotiation lookups answered from tables built once, when the class is loaded, instead
+ * of from the Rio and RIOT registries on every request. Both registries are filled when their own
+ * classes load, so formats registered any later than that are not seen here; the one writer this
+ * application registers itself, {@link NTriplesWithCorrectMimeType}, is entered in the table
+ * directly rather than left to whether RdfStreamProvider registered it first.
+ *
+ * @author agent
+ */
+public final class NegotiationTable {
+
+    private static final Logger LOGGER = getLogger(NegotiationTable.class);
+
+    private static final Map<String, RDFWriterFactory> writers = writerTable();
+
+    private static final Map<String, Lang> langs = langTable();
+
+    /**
+     * Parsed media types, by the strings they were parsed from. Binary media types are whatever
+     * clients sent, so the table is bounded.
+     */
+    private static final Cache<String, MediaType> mediaTypes = CacheBuilder.newBuilder().maximumSize(1000).build();
+
+    private NegotiationTable() {
+    }
+
+    /**
+     * The equivalent of Rio.getWriterFormatForMIMEType, ignoring media type parameters
+     *
+     * @param mediaType
+     * @return the factory for writers of that media type, or null if there is none
+     */
+    public static RDFWriterFactory writerFor(final MediaType mediaType) {
+        return writers.get(key(mediaType.getType() + "/" + mediaType.getSubtype()));
+    }
+
+    /**
+     * The equivalent of RDFLanguages.contentTypeToLang
+     *
+     * @param contentType
+     * @return the RDF language of that content type, or null if it is not RDF
+     */
+    public static Lang langFor(final String contentType) {
+        return contentType == null ? null : langs.get(key(contentType));
+    }
+
+    /**
+     * The equivalent of MediaType.valueOf
+     *
+     * @param mediaType
+     * @return the parsed media type
+     * @throws IllegalArgumentException if the media type cannot be parsed
+     */
+    public static MediaType mediaType(final String mediaType) {
+        MediaType parsed = mediaTypes.getIfPresent(mediaType);
+        if (parsed == null) {
+            parsed = MediaType.valueOf(mediaType);
+            mediaTypes.put(mediaType, parsed);
+        }
+        return parsed;
+    }
+
+    private static String key(final String contentType) {
+        final int semicolon = contentType.indexOf(';');
+        return (semicolon < 0 ? contentType : contentType.substring(0, semicolon)).trim().toLowerCase(ENGLISH);
+    }
+
+    /**
+     * Rio prefers a format whose default MIME type matches over one that merely lists it, so the
+     * default MIME types are entered first.
+     */
+    private static Map<String, RDFWriterFactory> writerTable() {
+        final List<RDFWriterFactory> factories = new ArrayList<>(RDFWriterRegistry.getInstance().getAll());
+        factories.add(new NTriplesWithCorrectMimeType());
+        final Map<String, RDFWriterFactory> table = new HashMap<>();
+        for (final RDFWriterFactory factory : factories) {
+            final RDFFormat format = factory.getRDFFormat();
+            LOGGER.debug("Discovered RDF writer format: {} with mimeTypes: {}", format.getName(),
+                    format.getMIMETypes());
+            table.put(key(format.getDefaultMIMEType()), factory);
+        }
+        for (final RDFWriterFactory factory : factories) {
+            for (final String mimeType : factory.getRDFFormat().getMIMETypes()) {
+                if (!table.containsKey(key(mimeType))) {
+                    table.put(key(mimeType), factory);
+                }
+            }
+        }
+        return unmodifiableMap(table);
+    }
+
+    private static Map<String, Lang> langTable() {
+        final Map<String, Lang> table = new HashMap<>();
+        for (final Lang lang : RDFLanguages.getRegisteredLanguages()) {
+            table.put(key(lang.getContentType().getContentType()), lang);
+            for (final String contentType : lang.getAltContentTypes()) {
+                table.put(key(contentType), lang);
+            }
+        }
+        return unmodifiableMap(table);
+    }
+}
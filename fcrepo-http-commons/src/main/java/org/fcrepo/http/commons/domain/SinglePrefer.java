@@ -65,6 +65,15 @@ public class SinglePrefer {
         return any(preferTags(), getPreferTag("handling"));
     }
 
+    /**
+     * Does the Prefer: header ask for an asynchronous response
+     *
+     * @return true if the header has a respond-async tag
+     */
+    public Boolean hasRespondAsync() {
+        return any(preferTags(), getPreferTag("respond-async"));
+    }
+
     /**
      * Get the return tag, or a blank default, if none exists.
      *
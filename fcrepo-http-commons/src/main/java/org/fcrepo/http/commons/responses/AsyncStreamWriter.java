@@ -0,0 +1,157 @@
+/**
+ * Copyright 2015 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.responses;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.WriteListener;
+
+import org.fcrepo.metrics.RegistryService;
+import org.slf4j.Logger;
+
+import com.codahale.metrics.Counter;
+
+/**
+ * Copies a stream to a response without blocking a container thread on a slow client: a bounded
+ * buffer is refilled from the stream and written only while the container reports the client
+ * socket writable, and the container calls back when it becomes writable again. Between
+ * callbacks no thread is held. Requires a Servlet 3.1 container.
+ *
+ * @author agent
+ */
+public class AsyncStreamWriter implements WriteListener {
+
+    private static final Logger LOGGER = getLogger(AsyncStreamWriter.class);
+
+    static final Counter inProgress = RegistryService.getInstance().getMetrics().counter(
+            name(AsyncStreamWriter.class, "in-progress"));
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final InputStream content;
+
+    private final ServletOutputStream output;
+
+    private final AsyncContext asyncContext;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    private final Runnable whenFinished;
+
+    private boolean finished = false;
+
+    private AsyncStreamWriter(final InputStream content, final ServletOutputStream output,
+            final AsyncContext asyncContext, final Runnable whenFinished) {
+        this.content = content;
+        this.output = output;
+        this.asyncContext = asyncContext;
+        this.whenFinished = whenFinished;
+    }
+
+    /**
+     * @param request
+     * @return whether responses to this request can be written asynchronously
+     */
+    public static boolean isSupported(final ServletRequest request) {
+        if (request == null || !request.isAsyncSupported()) {
+            return false;
+        }
+        final int major = request.getServletContext().getMajorVersion();
+        return major > 3 || major == 3 && request.getServletContext().getMinorVersion() >= 1;
+    }
+
+    /**
+     * Start writing content to a response. The response's status and headers must already be set;
+     * they are committed here, and the request is completed once the content is written.
+     *
+     * @param content
+     * @param request
+     * @param response
+     * @throws IOException
+     */
+    public static void write(final InputStream content, final ServletRequest request,
+            final ServletResponse response) throws IOException {
+        write(content, request, response, null);
+    }
+
+    /**
+     * Start writing content to a response, as {@link #write(InputStream, ServletRequest, ServletResponse)}
+     * does, and run a callback once the write has finished or failed; whatever the content is read
+     * from (such as a JCR session) can be released there.
+     *
+     * @param content
+     * @param request
+     * @param response
+     * @param whenFinished run once the content is written or the write fails; may be null
+     * @throws IOException
+     */
+    public static void write(final InputStream content, final ServletRequest request,
+            final ServletResponse response, final Runnable whenFinished) throws IOException {
+        response.flushBuffer();
+        final AsyncContext asyncContext = request.startAsync();
+        // the client, not a timer, decides how long a download takes
+        asyncContext.setTimeout(0);
+        inProgress.inc();
+        response.getOutputStream().setWriteListener(
+                new AsyncStreamWriter(content, response.getOutputStream(), asyncContext, whenFinished));
+    }
+
+    @Override
+    public void onWritePossible() throws IOException {
+        while (output.isReady()) {
+            final int read = content.read(buffer);
+            if (read < 0) {
+                finish();
+                return;
+            }
+            output.write(buffer, 0, read);
+        }
+    }
+
+    @Override
+    public void onError(final Throwable t) {
+        LOGGER.debug("Asynchronous write failed", t);
+        finish();
+    }
+
+    private void finish() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        inProgress.dec();
+        try {
+            content.close();
+        } catch (final IOException e) {
+            LOGGER.debug("Unable to close content stream", e);
+        }
+        try {
+            asyncContext.complete();
+        } finally {
+            if (whenFinished != null) {
+                whenFinished.run();
+            }
+        }
+    }
+}
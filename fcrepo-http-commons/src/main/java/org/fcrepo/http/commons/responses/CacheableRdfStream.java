@@ -0,0 +1,109 @@
+/**
+ * Copyright 2015 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.responses;
+
+import javax.ws.rs.core.MediaType;
+
+import org.fcrepo.http.commons.responses.RepresentationCache.Key;
+import org.fcrepo.kernel.utils.iterators.RdfStream;
+
+/**
+ * An {@link RdfStream} whose serializations may be served from, and stored in, a
+ * {@link RepresentationCache}. The triples are only consumed on a cache miss.
+ *
+ * @author agent
+ */
+public class CacheableRdfStream extends RdfStream {
+
+    private final RepresentationCache cache;
+
+    private final String path;
+
+    private final String etag;
+
+    private final String variant;
+
+    private final ContentCoding coding;
+
+    private final long generation;
+
+    /**
+     * Create a stream whose triples have not been read yet; only serializations of triples read
+     * after this are cached.
+     *
+     * @param stream the triples to serialize on a cache miss
+     * @param cache
+     * @param path the repository path of the described resource
+     * @param etag the etag of the described resource
+     * @param variant everything else the representation depends on
+     */
+    public CacheableRdfStream(final RdfStream stream, final RepresentationCache cache, final String path,
+            final String etag, final String variant) {
+        this(stream, cache, path, etag, variant, null, cache.generation(path));
+    }
+
+    private CacheableRdfStream(final RdfStream stream, final RepresentationCache cache, final String path,
+            final String etag, final String variant, final ContentCoding coding, final long generation) {
+        super(stream);
+        namespaces(stream.namespaces());
+        session(stream.session());
+        topic(stream.topic());
+        this.cache = cache;
+        this.path = path;
+        this.etag = etag;
+        this.variant = variant;
+        this.coding = coding;
+        this.generation = generation;
+    }
+
+    /**
+     * @param coding
+     * @return this stream, to be serialized compressed with a content coding
+     */
+    public CacheableRdfStream encoded(final ContentCoding coding) {
+        return new CacheableRdfStream(this, cache, path, etag, variant, coding, generation);
+    }
+
+    /**
+     * @return the content coding to compress serializations with, or null
+     */
+    public ContentCoding coding() {
+        return coding;
+    }
+
+    /**
+     * @return the cache to serve from
+     */
+    public RepresentationCache cache() {
+        return cache;
+    }
+
+    /**
+     * @return the invalidation generation of the described resource when this stream was created
+     */
+    public long generation() {
+        return generation;
+    }
+
+    /**
+     * @param mediaType
+     * @return the cache key for a serialization of this stream
+     */
+    public Key keyFor(final MediaType mediaType) {
+        final String type = coding == null ? mediaType.toString() : mediaType + ";coding=" + coding.token();
+        return new Key(path, etag, type, variant);
+    }
+}
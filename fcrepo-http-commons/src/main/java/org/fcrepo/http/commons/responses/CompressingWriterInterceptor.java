@@ -0,0 +1,148 @@
+/**
+ * Copyright 2015 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.responses;
+
+import static java.lang.Boolean.parseBoolean;
+import static java.lang.System.getProperty;
+import static javax.ws.rs.Priorities.ENTITY_CODER;
+import static javax.ws.rs.core.HttpHeaders.ACCEPT_ENCODING;
+import static javax.ws.rs.core.HttpHeaders.CONTENT_ENCODING;
+import static javax.ws.rs.core.HttpHeaders.CONTENT_LENGTH;
+import static javax.ws.rs.core.HttpHeaders.ETAG;
+import static javax.ws.rs.core.HttpHeaders.VARY;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+
+import javax.annotation.Priority;
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+import org.fcrepo.kernel.utils.iterators.RdfStream;
+import org.slf4j.Logger;
+
+/**
+ * Compresses RDF and HTML responses for clients that accept gzip or deflate. When the
+ * representation comes from the representation cache, the compressed bytes are what is cached,
+ * so that a representation is compressed once rather than on every request.
+ *
+ * A compressed representation is a different entity from the uncompressed one, so its entity tag
+ * carries the coding as a suffix (e.g. "...-gzip"). {@link EntityTagCodingFilter} strips the
+ * suffix from conditional requests, so that either tag matches the resource. Every response that
+ * could have been compressed varies on Accept-Encoding, compressed or not, so that shared caches do
+ * not hand one coding to a client that asked for another.
+ *
+ * @author agent
+ */
+@Provider
+@Priority(ENTITY_CODER)
+public class CompressingWriterInterceptor implements WriterInterceptor {
+
+    private static final Logger LOGGER = getLogger(CompressingWriterInterceptor.class);
+
+    protected boolean enabled = parseBoolean(getProperty("fcrepo.response.compression", "true"));
+
+    protected boolean cacheCompressed =
+            parseBoolean(getProperty("fcrepo.representation.cache.compressed", "true"));
+
+    @Context
+    protected HttpHeaders requestHeaders;
+
+    @Context
+    protected HttpServletResponse servletResponse;
+
+    @Override
+    public void aroundWriteTo(final WriterInterceptorContext context) throws IOException {
+        final MultivaluedMap<String, Object> headers = context.getHeaders();
+        // only RDF streams (serialized as RDF or HTML) are compressed; binaries may carry
+        // lengths or ranges that refer to their stored bytes
+        if (!enabled || !(context.getEntity() instanceof RdfStream) || headers.containsKey(CONTENT_ENCODING)
+                || headers.containsKey(CONTENT_LENGTH)) {
+            context.proceed();
+            return;
+        }
+        vary(headers);
+        final ContentCoding coding = ContentCoding.negotiate(requestHeaders.getRequestHeader(ACCEPT_ENCODING));
+        if (coding == null) {
+            context.proceed();
+            return;
+        }
+        LOGGER.debug("Compressing response with {}", coding.token());
+        headers.putSingle(CONTENT_ENCODING, coding.token());
+        tag(headers, coding);
+
+        if (cacheCompressed && context.getEntity() instanceof CacheableRdfStream
+                && !RdfStreamProvider.isHtml(context.getMediaType())) {
+            // RdfStreamProvider compresses while it serializes, so the cache keeps the compressed bytes
+            context.setEntity(((CacheableRdfStream) context.getEntity()).encoded(coding));
+            context.proceed();
+            return;
+        }
+        final DeflaterOutputStream compressed = coding.wrap(context.getOutputStream());
+        context.setOutputStream(compressed);
+        context.proceed();
+        compressed.finish();
+    }
+
+    /**
+     * Mark the response as varying on Accept-Encoding, unless the resource already did
+     */
+    private void vary(final MultivaluedMap<String, Object> headers) {
+        final List<Object> varied = headers.get(VARY);
+        if (varied != null && variesOnEncoding(varied)) {
+            return;
+        }
+        if (servletResponse != null && variesOnEncoding(servletResponse.getHeaders(VARY))) {
+            return;
+        }
+        headers.add(VARY, ACCEPT_ENCODING);
+    }
+
+    private static boolean variesOnEncoding(final Collection<?> varied) {
+        for (final Object value : varied) {
+            for (final String field : value.toString().split(",")) {
+                if (field.trim().equalsIgnoreCase(ACCEPT_ENCODING) || field.trim().equals("*")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Give the compressed representation an entity tag of its own, wherever the resource put one
+     */
+    private void tag(final MultivaluedMap<String, Object> headers, final ContentCoding coding) {
+        final Object etag = headers.getFirst(ETAG);
+        if (etag != null) {
+            headers.putSingle(ETAG, coding.tag(etag instanceof EntityTag ? (EntityTag) etag
+                    : EntityTag.valueOf(etag.toString())));
+        }
+        final String servletEtag = servletResponse == null ? null : servletResponse.getHeader(ETAG);
+        if (servletEtag != null) {
+            servletResponse.setHeader(ETAG, coding.tag(EntityTag.valueOf(servletEtag)).toString());
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/**
+ * Copyright 2015 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.responses;
+
+import static java.lang.Float.parseFloat;
+import static java.util.Locale.ENGLISH;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.ws.rs.core.EntityTag;
+
+/**
+ * The content codings responses may be compressed with.
+ *
+ * @author agent
+ */
+public enum ContentCoding {
+
+    GZIP("gzip") {
+
+        @Override
+        public DeflaterOutputStream wrap(final OutputStream output) throws IOException {
+            return new GZIPOutputStream(output, BUFFER_SIZE);
+        }
+    },
+
+    DEFLATE("deflate") {
+
+        @Override
+        public DeflaterOutputStream wrap(final OutputStream output) {
+            return new DeflaterOutputStream(output, new Deflater(), BUFFER_SIZE);
+        }
+    };
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final Pattern CODING_SUFFIX = Pattern.compile("-(?:gzip|deflate)\"");
+
+    private final String token;
+
+    ContentCoding(final String token) {
+        this.token = token;
+    }
+
+    /**
+     * @return the name of this coding, as used in Content-Encoding
+     */
+    public String token() {
+        return token;
+    }
+
+    /**
+     * @param etag the entity tag of a representation
+     * @return the entity tag of the representation compressed with this coding
+     */
+    public EntityTag tag(final EntityTag etag) {
+        return new EntityTag(etag.getValue() + "-" + token, etag.isWeak());
+    }
+
+    /**
+     * Strip coding suffixes from the entity tags in an If-Match or If-None-Match header, so that a
+     * compressed representation's tag matches the representation's own.
+     *
+     * @param header the value of the header
+     * @return the value with any coding suffixes removed
+     */
+    public static String untag(final String header) {
+        return CODING_SUFFIX.matcher(header).replaceAll("\"");
+    }
+
+    /**
+     * Compress into a stream. Callers must finish, rather than close, the compressing stream, so
+     * that the underlying stream is left open.
+     *
+     * @param output
+     * @return a stream compressing into output
+     * @throws IOException
+     */
+    public abstract DeflaterOutputStream wrap(final OutputStream output) throws IOException;
+
+    /**
+     * Choose the coding a client most prefers, preferring gzip between equals.
+     *
+     * @param acceptEncodings the values of the request's Accept-Encoding headers, or null
+     * @return the chosen coding, or null if the client accepts none of them
+     */
+    public static ContentCoding negotiate(final List<String> acceptEncodings) {
+        if (acceptEncodings == null) {
+            return null;
+        }
+        float gzip = -1;
+        float deflate = -1;
+        float any = -1;
+        for (final String header : acceptEncodings) {
+            for (final String element : header.split(",")) {
+                final String[] parts = element.split(";");
+                final String name = parts[0].trim().toLowerCase(ENGLISH);
+                final float quality = quality(parts);
+                if (name.equals("gzip") || name.equals("x-gzip")) {
+                    gzip = Math.max(gzip, quality);
+                } else if (name.equals("deflate")) {
+                    deflate = Math.max(deflate, quality);
+                } else if (name.equals("*")) {
+                    any = Math.max(any, quality);
+                }
+            }
+        }
+        if (gzip < 0) {
+            gzip = any;
+        }
+        if (deflate < 0) {
+            deflate = any;
+        }
+        if (gzip <= 0 && deflate <= 0) {
+            return null;
+        }
+        return gzip >= deflate ? GZIP : DEFLATE;
+    }
+
+    private static float quality(final String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            final String parameter = parts[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return parseFloat(parameter.substring(2));
+                } catch (final NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,59 @@
+/**
+ * Copyright 2015 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.responses;
+
+import static javax.ws.rs.core.HttpHeaders.IF_MATCH;
+import static javax.ws.rs.core.HttpHeaders.IF_NONE_MATCH;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.PreMatching;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Lets the entity tags of compressed representations, which {@link CompressingWriterInterceptor}
+ * suffixes with their coding, satisfy the preconditions of requests just as the resource's own tag
+ * does.
+ *
+ * @author agent
+ */
+@Provider
+@PreMatching
+public class EntityTagCodingFilter implements ContainerRequestFilter {
+
+    @Override
+    public void filter(final ContainerRequestContext context) {
+        final MultivaluedMap<String, String> headers = context.getHeaders();
+        untag(headers, IF_MATCH);
+        untag(headers, IF_NONE_MATCH);
+    }
+
+    private static void untag(final MultivaluedMap<String, String> headers, final String name) {
+        final List<String> values = headers.get(name);
+        if (values == null) {
+            return;
+        }
+        final List<String> untagged = new ArrayList<>(values.size());
+        for (final String value : values) {
+            untagged.add(ContentCoding.untag(value));
+        }
+        headers.put(name, untagged);
+    }
+}
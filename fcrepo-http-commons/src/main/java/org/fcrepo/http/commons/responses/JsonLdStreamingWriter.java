@@ -0,0 +1,141 @@
+/**
+ * Copyright 2015 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.responses;
+
+import static com.fasterxml.jackson.core.JsonEncoding.UTF8;
+import static com.fasterxml.jackson.core.JsonGenerator.Feature.AUTO_CLOSE_TARGET;
+import static com.hp.hpl.jena.vocabulary.RDF.type;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
+
+/**
+ * Writes triples as expanded JSON-LD, one node object per run of triples with the same subject,
+ * as the triples arrive. Only the triples of the current subject are held in memory, so streams
+ * grouped by subject (as our resource streams are) serialize in constant memory. A subject that
+ * recurs later in the stream gets another node object with the same @id, which JSON-LD processors
+ * merge.
+ *
+ * @author agent
+ */
+public class JsonLdStreamingWriter {
+
+    private static final JsonFactory jsonFactory = new JsonFactory().disable(AUTO_CLOSE_TARGET);
+
+    private static final Node RDF_TYPE = type.asNode();
+
+    private final OutputStream output;
+
+    /**
+     * @param output the stream to write to, which will be left open
+     */
+    public JsonLdStreamingWriter(final OutputStream output) {
+        this.output = output;
+    }
+
+    /**
+     * @param triples
+     * @throws IOException
+     */
+    public void write(final Iterator<Triple> triples) throws IOException {
+        final JsonGenerator json = jsonFactory.createGenerator(output, UTF8);
+        json.writeStartArray();
+
+        Node subject = null;
+        final List<Node> types = new ArrayList<>();
+        final Map<Node, List<Node>> properties = new LinkedHashMap<>();
+
+        while (triples.hasNext()) {
+            final Triple t = triples.next();
+            if (!t.getSubject().equals(subject)) {
+                if (subject != null) {
+                    writeNode(json, subject, types, properties);
+                    types.clear();
+                    properties.clear();
+                }
+                subject = t.getSubject();
+            }
+            final Node object = t.getObject();
+            if (t.getPredicate().equals(RDF_TYPE) && !object.isLiteral()) {
+                types.add(object);
+            } else {
+                List<Node> values = properties.get(t.getPredicate());
+                if (values == null) {
+                    values = new ArrayList<>();
+                    properties.put(t.getPredicate(), values);
+                }
+                values.add(object);
+            }
+        }
+        if (subject != null) {
+            writeNode(json, subject, types, properties);
+        }
+
+        json.writeEndArray();
+        json.flush();
+    }
+
+    private static void writeNode(final JsonGenerator json, final Node subject, final List<Node> types,
+            final Map<Node, List<Node>> properties) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("@id", identifier(subject));
+        if (!types.isEmpty()) {
+            json.writeArrayFieldStart("@type");
+            for (final Node t : types) {
+                json.writeString(identifier(t));
+            }
+            json.writeEndArray();
+        }
+        for (final Map.Entry<Node, List<Node>> property : properties.entrySet()) {
+            json.writeArrayFieldStart(property.getKey().getURI());
+            for (final Node value : property.getValue()) {
+                writeValue(json, value);
+            }
+            json.writeEndArray();
+        }
+        json.writeEndObject();
+    }
+
+    private static void writeValue(final JsonGenerator json, final Node value) throws IOException {
+        json.writeStartObject();
+        if (value.isLiteral()) {
+            json.writeStringField("@value", value.getLiteralLexicalForm());
+            final String language = value.getLiteralLanguage();
+            if (language != null && !language.isEmpty()) {
+                json.writeStringField("@language", language);
+            } else if (value.getLiteralDatatypeURI() != null) {
+                json.writeStringField("@type", value.getLiteralDatatypeURI());
+            }
+        } else {
+            json.writeStringField("@id", identifier(value));
+        }
+        json.writeEndObject();
+    }
+
+    private static String identifier(final Node node) {
+        return node.isBlank() ? "_:" + node.getBlankNodeLabel() : node.getURI();
+    }
+}
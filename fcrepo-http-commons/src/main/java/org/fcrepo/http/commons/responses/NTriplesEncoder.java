@@ -0,0 +1,151 @@
+/**
+ * Copyright 2015 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.responses;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
+
+/**
+ * Writes Jena triples as N-Triples straight to an output stream, without first converting them
+ * into Sesame statements. Output is ASCII, escaped as Rio's N-Triples writer escapes it.
+ *
+ * @author agent
+ */
+public class NTriplesEncoder {
+
+    private static final Charset ASCII = Charset.forName("US-ASCII");
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private final Writer out;
+
+    /**
+     * @param output the stream to write to, which will be left open
+     */
+    public NTriplesEncoder(final OutputStream output) {
+        this.out = new BufferedWriter(new OutputStreamWriter(output, ASCII));
+    }
+
+    /**
+     * @param triples
+     * @throws IOException
+     */
+    public void write(final Iterator<Triple> triples) throws IOException {
+        while (triples.hasNext()) {
+            write(triples.next());
+        }
+        out.flush();
+    }
+
+    private void write(final Triple t) throws IOException {
+        writeNode(t.getSubject());
+        out.write(' ');
+        writeNode(t.getPredicate());
+        out.write(' ');
+        writeNode(t.getObject());
+        out.write(" .\n");
+    }
+
+    private void writeNode(final Node node) throws IOException {
+        if (node.isURI()) {
+            out.write('<');
+            writeEscaped(node.getURI());
+            out.write('>');
+        } else if (node.isBlank()) {
+            out.write("_:");
+            writeBlankNodeLabel(node.getBlankNodeLabel());
+        } else if (node.isLiteral()) {
+            out.write('"');
+            writeEscaped(node.getLiteralLexicalForm());
+            out.write('"');
+            final String language = node.getLiteralLanguage();
+            if (language != null && !language.isEmpty()) {
+                out.write('@');
+                out.write(language);
+            } else if (node.getLiteralDatatypeURI() != null) {
+                out.write("^^<");
+                writeEscaped(node.getLiteralDatatypeURI());
+                out.write('>');
+            }
+        } else {
+            throw new IllegalArgumentException("Unable to write " + node + " as N-Triples");
+        }
+    }
+
+    /**
+     * Jena's blank node labels may contain characters N-Triples forbids, so anything but an ASCII
+     * letter or digit (and 'x', the escape character) is written as 'x' and four hex digits.
+     */
+    private void writeBlankNodeLabel(final String label) throws IOException {
+        for (int i = 0; i < label.length(); i++) {
+            final char c = label.charAt(i);
+            if (c != 'x' && (c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9')) {
+                out.write(c);
+            } else {
+                out.write('x');
+                writeHex(c, 4);
+            }
+        }
+    }
+
+    private void writeEscaped(final String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            final char c = s.charAt(i);
+            switch (c) {
+                case '\\':
+                    out.write("\\\\");
+                    break;
+                case '"':
+                    out.write("\\\"");
+                    break;
+                case '\n':
+                    out.write("\\n");
+                    break;
+                case '\r':
+                    out.write("\\r");
+                    break;
+                case '\t':
+                    out.write("\\t");
+                    break;
+                default:
+                    if (c >= 0x20 && c <= 0x7E) {
+                        out.write(c);
+                    } else if (Character.isHighSurrogate(c) && i + 1 < s.length()
+                            && Character.isLowSurrogate(s.charAt(i + 1))) {
+                        out.write("\\U");
+                        writeHex(Character.toCodePoint(c, s.charAt(++i)), 8);
+                    } else {
+                        out.write("\\u");
+                        writeHex(c, 4);
+                    }
+            }
+        }
+    }
+
+    private void writeHex(final int value, final int digits) throws IOException {
+        for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+            out.write(HEX[(value >> shift) & 0xF]);
+        }
+    }
+}
@@ -19,6 +19,7 @@ import static javax.ws.rs.core.MediaType.APPLICATION_XHTML_XML_TYPE;
 import static javax.ws.rs.core.MediaType.APPLICATION_XML;
 import static javax.ws.rs.core.MediaType.TEXT_HTML_TYPE;
 import static javax.ws.rs.core.MediaType.TEXT_PLAIN;
+import static org.fcrepo.http.commons.domain.RDFMediaType.BINARY_RDF;
 import static org.fcrepo.http.commons.domain.RDFMediaType.JSON_LD;
 import static org.fcrepo.http.commons.domain.RDFMediaType.N3;
 import static org.fcrepo.http.commons.domain.RDFMediaType.N3_ALT2;
@@ -30,10 +31,12 @@ import static org.openrdf.rio.RDFFormat.NO_CONTEXTS;
 import static org.openrdf.rio.RDFFormat.NO_NAMESPACES;
 import static org.slf4j.LoggerFactory.getLogger;
 
+import java.io.IOException;
 import java.io.OutputStream;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
 import java.nio.charset.Charset;
+import java.util.zip.DeflaterOutputStream;
 
 import javax.annotation.PostConstruct;
 import javax.jcr.RepositoryException;
@@ -58,7 +61,7 @@ import org.slf4j.Logger;
  * @since Nov 19, 2013
  */
 @Provider
-@Produces({TURTLE, N3, N3_ALT2, RDF_XML, NTRIPLES, APPLICATION_XML, TEXT_PLAIN, TURTLE_X, JSON_LD})
+@Produces({TURTLE, N3, N3_ALT2, RDF_XML, NTRIPLES, APPLICATION_XML, TEXT_PLAIN, TURTLE_X, JSON_LD, BINARY_RDF})
 public class RdfStreamProvider implements MessageBodyWriter<RdfStream> {
 
     private static final Logger LOGGER = getLogger(RdfStreamProvider.class);
@@ -72,10 +75,7 @@ public class RdfStreamProvider implements MessageBodyWriter<RdfStream> {
         if (!RdfStream.class.isAssignableFrom(type)) {
             return false;
         }
-        if (mediaType.equals(TEXT_HTML_TYPE)
-                || mediaType.equals(APPLICATION_XHTML_XML_TYPE)
-                || (mediaType.getType().equals("application") && mediaType
-                        .getSubtype().equals("html"))) {
+        if (isHtml(mediaType)) {
             LOGGER.debug("Was asked for an HTML mimeType, returning false.");
             return false;
         }
@@ -83,6 +83,13 @@ public class RdfStreamProvider implements MessageBodyWriter<RdfStream> {
         return true;
     }
 
+    static boolean isHtml(final MediaType mediaType) {
+        return mediaType.equals(TEXT_HTML_TYPE)
+                || mediaType.equals(APPLICATION_XHTML_XML_TYPE)
+                || (mediaType.getType().equals("application") && mediaType
+                        .getSubtype().equals("html"));
+    }
+
     @Override
     public long getSize(final RdfStream t, final Class<?> type,
             final Type genericType, final Annotation[] annotations,
@@ -99,6 +106,33 @@ public class RdfStreamProvider implements MessageBodyWriter<RdfStream> {
         final OutputStream entityStream) {
 
         LOGGER.debug("Serializing an RdfStream to mimeType: {}", mediaType);
+        if (rdfStream instanceof CacheableRdfStream) {
+            final CacheableRdfStream cacheable = (CacheableRdfStream) rdfStream;
+            final ContentCoding coding = cacheable.coding();
+            try {
+                cacheable.cache().write(cacheable.keyFor(mediaType), cacheable.generation(), entityStream,
+                        new RepresentationCache.Serializer() {
+
+                            @Override
+                            public void serialize(final OutputStream output) throws IOException {
+                                if (coding == null) {
+                                    RdfStreamProvider.this.serialize(rdfStream, mediaType, output);
+                                } else {
+                                    final DeflaterOutputStream compressed = coding.wrap(output);
+                                    RdfStreamProvider.this.serialize(rdfStream, mediaType, compressed);
+                                    compressed.finish();
+                                }
+                            }
+                        });
+            } catch (final IOException e) {
+                throw new WebApplicationException(e);
+            }
+        } else {
+            serialize(rdfStream, mediaType, entityStream);
+        }
+    }
+
+    private void serialize(final RdfStream rdfStream, final MediaType mediaType, final OutputStream entityStream) {
         try {
             if (rdfStream.namespaces().isEmpty()) {
                 final RdfStream namespaceRdfContext = new NamespaceRdfContext(rdfStream.session());
@@ -110,8 +144,6 @@ public class RdfStreamProvider implements MessageBodyWriter<RdfStream> {
         } catch (final RepositoryException e) {
             throw new WebApplicationException(e);
         }
-
-
     }
 
     /**
@@ -16,10 +16,14 @@
 package org.fcrepo.http.commons.responses;
 
 import static javax.ws.rs.core.Response.Status.NOT_ACCEPTABLE;
+import static org.fcrepo.http.commons.domain.NegotiationTable.writerFor;
 import static org.openrdf.model.impl.ValueFactoryImpl.getInstance;
+import static org.openrdf.rio.RDFFormat.JSONLD;
+import static org.openrdf.rio.RDFFormat.NTRIPLES;
 import static org.openrdf.model.util.Literals.createLiteral;
 import static org.slf4j.LoggerFactory.getLogger;
 
+import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Iterator;
 import java.util.Map;
@@ -30,6 +34,7 @@ import javax.ws.rs.core.StreamingOutput;
 
 import com.google.common.base.Predicate;
 import com.google.common.collect.Iterables;
+import org.fcrepo.http.commons.domain.RDFMediaType;
 import org.fcrepo.kernel.utils.iterators.RdfStream;
 import org.openrdf.model.Resource;
 import org.openrdf.model.Statement;
@@ -39,13 +44,12 @@ import org.openrdf.model.ValueFactory;
 import org.openrdf.rio.RDFFormat;
 import org.openrdf.rio.RDFHandlerException;
 import org.openrdf.rio.RDFWriter;
-import org.openrdf.rio.RDFWriterRegistry;
+import org.openrdf.rio.RDFWriterFactory;
 import org.openrdf.rio.Rio;
 import org.openrdf.rio.WriterConfig;
 import org.slf4j.Logger;
 
 import com.google.common.base.Function;
-import com.google.common.base.Joiner;
 import com.google.common.util.concurrent.AbstractFuture;
 import com.hp.hpl.jena.graph.Node;
 import com.hp.hpl.jena.graph.Triple;
@@ -66,6 +70,8 @@ public class RdfStreamStreamingOutput extends AbstractFuture<Void> implements
 
     private final RDFFormat format;
 
+    private final RDFWriterFactory writerFactory;
+
     private final RdfStream rdfStream;
 
     /**
@@ -78,16 +84,9 @@ public class RdfStreamStreamingOutput extends AbstractFuture<Void> implements
             final MediaType mediaType) {
         super();
 
-        if (LOGGER.isDebugEnabled()) {
-            for (final RDFFormat writeableFormats : RDFWriterRegistry.getInstance().getKeys()) {
-                LOGGER.debug("Discovered RDF writer writeableFormats: {} with mimeTypes: {}",
-                        writeableFormats.getName(), Joiner.on(" ")
-                                .join(writeableFormats.getMIMETypes()));
-            }
-        }
-        final RDFFormat format = Rio.getWriterFormatForMIMEType(mediaType.toString());
-        if (format != null) {
-            this.format = format;
+        this.writerFactory = writerFor(mediaType);
+        if (writerFactory != null) {
+            this.format = writerFactory.getRDFFormat();
             LOGGER.debug("Setting up to serialize to: {}", format);
         } else {
             throw new WebApplicationException(NOT_ACCEPTABLE);
@@ -100,8 +99,16 @@ public class RdfStreamStreamingOutput extends AbstractFuture<Void> implements
     public void write(final OutputStream output) {
         LOGGER.debug("Serializing RDF stream in: {}", format);
         try {
-            write(asStatements(), output, format);
-        } catch (final RDFHandlerException e) {
+            if (format.equals(JSONLD)) {
+                // Rio's JSON-LD writer collects every statement before writing any
+                new JsonLdStreamingWriter(output).write(rdfStream);
+            } else if (format.equals(NTRIPLES) || format.hasMIMEType(RDFMediaType.NTRIPLES)) {
+                // N-Triples needs no namespaces or grouping, so skip the conversion to Sesame values
+                new NTriplesEncoder(output).write(rdfStream);
+            } else {
+                write(asStatements(), output);
+            }
+        } catch (final RDFHandlerException | IOException e) {
             setException(e);
             LOGGER.debug("Error serializing RDF", e);
             throw new WebApplicationException(e);
@@ -109,11 +116,10 @@ public class RdfStreamStreamingOutput extends AbstractFuture<Void> implements
     }
 
     private void write(final Iterable<Statement> model,
-                       final OutputStream output,
-                       final RDFFormat dataFormat)
+                       final OutputStream output)
             throws RDFHandlerException {
         final WriterConfig settings = new WriterConfig();
-        final RDFWriter writer = Rio.createWriter(dataFormat, output);
+        final RDFWriter writer = writerFactory.getWriter(output);
         writer.setWriterConfig(settings);
 
         for (final Map.Entry<String, String> namespace : excludeProtectedNamespaces(rdfStream.namespaces())) {
@@ -0,0 +1,672 @@
+/**
+ * Copyright 2015 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.responses;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static com.google.common.cache.RemovalCause.REPLACED;
+import static com.google.common.util.concurrent.Uninterruptibles.getUninterruptibly;
+import static java.util.Objects.hash;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static javax.jcr.PropertyType.PATH;
+import static javax.jcr.PropertyType.REFERENCE;
+import static javax.jcr.PropertyType.WEAKREFERENCE;
+import static org.fcrepo.kernel.FedoraJcrTypes.FEDORA_PAIRTREE;
+import static org.fcrepo.kernel.FedoraJcrTypes.JCR_MIXIN_TYPES;
+import static org.fcrepo.kernel.FedoraJcrTypes.LDP_DIRECT_CONTAINER;
+import static org.fcrepo.kernel.FedoraJcrTypes.LDP_INDIRECT_CONTAINER;
+import static org.fcrepo.kernel.FedoraJcrTypes.LDP_INSERTED_CONTENT_RELATION;
+import static org.fcrepo.kernel.FedoraJcrTypes.LDP_IS_MEMBER_OF_RELATION;
+import static org.fcrepo.kernel.FedoraJcrTypes.LDP_MEMBER_RESOURCE;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.jcr.Node;
+import javax.jcr.Property;
+import javax.jcr.Repository;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+
+import org.fcrepo.kernel.observer.FedoraEvent;
+import org.fcrepo.metrics.RegistryService;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.codahale.metrics.Meter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * A size-bounded, least-recently-used cache of serialized representations.
+ *
+ * Entries are keyed by the resource path, its etag, the serialization media type and a variant
+ * string describing everything else the bytes depend on (base URI, Prefer header, principal).
+ * The etag alone does not make an entry current: the containment and membership triples of a
+ * container, and the membership triples of its children, change without a change of its etag.
+ * So entries are dropped when a resource changes, along with those of its logical container, of
+ * that container's membership resource and, when membership settings change, of everything
+ * beneath it. Writers drop them at once, through {@link #invalidateWrite}, so that they read their
+ * own writes; events on the internal event bus drop them for every other change.
+ *
+ * Each path has an invalidation generation (shared, to bound memory, with the paths that hash to
+ * the same stripe). A serialization is only stored, or shared, if the generation of its path is
+ * the same when it ends as it was when the resource state it describes was read, so a
+ * serialization that raced an invalidation is never cached.
+ *
+ * Concurrent requests for a representation that is not yet cached are coalesced onto a single
+ * serialization; since the variant carries the requesting principals, only requests that would be
+ * authorized identically are ever coalesced.
+ *
+ * @author agent
+ */
+public class RepresentationCache {
+
+    private static final Logger LOGGER = getLogger(RepresentationCache.class);
+
+    /**
+     * How long, in milliseconds, a request will wait on a concurrent serialization of the same
+     * representation before serializing it itself; this bounds how far a slow serialization can
+     * hold back the requests coalesced onto it.
+     */
+    private static final long COALESCING_TIMEOUT = 5000;
+
+    private static final int GENERATION_STRIPES = 1024;
+
+    /**
+     * Properties of a container that its children's membership triples depend on
+     */
+    private static final Set<String> MEMBERSHIP_SETTINGS = ImmutableSet.of(JCR_MIXIN_TYPES, LDP_MEMBER_RESOURCE,
+            LDP_IS_MEMBER_OF_RELATION, LDP_INSERTED_CONTENT_RELATION);
+
+    static final Meter hitMeter = RegistryService.getInstance().getMetrics().meter(
+            name(RepresentationCache.class, "hits"));
+
+    static final Meter missMeter = RegistryService.getInstance().getMetrics().meter(
+            name(RepresentationCache.class, "misses"));
+
+    static final Meter coalescedMeter = RegistryService.getInstance().getMetrics().meter(
+            name(RepresentationCache.class, "coalesced"));
+
+    static final Meter evictionMeter = RegistryService.getInstance().getMetrics().meter(
+            name(RepresentationCache.class, "evictions"));
+
+    @Autowired(required = false)
+    private EventBus eventBus;
+
+    @Autowired(required = false)
+    private Repository repository;
+
+    /**
+     * Tells pairtree nodes from containers; only used from the event handler, which the event bus
+     * never calls concurrently
+     */
+    private Session session;
+
+    private final Cache<Key, byte[]> cache;
+
+    private final ConcurrentSkipListMap<String, Set<Key>> keysByPath = new ConcurrentSkipListMap<>();
+
+    /**
+     * Invalidation generations of paths, by stripe
+     */
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    /**
+     * Incremented by invalidations of whole subtrees, which change the generation of every path
+     */
+    private final AtomicLong subtreeGeneration = new AtomicLong();
+
+    private final ConcurrentMap<Key, SettableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+
+    private final long maximumEntrySize;
+
+    /**
+     * Write a representation to an output stream.
+     */
+    public interface Serializer {
+
+        /**
+         * @param output the stream to serialize to
+         * @throws IOException
+         */
+        void serialize(OutputStream output) throws IOException;
+    }
+
+    /**
+     * @param maximumSize the maximum total size of cached representations, in bytes
+     * @param maximumEntrySize the largest single representation that will be cached, in bytes
+     */
+    public RepresentationCache(final long maximumSize, final long maximumEntrySize) {
+        this.maximumEntrySize = maximumEntrySize;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maximumSize)
+                .weigher(new Weigher<Key, byte[]>() {
+
+                    @Override
+                    public int weigh(final Key key, final byte[] representation) {
+                        return representation.length;
+                    }
+                })
+                .removalListener(new RemovalListener<Key, byte[]>() {
+
+                    @Override
+                    public void onRemoval(final RemovalNotification<Key, byte[]> notification) {
+                        if (notification.wasEvicted()) {
+                            evictionMeter.mark();
+                        }
+                        if (notification.getCause() != REPLACED) {
+                            unindex(notification.getKey());
+                        }
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Subscribe to repository events, if there is an event bus to subscribe to
+     *
+     * @throws RepositoryException
+     */
+    @PostConstruct
+    public void register() throws RepositoryException {
+        if (eventBus != null) {
+            if (repository != null) {
+                session = repository.login();
+            }
+            eventBus.register(this);
+        }
+    }
+
+    /**
+     * Stop listening for repository events
+     */
+    @PreDestroy
+    public void unregister() {
+        if (eventBus != null) {
+            eventBus.unregister(this);
+        }
+        if (session != null) {
+            session.logout();
+            session = null;
+        }
+    }
+
+    /**
+     * Drop cached representations of the resource an event touched, of its logical container
+     * (whose containment triples change), and of that container's membership resource (whose
+     * membership triples change). When the membership settings of a resource change, the
+     * membership triples of its children change too, so everything beneath it is dropped.
+     *
+     * @param event
+     */
+    @Subscribe
+    public void invalidate(final FedoraEvent event) {
+        try {
+            final String path = event.getPath();
+            invalidate(path);
+            invalidateContainers(session, path);
+            for (final String property : event.getProperties()) {
+                if (MEMBERSHIP_SETTINGS.contains(property)) {
+                    invalidateBelow(path);
+                    break;
+                }
+            }
+        } catch (final RepositoryException e) {
+            LOGGER.debug("Unable to invalidate for event {}; invalidating everything", event, e);
+            invalidateAll();
+        }
+    }
+
+    /**
+     * Drop, at once, the cached representations that a write to a resource may have changed: those
+     * of the resource, of its logical container and of that container's membership resource, and,
+     * if the resource is a direct or indirect container, those of everything beneath it. Writers
+     * call this after saving, so that their next read does not wait on the event of their write.
+     *
+     * @param writer the session that wrote, to tell containers from pairtree nodes
+     * @param path the path of the resource written, created or deleted
+     */
+    public void invalidateWrite(final Session writer, final String path) {
+        invalidate(path);
+        try {
+            invalidateContainers(writer, path);
+            if (writer.nodeExists(path) && isMembershipContainer(writer.getNode(path))) {
+                invalidateBelow(path);
+            }
+        } catch (final RepositoryException e) {
+            LOGGER.debug("Unable to invalidate for a write to {}; invalidating everything", path, e);
+            invalidateAll();
+        }
+    }
+
+    /**
+     * Drop cached representations of the ancestors of a path, up to its logical container past
+     * pairtree and hash nodes. Without a session to tell what the ancestors are, every ancestor
+     * is dropped.
+     */
+    private void invalidateContainers(final Session reader, final String path) throws RepositoryException {
+        String ancestor = parentPath(path);
+        while (ancestor != null) {
+            invalidate(ancestor);
+            if (isLogicalContainer(reader, ancestor)) {
+                invalidateMembershipResource(reader, ancestor);
+                return;
+            }
+            ancestor = parentPath(ancestor);
+        }
+    }
+
+    private static boolean isLogicalContainer(final Session reader, final String path) throws RepositoryException {
+        if (reader == null || path.endsWith("/#") || !reader.nodeExists(path)) {
+            return false;
+        }
+        return !reader.getNode(path).isNodeType(FEDORA_PAIRTREE);
+    }
+
+    private static boolean isMembershipContainer(final Node node) throws RepositoryException {
+        return node.isNodeType(LDP_DIRECT_CONTAINER) || node.isNodeType(LDP_INDIRECT_CONTAINER);
+    }
+
+    private void invalidateMembershipResource(final Session reader, final String containerPath)
+            throws RepositoryException {
+        final Node container = reader.getNode(containerPath);
+        if (!isMembershipContainer(container) || !container.hasProperty(LDP_MEMBER_RESOURCE)) {
+            return;
+        }
+        final Property memberResource = container.getProperty(LDP_MEMBER_RESOURCE);
+        final int type = memberResource.getType();
+        // any other membership resource is outside the repository, so nothing of it is cached
+        if (type == REFERENCE || type == WEAKREFERENCE || type == PATH) {
+            invalidate(memberResource.getNode().getPath());
+        }
+    }
+
+    private static String parentPath(final String path) {
+        final int slash = path.lastIndexOf('/');
+        if (slash > 0) {
+            return path.substring(0, slash);
+        }
+        return slash == 0 && path.length() > 1 ? "/" : null;
+    }
+
+    /**
+     * Drop all cached representations of the resource at a path
+     *
+     * @param path
+     */
+    public void invalidate(final String path) {
+        // the generation moves before entries are dropped, so that a racing put either sees it move
+        // or stores its entry in time to be dropped
+        generations.incrementAndGet(stripe(path));
+        invalidate(keysByPath.remove(path));
+    }
+
+    /**
+     * Drop all cached representations of the resources beneath a path
+     *
+     * @param path
+     */
+    public void invalidateBelow(final String path) {
+        subtreeGeneration.incrementAndGet();
+        final String prefix = path.endsWith("/") ? path : path + "/";
+        final ConcurrentMap<String, Set<Key>> below = keysByPath.subMap(prefix, prefix.substring(0,
+                prefix.length() - 1) + "0");
+        for (final String descendant : below.keySet()) {
+            invalidate(below.remove(descendant));
+        }
+    }
+
+    /**
+     * Drop every cached representation
+     */
+    public void invalidateAll() {
+        subtreeGeneration.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    private void invalidate(final Set<Key> keys) {
+        if (keys == null) {
+            return;
+        }
+        final List<Key> invalidated;
+        synchronized (keys) {
+            invalidated = new ArrayList<>(keys);
+        }
+        cache.invalidateAll(invalidated);
+    }
+
+    /**
+     * @param path
+     * @return the invalidation generation of a path, to be read before reading the state of the
+     *         resource whose representation is to be cached
+     */
+    public long generation(final String path) {
+        return generations.get(stripe(path)) + subtreeGeneration.get();
+    }
+
+    private static int stripe(final String path) {
+        return (path.hashCode() & Integer.MAX_VALUE) % GENERATION_STRIPES;
+    }
+
+    /**
+     * @param key
+     * @return the cached representation, or null
+     */
+    public byte[] get(final Key key) {
+        final byte[] representation = cache.getIfPresent(key);
+        if (representation == null) {
+            missMeter.mark();
+        } else {
+            hitMeter.mark();
+        }
+        return representation;
+    }
+
+    /**
+     * Cache a representation, unless it is larger than the maximum entry size
+     *
+     * @param key
+     * @param representation
+     */
+    public void put(final Key key, final byte[] representation) {
+        put(key, generation(key.path), representation);
+    }
+
+    /**
+     * Cache a representation, unless it is larger than the maximum entry size or its resource has
+     * been invalidated since the generation it was read at
+     *
+     * @param key
+     * @param generation the generation of the key's path when the resource was read
+     * @param representation
+     * @return whether the representation was cached
+     */
+    public boolean put(final Key key, final long generation, final byte[] representation) {
+        if (representation.length > maximumEntrySize || generation(key.path) != generation) {
+            return false;
+        }
+        index(key);
+        cache.put(key, representation);
+        if (generation(key.path) != generation) {
+            cache.invalidate(key);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Write the representation for a key, as {@link #write(Key, long, OutputStream, Serializer)}
+     * does, for a resource read no earlier than now.
+     *
+     * @param key
+     * @param output
+     * @param serializer
+     * @throws IOException
+     */
+    public void write(final Key key, final OutputStream output, final Serializer serializer) throws IOException {
+        write(key, generation(key.path), output, serializer);
+    }
+
+    /**
+     * Write the representation for a key, serving it from the cache when present, and otherwise
+     * running the serializer and caching what it wrote. Concurrent misses on the same key share one
+     * serialization: the first request serializes, and the rest are sent its bytes when it finishes.
+     * A representation small enough to cache is serialized in full before any of it is written, so
+     * that the requests sharing it do not wait on the first request's client; a larger one is
+     * streamed, and the requests waiting on it serialize it themselves as soon as it outgrows the
+     * cache. Nothing is cached or shared if the resource was invalidated since it was read.
+     *
+     * @param key
+     * @param generation the generation of the key's path when the resource was read
+     * @param output
+     * @param serializer
+     * @throws IOException
+     */
+    public void write(final Key key, final long generation, final OutputStream output,
+            final Serializer serializer) throws IOException {
+        final byte[] cached = get(key);
+        if (cached != null) {
+            LOGGER.trace("Serving cached representation for {}", key);
+            output.write(cached);
+            return;
+        }
+        final SettableFuture<byte[]> flight = SettableFuture.create();
+        final SettableFuture<byte[]> leader = inFlight.putIfAbsent(key, flight);
+        if (leader != null) {
+            final byte[] shared = await(leader);
+            if (shared != null) {
+                LOGGER.trace("Serving coalesced representation for {}", key);
+                coalescedMeter.mark();
+                output.write(shared);
+            } else {
+                serializeAndStore(key, generation, output, serializer, null);
+            }
+            return;
+        }
+        try {
+            serializeAndStore(key, generation, output, serializer, flight);
+        } finally {
+            inFlight.remove(key, flight);
+            // a no-op unless the serialization failed
+            flight.set(null);
+        }
+    }
+
+    /**
+     * Serialize a representation, caching it if it fits, and complete the flight of requests
+     * waiting on it (if any) as soon as it is known whether they can share it.
+     */
+    private void serializeAndStore(final Key key, final long generation, final OutputStream output,
+            final Serializer serializer, final SettableFuture<byte[]> flight) throws IOException {
+        final CapturingOutputStream capture = new CapturingOutputStream(output, maximumEntrySize, flight);
+        serializer.serialize(capture);
+        final byte[] captured = capture.captured();
+        if (captured != null) {
+            final boolean stored = put(key, generation, captured);
+            if (flight != null) {
+                flight.set(stored ? captured : null);
+            }
+            output.write(captured);
+        }
+        output.flush();
+    }
+
+    /**
+     * Wait for another request's serialization of the same representation.
+     *
+     * @param leader
+     * @return the serialized bytes, or null if they could not be shared in time
+     */
+    private static byte[] await(final SettableFuture<byte[]> leader) {
+        try {
+            return getUninterruptibly(leader, COALESCING_TIMEOUT, MILLISECONDS);
+        } catch (final ExecutionException | TimeoutException e) {
+            LOGGER.debug("Gave up waiting for a concurrent serialization", e);
+            return null;
+        }
+    }
+
+    /**
+     * @return the number of cached representations
+     */
+    public long size() {
+        return cache.size();
+    }
+
+    private void index(final Key key) {
+        while (true) {
+            Set<Key> keys = keysByPath.get(key.path);
+            if (keys == null) {
+                final Set<Key> created = new HashSet<>();
+                keys = keysByPath.putIfAbsent(key.path, created);
+                if (keys == null) {
+                    keys = created;
+                }
+            }
+            synchronized (keys) {
+                // an emptied or invalidated set may have left the index since it was looked up
+                if (keysByPath.get(key.path) == keys) {
+                    keys.add(key);
+                    return;
+                }
+            }
+        }
+    }
+
+    private void unindex(final Key key) {
+        final Set<Key> keys = keysByPath.get(key.path);
+        if (keys == null) {
+            return;
+        }
+        synchronized (keys) {
+            if (keys.remove(key) && keys.isEmpty()) {
+                keysByPath.remove(key.path, keys);
+            }
+        }
+    }
+
+    /**
+     * Holds writes in a buffer until they outgrow the limit, then gives up on the buffer: what it
+     * held, and everything after it, goes straight to the underlying stream, and the flight waiting
+     * on the buffer is told at once that there will be nothing to share.
+     */
+    private static class CapturingOutputStream extends FilterOutputStream {
+
+        private final long limit;
+
+        private final SettableFuture<byte[]> flight;
+
+        private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        public CapturingOutputStream(final OutputStream out, final long limit, final SettableFuture<byte[]> flight) {
+            super(out);
+            this.limit = limit;
+            this.flight = flight;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            if (ensureCapacity(1)) {
+                buffer.write(b);
+            } else {
+                out.write(b);
+            }
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            if (ensureCapacity(len)) {
+                buffer.write(b, off, len);
+            } else {
+                out.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            // nothing has reached the underlying stream while the buffer holds on
+            if (buffer == null) {
+                out.flush();
+            }
+        }
+
+        private boolean ensureCapacity(final int len) throws IOException {
+            if (buffer != null && buffer.size() + len > limit) {
+                if (flight != null) {
+                    flight.set(null);
+                }
+                buffer.writeTo(out);
+                buffer = null;
+            }
+            return buffer != null;
+        }
+
+        public byte[] captured() {
+            return buffer == null ? null : buffer.toByteArray();
+        }
+    }
+
+    /**
+     * Identifies one representation of one state of a resource.
+     */
+    public static final class Key {
+
+        private final String path;
+
+        private final String etag;
+
+        private final String mediaType;
+
+        private final String variant;
+
+        /**
+         * @param path the repository path of the resource
+         * @param etag the etag of the resource
+         * @param mediaType the serialization media type
+         * @param variant everything else the representation depends on
+         */
+        public Key(final String path, final String etag, final String mediaType, final String variant) {
+            this.path = path;
+            this.etag = etag;
+            this.mediaType = mediaType;
+            this.variant = variant;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return path.equals(other.path) && etag.equals(other.etag)
+                    && mediaType.equals(other.mediaType) && Objects.equals(variant, other.variant);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash(path, etag, mediaType, variant);
+        }
+
+        @Override
+        public String toString() {
+            return path + " [" + etag + ", " + mediaType + "]";
+        }
+    }
+}
@@ -15,32 +15,58 @@
  */
 package org.fcrepo.http.commons.session;
 
+import static com.codahale.metrics.MetricRegistry.name;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.Collections.newSetFromMap;
 import static javax.ws.rs.core.Response.Status.GONE;
+import static javax.ws.rs.core.Response.Status.TEMPORARY_REDIRECT;
+import static org.fcrepo.kernel.impl.services.TransactionServiceImpl.isInTransaction;
 import static org.slf4j.LoggerFactory.getLogger;
 
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URI;
 import java.security.Principal;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.jcr.Repository;
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
 import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.BadRequestException;
 import javax.ws.rs.ClientErrorException;
+import javax.ws.rs.RedirectionException;
 
+import org.fcrepo.kernel.exception.RemoteTransactionException;
 import org.fcrepo.kernel.exception.RepositoryRuntimeException;
 import org.fcrepo.kernel.exception.TransactionMissingException;
 import org.fcrepo.kernel.Transaction;
 import org.fcrepo.kernel.services.TransactionService;
+import org.fcrepo.metrics.RegistryService;
 import org.modeshape.jcr.api.ServletCredentials;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import com.codahale.metrics.Meter;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.MapMaker;
+
 /**
  * Factory for generating sessions for HTTP requests, taking
  * into account transactions and authentication.
  *
+ * Anonymous read requests (GET, HEAD and OPTIONS without a user principal or a transaction) share
+ * a pool of sessions instead of each logging in. A pooled session is logged in with credentials
+ * that carry nothing of any real request, so it holds exactly what any anonymous login would: no
+ * user, and only the EVERYONE principal. Each session serves one request at a time, is refreshed
+ * when it is borrowed, and is logged out rather than returned if it comes back with unsaved
+ * changes. The pool holds up to fcrepo.session.pool.size idle sessions; 0 disables it.
+ *
  * @author awoods
  * @author gregjan
  * @author kaisternad
@@ -63,17 +89,66 @@ public class SessionFactory {
 
     private static final Logger LOGGER = getLogger(SessionFactory.class);
 
+    static final Meter poolHitMeter = RegistryService.getInstance().getMetrics().meter(
+            name(SessionFactory.class, "pool", "hits"));
+
+    static final Meter poolMissMeter = RegistryService.getInstance().getMetrics().meter(
+            name(SessionFactory.class, "pool", "misses"));
+
+    static final Meter poolDiscardMeter = RegistryService.getInstance().getMetrics().meter(
+            name(SessionFactory.class, "pool", "discards"));
+
+    private static final int DEFAULT_POOL_SIZE = 20;
+
+    private static final Set<String> POOLED_METHODS = ImmutableSet.of("GET", "HEAD", "OPTIONS");
+
+    /**
+     * A request with no user, no roles, no headers and no attributes, to log pooled sessions in
+     * with. Using it rather than the request that happens to need the first session keeps every
+     * trace of that request out of a session that later serves others.
+     */
+    private static final HttpServletRequest ANONYMOUS_REQUEST = (HttpServletRequest) Proxy.newProxyInstance(
+            SessionFactory.class.getClassLoader(), new Class<?>[] { HttpServletRequest.class },
+            new InvocationHandler() {
+
+                @Override
+                public Object invoke(final Object proxy, final Method method, final Object[] args) {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "toString":
+                            return "anonymous request";
+                        default:
+                            final Class<?> type = method.getReturnType();
+                            if (type == boolean.class) {
+                                return false;
+                            } else if (type == int.class) {
+                                return 0;
+                            } else if (type == long.class) {
+                                return 0L;
+                            }
+                            return null;
+                    }
+                }
+            });
+
     @Autowired
     private Repository repo;
 
     @Autowired
     private TransactionService transactionService;
 
+    private final BlockingQueue<Session> pool;
+
+    private final Set<Session> borrowed = newSetFromMap(new MapMaker().weakKeys().<Session, Boolean>makeMap());
+
     /**
      * initialize an empty session factory
      */
     public SessionFactory() {
-
+        this.pool = newPool(Integer.getInteger("fcrepo.session.pool.size", DEFAULT_POOL_SIZE));
     }
 
     /**
@@ -84,8 +159,25 @@ public class SessionFactory {
      */
     public SessionFactory(final Repository repo,
             final TransactionService transactionService) {
+        this(repo, transactionService, Integer.getInteger("fcrepo.session.pool.size", DEFAULT_POOL_SIZE));
+    }
+
+    /**
+     * Initialize a session factory for the given Repository
+     *
+     * @param repo
+     * @param transactionService
+     * @param poolSize how many idle anonymous sessions to keep
+     */
+    public SessionFactory(final Repository repo,
+            final TransactionService transactionService, final int poolSize) {
         this.repo = repo;
         this.transactionService = transactionService;
+        this.pool = newPool(poolSize);
+    }
+
+    private static BlockingQueue<Session> newPool(final int poolSize) {
+        return poolSize > 0 ? new ArrayBlockingQueue<Session>(poolSize) : null;
     }
 
     /**
@@ -96,6 +188,18 @@ public class SessionFactory {
         checkNotNull(repo, "SessionFactory requires a Repository instance!");
     }
 
+    /**
+     * Log out the idle pooled sessions
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (pool != null) {
+            for (Session session = pool.poll(); session != null; session = pool.poll()) {
+                session.logout();
+            }
+        }
+    }
+
     /**
      * Get a new JCR Session
      *
@@ -123,11 +227,16 @@ public class SessionFactory {
         final String txId = getEmbeddedId(servletRequest, Prefix.TX);
 
         try {
-            if (txId == null) {
+            if (txId == null && isPooled(servletRequest)) {
+                session = borrowSession();
+            } else if (txId == null) {
                 session = createSession(servletRequest);
             } else {
                 session = getSessionFromTransaction(servletRequest, txId);
             }
+        } catch (final RemoteTransactionException e) {
+            LOGGER.debug("Redirecting request in transaction {} to {}", txId, e.getOwner());
+            throw new RedirectionException(TEMPORARY_REDIRECT, ownerUri(servletRequest, e.getOwner()));
         } catch (final TransactionMissingException e) {
             throw new ClientErrorException(GONE, e);
         } catch (final RepositoryException e) {
@@ -137,6 +246,18 @@ public class SessionFactory {
         return session;
     }
 
+    /**
+     * The same request, on the node that holds its transaction
+     */
+    private static URI ownerUri(final HttpServletRequest servletRequest, final String owner) {
+        final StringBuilder uri = new StringBuilder(owner.replaceAll("/+$", ""));
+        uri.append(servletRequest.getRequestURI());
+        if (servletRequest.getQueryString() != null) {
+            uri.append('?').append(servletRequest.getQueryString());
+        }
+        return URI.create(uri.toString());
+    }
+
     /**
      * Create a JCR session for the given HTTP servlet request with a
      * SecurityContext attached.
@@ -154,6 +275,75 @@ public class SessionFactory {
         return  repo.login(creds);
     }
 
+    /**
+     * Release a session once its request is done with it: a pooled session that is fit to serve
+     * another request goes back to the pool, and any other session outside a transaction is
+     * logged out.
+     *
+     * @param session
+     */
+    public void releaseSession(final Session session) {
+        if (!session.isLive() || isInTransaction(session)) {
+            return;
+        }
+        if (borrowed.remove(session) && recycle(session)) {
+            return;
+        }
+        session.logout();
+    }
+
+    private boolean isPooled(final HttpServletRequest servletRequest) {
+        return pool != null && POOLED_METHODS.contains(servletRequest.getMethod())
+                && servletRequest.getUserPrincipal() == null;
+    }
+
+    /**
+     * Take a session from the pool, or log in a new one if the pool is empty
+     */
+    private Session borrowSession() throws RepositoryException {
+        for (Session session = pool.poll(); session != null; session = pool.poll()) {
+            if (!session.isLive()) {
+                continue;
+            }
+            try {
+                // see the latest saved state, not whatever was current when the session was idled
+                session.refresh(false);
+            } catch (final RepositoryException e) {
+                LOGGER.debug("Unable to refresh pooled session {}", session, e);
+                poolDiscardMeter.mark();
+                session.logout();
+                continue;
+            }
+            borrowed.add(session);
+            poolHitMeter.mark();
+            return session;
+        }
+        poolMissMeter.mark();
+        LOGGER.debug("Returning a new anonymous session for the pool");
+        final Session session = repo.login(new ServletCredentials(ANONYMOUS_REQUEST));
+        borrowed.add(session);
+        return session;
+    }
+
+    /**
+     * Return a session to the pool, unless something has left state in it
+     */
+    private boolean recycle(final Session session) {
+        try {
+            if (session.hasPendingChanges()) {
+                LOGGER.warn("Anonymous read session returned with unsaved changes; discarding it");
+                poolDiscardMeter.mark();
+                return false;
+            }
+            session.getWorkspace().getObservationManager().setUserData(null);
+        } catch (final RepositoryException e) {
+            LOGGER.debug("Unable to recycle session {}", session, e);
+            poolDiscardMeter.mark();
+            return false;
+        }
+        return pool.offer(session);
+    }
+
     /**
      * Retrieve a JCR session from an active transaction
      *
@@ -15,9 +15,11 @@
  */
 package org.fcrepo.http.commons.session;
 
-import static org.fcrepo.kernel.impl.services.TransactionServiceImpl.isInTransaction;
+import static java.util.Collections.newSetFromMap;
 import static org.slf4j.LoggerFactory.getLogger;
 
+import java.util.Set;
+
 import javax.inject.Inject;
 import javax.jcr.Session;
 import javax.servlet.http.HttpServletRequest;
@@ -27,6 +29,8 @@ import org.glassfish.hk2.api.Factory;
 import org.glassfish.jersey.process.internal.RequestScoped;
 import org.slf4j.Logger;
 
+import com.google.common.collect.MapMaker;
+
 /**
  * Provide a JCR session within the current request context
  *
@@ -52,6 +56,21 @@ public class SessionProvider implements Factory<Session> {
 
     private static final Logger LOGGER = getLogger(SessionProvider.class);
 
+    /**
+     * Sessions to be left open when their requests end
+     */
+    private static final Set<Session> detached = newSetFromMap(new MapMaker().weakKeys().<Session, Boolean>makeMap());
+
+    /**
+     * Leave a request's session open when the request ends, for work that goes on in the
+     * background. Whatever detaches a session must log it out.
+     *
+     * @param session
+     */
+    public static void detach(final Session session) {
+        detached.add(session);
+    }
+
     @Override
     public Session provide() {
         final Session session = sessionFactory.getSession(request);
@@ -63,8 +82,8 @@ public class SessionProvider implements Factory<Session> {
     public void dispose(final Session session) {
         LOGGER.trace("Disposing session {}", session);
 
-        if (session.isLive() && !isInTransaction(session)) {
-            session.logout();
+        if (!detached.remove(session)) {
+            sessionFactory.releaseSession(session);
         }
     }
 }
@@ -24,6 +24,7 @@ import org.fcrepo.kernel.exception.RepositoryRuntimeException;
 import org.fcrepo.kernel.impl.NonRdfSourceDescriptionImpl;
 import org.fcrepo.kernel.impl.FedoraBinaryImpl;
 import org.fcrepo.kernel.impl.FedoraResourceImpl;
+import org.fcrepo.kernel.impl.identifiers.ResourcePathCache;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
@@ -45,6 +46,7 @@ import static org.fcrepo.kernel.FedoraJcrTypes.FEDORA_NON_RDF_SOURCE_DESCRIPTION
 import static org.fcrepo.kernel.FedoraJcrTypes.FROZEN_NODE;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 import static org.modeshape.jcr.api.JcrConstants.JCR_CONTENT;
@@ -205,6 +207,45 @@ public class HttpResourceConverterTest {
         assertEquals(versionedNode, converted.getNode());
     }
 
+    @Test
+    public void testDoForwardFromPathCache() throws Exception {
+        converter.pathCache = new ResourcePathCache(10);
+        when(node.getIdentifier()).thenReturn("some-identifier");
+        when(session.getNodeByIdentifier("some-identifier")).thenReturn(node);
+        assertEquals(node, converter.convert(resource).getNode());
+        assertEquals(node, converter.convert(resource).getNode());
+        verify(session).getNode("/" + path);
+    }
+
+    @Test
+    public void testDoForwardWithStalePathCache() throws Exception {
+        final ResourcePathCache pathCache = new ResourcePathCache(10);
+        converter.pathCache = pathCache;
+        pathCache.put("/" + path, "old-identifier", null);
+        when(session.getNodeByIdentifier("old-identifier")).thenThrow(new ItemNotFoundException());
+        when(node.getIdentifier()).thenReturn("some-identifier");
+        assertEquals(node, converter.convert(resource).getNode());
+        assertEquals("some-identifier", pathCache.get("/" + path).getIdentifier());
+    }
+
+    @Test
+    public void testDoForwardWithVersionFromPathCache() throws Exception {
+        converter.pathCache = new ResourcePathCache(10);
+        when(session.getNodeByIdentifier("x")).thenThrow(new ItemNotFoundException());
+        when(mockVersionManager.getVersionHistory("/" + path)).thenReturn(mockVersionHistory);
+        when(mockVersionHistory.hasVersionLabel("x")).thenReturn(true);
+        when(mockVersionHistory.getVersionByLabel("x")).thenReturn(mockVersion);
+        when(mockVersion.getFrozenNode()).thenReturn(versionedNode);
+        when(versionedNode.getIdentifier()).thenReturn("frozen-identifier");
+        when(node.getIdentifier()).thenReturn("some-identifier");
+        when(session.getNodeByIdentifier("frozen-identifier")).thenReturn(versionedNode);
+        when(session.getNodeByIdentifier("some-identifier")).thenReturn(node);
+
+        assertEquals(versionedNode, converter.convert(versionedResource).getNode());
+        assertEquals(versionedNode, converter.convert(versionedResource).getNode());
+        verify(mockVersionHistory).getVersionByLabel("x");
+    }
+
     @Test(expected = RepositoryRuntimeException.class)
     public void testDoForwardWithMissingVersionedDatastream() throws Exception {
         when(session.getNodeByIdentifier("x")).thenThrow(new ItemNotFoundException());
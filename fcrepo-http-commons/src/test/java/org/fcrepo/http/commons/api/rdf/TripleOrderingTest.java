@@ -0,0 +1,68 @@
+/**
+ * Copyright 2015 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.api.rdf;
+
+import static com.hp.hpl.jena.graph.NodeFactory.createLiteral;
+import static com.hp.hpl.jena.graph.NodeFactory.createURI;
+import static com.hp.hpl.jena.rdf.model.ModelFactory.createDefaultModel;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Ordering;
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.rdf.model.Model;
+
+/**
+ * <p>TripleOrderingTest class.</p>
+ *
+ * @author awoods
+ */
+public class TripleOrderingTest {
+
+    private Model model;
+
+    @Before
+    public void setUp() {
+        model = createDefaultModel();
+        model.setNsPrefix("z", "info:a#");
+        model.setNsPrefix("a", "info:z#");
+    }
+
+    @Test
+    public void testOrdersBySubjectPredicateAndObject() {
+        final Triple first = new Triple(createURI("info:a"), createURI("info:z#p"), createLiteral("a"));
+        final Triple second = new Triple(createURI("info:a"), createURI("info:z#p"), createLiteral("b"));
+        final Triple third = new Triple(createURI("info:a"), createURI("info:a#p"), createLiteral("a"));
+        final Triple fourth = new Triple(createURI("info:b"), createURI("info:a#p"), createLiteral("a"));
+
+        final List<Triple> sorted = Ordering.from(new TripleOrdering(model)).sortedCopy(
+                asList(fourth, third, second, first));
+
+        assertEquals(asList(first, second, third, fourth), sorted);
+    }
+
+    @Test
+    public void testEqualTriples() {
+        final Triple triple = new Triple(createURI("info:a"), createURI("info:z#p"), createLiteral("a"));
+        final Triple copy = new Triple(createURI("info:a"), createURI("info:z#p"), createLiteral("a"));
+        assertEquals(0, new TripleOrdering(model).compare(triple, copy));
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright 2015 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.domain;
+
+import static com.hp.hpl.jena.graph.NodeFactory.createAnon;
+import static com.hp.hpl.jena.graph.NodeFactory.createLiteral;
+import static com.hp.hpl.jena.graph.NodeFactory.createURI;
+import static com.hp.hpl.jena.graph.Triple.create;
+import static com.hp.hpl.jena.rdf.model.ModelFactory.createDefaultModel;
+import static org.fcrepo.http.commons.domain.BinaryRdfReader.isBinaryRdf;
+import static org.fcrepo.http.commons.domain.RDFMediaType.BINARY_RDF_TYPE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import javax.ws.rs.core.MediaType;
+
+import org.apache.jena.riot.RiotException;
+import org.fcrepo.http.commons.responses.RdfStreamStreamingOutput;
+import org.fcrepo.kernel.utils.iterators.RdfStream;
+import org.junit.Test;
+
+import com.hp.hpl.jena.datatypes.xsd.XSDDatatype;
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.rdf.model.Model;
+
+/**
+ * <p>BinaryRdfReaderTest class.</p>
+ *
+ * @author agent
+ */
+public class BinaryRdfReaderTest {
+
+    private final Node subject = createURI("info:subject");
+
+    private final Node predicate = createURI("info:predicate");
+
+    @Test
+    public void testIsBinaryRdf() {
+        assertTrue(isBinaryRdf(BINARY_RDF_TYPE));
+        assertTrue(isBinaryRdf(MediaType.valueOf("application/x-binary-rdf;charset=utf-8")));
+        assertFalse(isBinaryRdf(MediaType.valueOf("text/turtle")));
+        assertFalse(isBinaryRdf(MediaType.WILDCARD_TYPE));
+        assertFalse(isBinaryRdf(null));
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        final Triple[] triples = {
+            create(subject, predicate, createURI("info:object")),
+            create(subject, predicate, createLiteral("plain")),
+            create(subject, predicate, createLiteral("french", "fr", false)),
+            create(subject, predicate, createLiteral("1", XSDDatatype.XSDinteger)),
+            create(createAnon(), predicate, subject) };
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new RdfStreamStreamingOutput(new RdfStream(triples), BINARY_RDF_TYPE).write(output);
+
+        final Model model = BinaryRdfReader.read(new ByteArrayInputStream(output.toByteArray()), "info:",
+                createDefaultModel());
+
+        assertEquals(triples.length, model.size());
+        for (final Triple t : triples) {
+            if (!t.getSubject().isBlank()) {
+                assertTrue("Didn't find " + t, model.getGraph().contains(t));
+            }
+        }
+    }
+
+    @Test(expected = RiotException.class)
+    public void testMalformedInput() throws IOException {
+        BinaryRdfReader.read(new ByteArrayInputStream("<info:a> <info:b> <info:c> .".getBytes()), "info:",
+                createDefaultModel());
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright 2015 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.domain;
+
+import static org.apache.jena.riot.RDFLanguages.contentTypeToLang;
+import static org.fcrepo.http.commons.domain.NegotiationTable.langFor;
+import static org.fcrepo.http.commons.domain.NegotiationTable.mediaType;
+import static org.fcrepo.http.commons.domain.NegotiationTable.writerFor;
+import static org.fcrepo.http.commons.domain.RDFMediaType.POSSIBLE_RDF_RESPONSE_VARIANTS_STRING;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.openrdf.rio.Rio.getWriterFormatForMIMEType;
+
+import javax.ws.rs.core.MediaType;
+
+import org.fcrepo.http.commons.responses.RdfStreamProvider.NTriplesWithCorrectMimeType;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.openrdf.rio.RDFWriterRegistry;
+
+/**
+ * <p>NegotiationTableTest class.</p>
+ *
+ * @author agent
+ */
+public class NegotiationTableTest {
+
+    @BeforeClass
+    public static void registerMimeTypes() {
+        // as RdfStreamProvider does, so that Rio answers as it does in the application
+        RDFWriterRegistry.getInstance().add(new NTriplesWithCorrectMimeType());
+    }
+
+    @Test
+    public void testWriterForMatchesRio() {
+        for (final String type : POSSIBLE_RDF_RESPONSE_VARIANTS_STRING) {
+            assertEquals("Wrong writer for " + type, getWriterFormatForMIMEType(type),
+                    writerFor(MediaType.valueOf(type)).getRDFFormat());
+        }
+    }
+
+    @Test
+    public void testWriterForIgnoresParameters() {
+        assertEquals(getWriterFormatForMIMEType("text/turtle"),
+                writerFor(MediaType.valueOf("text/turtle;charset=utf-8")).getRDFFormat());
+    }
+
+    @Test
+    public void testWriterForNTriples() {
+        assertEquals(new NTriplesWithCorrectMimeType().getRDFFormat(),
+                writerFor(MediaType.valueOf("application/n-triples")).getRDFFormat());
+    }
+
+    @Test
+    public void testNoWriter() {
+        assertNull(writerFor(MediaType.valueOf("image/tiff")));
+    }
+
+    @Test
+    public void testLangForMatchesRiot() {
+        for (final String type : new String[] { "text/turtle", "application/rdf+xml", "application/n-triples",
+                "text/rdf+n3", "application/ld+json", "text/plain", "TEXT/TURTLE; charset=utf-8", "image/tiff" }) {
+            assertEquals("Wrong language for " + type, contentTypeToLang(type), langFor(type));
+        }
+        assertNull(langFor(null));
+    }
+
+    @Test
+    public void testMediaType() {
+        final MediaType type = mediaType("message/external-body; access-type=URL; URL=\"http://example.com\"");
+        assertEquals("http://example.com", type.getParameters().get("URL"));
+        assertSame(type, mediaType("message/external-body; access-type=URL; URL=\"http://example.com\""));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBadMediaType() {
+        mediaType("not a media type");
+    }
+}
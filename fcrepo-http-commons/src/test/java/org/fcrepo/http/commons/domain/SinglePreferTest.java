@@ -20,6 +20,7 @@ import org.junit.Test;
 import java.text.ParseException;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -84,4 +85,10 @@ public class SinglePreferTest  {
         final String returnParams = prefer.getHandling().getParams().get("some");
         assertTrue(returnParams.contains("parameter"));
     }
+
+    @Test
+    public void testHasRespondAsync() throws ParseException {
+        assertTrue(createTestPreferTypeFromHeader("respond-async, wait=10").hasRespondAsync());
+        assertFalse(createTestPreferTypeFromHeader("handling=lenient").hasRespondAsync());
+    }
 }
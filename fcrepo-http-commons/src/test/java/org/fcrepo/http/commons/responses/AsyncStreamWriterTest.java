@@ -0,0 +1,160 @@
+/**
+ * Copyright 2015 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.responses;
+
+import static java.util.Arrays.copyOf;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.WriteListener;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * <p>AsyncStreamWriterTest class.</p>
+ *
+ * @author agent
+ */
+public class AsyncStreamWriterTest {
+
+    @Mock
+    private ServletRequest mockRequest;
+
+    @Mock
+    private ServletResponse mockResponse;
+
+    @Mock
+    private ServletContext mockServletContext;
+
+    @Mock
+    private AsyncContext mockAsyncContext;
+
+    @Mock
+    private ServletOutputStream mockOutput;
+
+    @Mock
+    private InputStream mockContent;
+
+    private final ByteArrayOutputStream written = new ByteArrayOutputStream();
+
+    @Before
+    public void setUp() throws IOException {
+        initMocks(this);
+        when(mockRequest.isAsyncSupported()).thenReturn(true);
+        when(mockRequest.getServletContext()).thenReturn(mockServletContext);
+        when(mockRequest.startAsync()).thenReturn(mockAsyncContext);
+        when(mockResponse.getOutputStream()).thenReturn(mockOutput);
+        doAnswer(new Answer<Void>() {
+
+            @Override
+            public Void answer(final InvocationOnMock invocation) {
+                final Object[] args = invocation.getArguments();
+                written.write((byte[]) args[0], (Integer) args[1], (Integer) args[2]);
+                return null;
+            }
+        }).when(mockOutput).write(any(byte[].class), anyInt(), anyInt());
+    }
+
+    @Test
+    public void testIsSupported() {
+        when(mockServletContext.getMajorVersion()).thenReturn(3);
+        when(mockServletContext.getMinorVersion()).thenReturn(1);
+        assertTrue(AsyncStreamWriter.isSupported(mockRequest));
+    }
+
+    @Test
+    public void testIsNotSupportedBeforeServlet31() {
+        when(mockServletContext.getMajorVersion()).thenReturn(3);
+        when(mockServletContext.getMinorVersion()).thenReturn(0);
+        assertFalse(AsyncStreamWriter.isSupported(mockRequest));
+        assertFalse(AsyncStreamWriter.isSupported(null));
+    }
+
+    @Test
+    public void testWritesOnlyWhenReady() throws IOException {
+        final byte[] content = new byte[20000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        AsyncStreamWriter.write(new ByteArrayInputStream(content), mockRequest, mockResponse);
+        verify(mockResponse).flushBuffer();
+        final WriteListener listener = listener();
+
+        // the client can take one buffer, then blocks
+        when(mockOutput.isReady()).thenReturn(true, false);
+        listener.onWritePossible();
+        assertArrayEquals(copyOf(content, 8192), written.toByteArray());
+        verify(mockAsyncContext, never()).complete();
+
+        // the container calls back once the client catches up
+        when(mockOutput.isReady()).thenReturn(true);
+        listener.onWritePossible();
+        assertArrayEquals(content, written.toByteArray());
+        verify(mockAsyncContext).complete();
+    }
+
+    @Test
+    public void testCompletesOnError() throws IOException {
+        AsyncStreamWriter.write(mockContent, mockRequest, mockResponse);
+        final WriteListener listener = listener();
+        listener.onError(new IOException("client went away"));
+        listener.onError(new IOException("and again"));
+        verify(mockContent).close();
+        verify(mockAsyncContext, times(1)).complete();
+    }
+
+    @Test
+    public void testRunsCallbackOnceFinished() throws IOException {
+        final Runnable mockCallback = mock(Runnable.class);
+        AsyncStreamWriter.write(mockContent, mockRequest, mockResponse, mockCallback);
+        final WriteListener listener = listener();
+        verify(mockCallback, never()).run();
+        listener.onError(new IOException("client went away"));
+        listener.onError(new IOException("and again"));
+        verify(mockCallback, times(1)).run();
+    }
+
+    private WriteListener listener() {
+        final ArgumentCaptor<WriteListener> listener = ArgumentCaptor.forClass(WriteListener.class);
+        verify(mockOutput).setWriteListener(listener.capture());
+        return listener.getValue();
+    }
+}
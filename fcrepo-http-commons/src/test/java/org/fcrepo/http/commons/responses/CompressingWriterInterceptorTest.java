@@ -0,0 +1,234 @@
+/**
+ * Copyright 2015 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.responses;
+
+import static java.util.Arrays.asList;
+import static javax.ws.rs.core.HttpHeaders.ACCEPT_ENCODING;
+import static javax.ws.rs.core.HttpHeaders.CONTENT_ENCODING;
+import static javax.ws.rs.core.HttpHeaders.CONTENT_LENGTH;
+import static javax.ws.rs.core.HttpHeaders.ETAG;
+import static javax.ws.rs.core.HttpHeaders.VARY;
+import static org.fcrepo.http.commons.domain.RDFMediaType.NTRIPLES_TYPE;
+import static org.fcrepo.http.commons.responses.ContentCoding.GZIP;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+import org.apache.commons.io.IOUtils;
+import org.fcrepo.kernel.utils.iterators.RdfStream;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * <p>CompressingWriterInterceptorTest class.</p>
+ *
+ * @author agent
+ */
+public class CompressingWriterInterceptorTest {
+
+    private static final String CONTENT = "<info:a> <info:b> <info:c> .\n";
+
+    private final CompressingWriterInterceptor testInterceptor = new CompressingWriterInterceptor();
+
+    @Mock
+    private HttpHeaders mockRequestHeaders;
+
+    @Mock
+    private WriterInterceptorContext mockContext;
+
+    @Mock
+    private RepresentationCache mockCache;
+
+    @Mock
+    private HttpServletResponse mockResponse;
+
+    private final MultivaluedMap<String, Object> responseHeaders = new MultivaluedHashMap<>();
+
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    private OutputStream current;
+
+    @Before
+    public void setUp() throws IOException {
+        initMocks(this);
+        testInterceptor.enabled = true;
+        testInterceptor.cacheCompressed = true;
+        testInterceptor.requestHeaders = mockRequestHeaders;
+        testInterceptor.servletResponse = mockResponse;
+        current = output;
+        when(mockContext.getHeaders()).thenReturn(responseHeaders);
+        when(mockContext.getMediaType()).thenReturn(NTRIPLES_TYPE);
+        when(mockContext.getOutputStream()).thenAnswer(new Answer<OutputStream>() {
+
+            @Override
+            public OutputStream answer(final InvocationOnMock invocation) {
+                return current;
+            }
+        });
+        doAnswer(new Answer<Void>() {
+
+            @Override
+            public Void answer(final InvocationOnMock invocation) {
+                current = (OutputStream) invocation.getArguments()[0];
+                return null;
+            }
+        }).when(mockContext).setOutputStream(any(OutputStream.class));
+        doAnswer(new Answer<Void>() {
+
+            @Override
+            public Void answer(final InvocationOnMock invocation) throws IOException {
+                current.write(CONTENT.getBytes("US-ASCII"));
+                return null;
+            }
+        }).when(mockContext).proceed();
+    }
+
+    @Test
+    public void testCompresses() throws IOException {
+        when(mockContext.getEntity()).thenReturn(new RdfStream());
+        when(mockRequestHeaders.getRequestHeader(ACCEPT_ENCODING)).thenReturn(asList("gzip, deflate"));
+
+        testInterceptor.aroundWriteTo(mockContext);
+
+        assertEquals("gzip", responseHeaders.getFirst(CONTENT_ENCODING));
+        assertEquals(CONTENT, IOUtils.toString(new GZIPInputStream(new ByteArrayInputStream(output
+                .toByteArray())), "US-ASCII"));
+    }
+
+    @Test
+    public void testNotAccepted() throws IOException {
+        when(mockContext.getEntity()).thenReturn(new RdfStream());
+
+        testInterceptor.aroundWriteTo(mockContext);
+
+        assertFalse(responseHeaders.containsKey(CONTENT_ENCODING));
+        assertEquals(CONTENT, output.toString("US-ASCII"));
+    }
+
+    @Test
+    public void testVariesOnEncoding() throws IOException {
+        when(mockContext.getEntity()).thenReturn(new RdfStream());
+        when(mockRequestHeaders.getRequestHeader(ACCEPT_ENCODING)).thenReturn(asList("gzip"));
+
+        testInterceptor.aroundWriteTo(mockContext);
+
+        assertEquals(asList((Object) ACCEPT_ENCODING), responseHeaders.get(VARY));
+    }
+
+    @Test
+    public void testUncompressedVariesOnEncoding() throws IOException {
+        when(mockContext.getEntity()).thenReturn(new RdfStream());
+
+        testInterceptor.aroundWriteTo(mockContext);
+
+        assertEquals(asList((Object) ACCEPT_ENCODING), responseHeaders.get(VARY));
+    }
+
+    @Test
+    public void testVaryNotRepeated() throws IOException {
+        when(mockContext.getEntity()).thenReturn(new RdfStream());
+        when(mockResponse.getHeaders(VARY)).thenReturn(asList("Accept, Range, Accept-Encoding, Accept-Language"));
+
+        testInterceptor.aroundWriteTo(mockContext);
+
+        assertNull(responseHeaders.get(VARY));
+    }
+
+    @Test
+    public void testDisabled() throws IOException {
+        testInterceptor.enabled = false;
+        when(mockContext.getEntity()).thenReturn(new RdfStream());
+        when(mockRequestHeaders.getRequestHeader(ACCEPT_ENCODING)).thenReturn(asList("gzip"));
+
+        testInterceptor.aroundWriteTo(mockContext);
+
+        assertFalse(responseHeaders.containsKey(CONTENT_ENCODING));
+        assertEquals(CONTENT, output.toString("US-ASCII"));
+    }
+
+    @Test
+    public void testLeavesBinariesAlone() throws IOException {
+        when(mockContext.getEntity()).thenReturn(new ByteArrayInputStream(new byte[0]));
+        when(mockRequestHeaders.getRequestHeader(ACCEPT_ENCODING)).thenReturn(asList("gzip"));
+        responseHeaders.putSingle(CONTENT_LENGTH, 29);
+
+        testInterceptor.aroundWriteTo(mockContext);
+
+        assertFalse(responseHeaders.containsKey(CONTENT_ENCODING));
+        assertEquals(CONTENT, output.toString("US-ASCII"));
+    }
+
+    @Test
+    public void testCachedRepresentationsCompressedBySerializer() throws IOException {
+        when(mockContext.getEntity()).thenReturn(
+                new CacheableRdfStream(new RdfStream(), mockCache, "/a", "etag", "variant"));
+        when(mockRequestHeaders.getRequestHeader(ACCEPT_ENCODING)).thenReturn(asList("gzip"));
+
+        testInterceptor.aroundWriteTo(mockContext);
+
+        assertEquals("gzip", responseHeaders.getFirst(CONTENT_ENCODING));
+        final ArgumentCaptor<Object> entity = ArgumentCaptor.forClass(Object.class);
+        verify(mockContext).setEntity(entity.capture());
+        assertEquals(GZIP, ((CacheableRdfStream) entity.getValue()).coding());
+        verify(mockContext, never()).setOutputStream(any(OutputStream.class));
+    }
+
+    @Test
+    public void testTagsCompressedRepresentation() throws IOException {
+        when(mockContext.getEntity()).thenReturn(new RdfStream());
+        when(mockRequestHeaders.getRequestHeader(ACCEPT_ENCODING)).thenReturn(asList("deflate"));
+        when(mockResponse.getHeader(ETAG)).thenReturn("\"abc\"");
+        responseHeaders.putSingle(ETAG, new EntityTag("abc", true));
+
+        testInterceptor.aroundWriteTo(mockContext);
+
+        verify(mockResponse).setHeader(ETAG, "\"abc-deflate\"");
+        assertEquals(new EntityTag("abc-deflate", true), responseHeaders.getFirst(ETAG));
+    }
+
+    @Test
+    public void testLeavesTagOfUncompressedRepresentation() throws IOException {
+        when(mockContext.getEntity()).thenReturn(new RdfStream());
+        when(mockResponse.getHeader(ETAG)).thenReturn("\"abc\"");
+
+        testInterceptor.aroundWriteTo(mockContext);
+
+        verify(mockResponse, never()).setHeader(any(String.class), any(String.class));
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * Copyright 2015 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.responses;
+
+import static java.util.Arrays.asList;
+import static org.fcrepo.http.commons.responses.ContentCoding.DEFLATE;
+import static org.fcrepo.http.commons.responses.ContentCoding.GZIP;
+import static org.fcrepo.http.commons.responses.ContentCoding.negotiate;
+import static org.fcrepo.http.commons.responses.ContentCoding.untag;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import javax.ws.rs.core.EntityTag;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+/**
+ * <p>ContentCodingTest class.</p>
+ *
+ * @author agent
+ */
+public class ContentCodingTest {
+
+    @Test
+    public void testNegotiate() {
+        assertEquals(GZIP, negotiate(asList("gzip, deflate")));
+        assertEquals(GZIP, negotiate(asList("x-gzip")));
+        assertEquals(DEFLATE, negotiate(asList("deflate")));
+        assertEquals(DEFLATE, negotiate(asList("gzip;q=0.5", "deflate")));
+        assertEquals(GZIP, negotiate(asList("*")));
+        assertEquals(DEFLATE, negotiate(asList("gzip;q=0, *")));
+    }
+
+    @Test
+    public void testNegotiateRepeatedCodings() {
+        assertEquals(DEFLATE, negotiate(asList("deflate;q=0.9, gzip;q=0.5, deflate;q=0.1")));
+        assertEquals(GZIP, negotiate(asList("gzip;q=0.9, deflate;q=0.5, gzip;q=0.1")));
+    }
+
+    @Test
+    public void testTag() {
+        assertEquals(new EntityTag("abc-gzip"), GZIP.tag(new EntityTag("abc")));
+        assertEquals(new EntityTag("abc-deflate", true), DEFLATE.tag(new EntityTag("abc", true)));
+    }
+
+    @Test
+    public void testUntag() {
+        assertEquals("\"abc\"", untag("\"abc-gzip\""));
+        assertEquals("W/\"abc\", \"def\"", untag("W/\"abc-deflate\", \"def\""));
+        assertEquals("*", untag("*"));
+    }
+
+    @Test
+    public void testNegotiateNothing() {
+        assertNull(negotiate(null));
+        assertNull(negotiate(asList("identity")));
+        assertNull(negotiate(asList("br")));
+        assertNull(negotiate(asList("gzip;q=0, deflate;q=0")));
+        assertNull(negotiate(asList("*;q=0")));
+    }
+
+    @Test
+    public void testDeflateRoundTrip() throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final DeflaterOutputStream compressed = DEFLATE.wrap(output);
+        compressed.write("<info:a> <info:b> <info:c> .\n".getBytes("US-ASCII"));
+        compressed.finish();
+        assertEquals("<info:a> <info:b> <info:c> .\n", IOUtils.toString(
+                new InflaterInputStream(new ByteArrayInputStream(output.toByteArray())), "US-ASCII"));
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * Copyright 2015 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.responses;
+
+import static java.util.Arrays.asList;
+import static javax.ws.rs.core.HttpHeaders.IF_MATCH;
+import static javax.ws.rs.core.HttpHeaders.IF_NONE_MATCH;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+/**
+ * <p>EntityTagCodingFilterTest class.</p>
+ *
+ * @author agent
+ */
+public class EntityTagCodingFilterTest {
+
+    private final EntityTagCodingFilter testFilter = new EntityTagCodingFilter();
+
+    @Mock
+    private ContainerRequestContext mockContext;
+
+    private final MultivaluedMap<String, String> headers = new MultivaluedHashMap<>();
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+        when(mockContext.getHeaders()).thenReturn(headers);
+    }
+
+    @Test
+    public void testAcceptsCompressedTags() {
+        headers.put(IF_NONE_MATCH, asList("\"abc-gzip\""));
+        headers.put(IF_MATCH, asList("\"abc-deflate\", \"def\""));
+
+        testFilter.filter(mockContext);
+
+        assertEquals(asList("\"abc\""), headers.get(IF_NONE_MATCH));
+        assertEquals(asList("\"abc\", \"def\""), headers.get(IF_MATCH));
+    }
+
+    @Test
+    public void testNoConditions() {
+        testFilter.filter(mockContext);
+
+        assertFalse(headers.containsKey(IF_MATCH));
+        assertFalse(headers.containsKey(IF_NONE_MATCH));
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright 2015 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.responses;
+
+import static com.hp.hpl.jena.graph.NodeFactory.createAnon;
+import static com.hp.hpl.jena.graph.NodeFactory.createLiteral;
+import static com.hp.hpl.jena.graph.NodeFactory.createURI;
+import static com.hp.hpl.jena.graph.Triple.create;
+import static com.hp.hpl.jena.vocabulary.RDF.type;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.openrdf.model.impl.ValueFactoryImpl.getInstance;
+import static org.openrdf.rio.RDFFormat.JSONLD;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import javax.ws.rs.core.MediaType;
+
+import org.fcrepo.kernel.utils.iterators.RdfStream;
+import org.junit.Test;
+import org.openrdf.model.Model;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.rio.RDFParseException;
+import org.openrdf.rio.Rio;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hp.hpl.jena.datatypes.xsd.XSDDatatype;
+import com.hp.hpl.jena.graph.Node;
+
+/**
+ * <p>JsonLdStreamingWriterTest class.</p>
+ *
+ * @author agent
+ */
+public class JsonLdStreamingWriterTest {
+
+    private static final ValueFactory vf = getInstance();
+
+    private final Node subject = createURI("info:subject");
+
+    private final Node other = createURI("info:other");
+
+    private final Node predicate = createURI("info:predicate");
+
+    @Test
+    public void testOneNodeObjectPerSubject() throws IOException {
+        final RdfStream triples = new RdfStream(
+                create(subject, type.asNode(), createURI("info:Type")),
+                create(subject, predicate, createLiteral("a")),
+                create(subject, predicate, createLiteral("b", "fr", false)),
+                create(other, predicate, createLiteral("1", XSDDatatype.XSDinteger)));
+
+        final JsonNode json = new ObjectMapper().readTree(write(triples));
+
+        assertEquals(2, json.size());
+        assertEquals("info:subject", json.get(0).get("@id").asText());
+        assertEquals("info:Type", json.get(0).get("@type").get(0).asText());
+        assertEquals(2, json.get(0).get("info:predicate").size());
+        assertEquals("fr", json.get(0).get("info:predicate").get(1).get("@language").asText());
+        assertEquals(XSDDatatype.XSDinteger.getURI(), json.get(1).get("info:predicate").get(0).get("@type").asText());
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException, RDFParseException {
+        final Node blank = createAnon();
+        final RdfStream triples = new RdfStream(
+                create(subject, predicate, other),
+                create(subject, predicate, blank),
+                create(blank, predicate, createLiteral("x")),
+                create(subject, createURI("info:later"), createLiteral("y")));
+
+        final Model model = Rio.parse(new ByteArrayInputStream(write(triples)), "", JSONLD);
+
+        assertEquals(4, model.size());
+        assertTrue(model.contains(vf.createURI("info:subject"), vf.createURI("info:predicate"),
+                vf.createURI("info:other")));
+        assertTrue(model.contains(vf.createURI("info:subject"), vf.createURI("info:later"),
+                vf.createLiteral("y")));
+    }
+
+    @Test
+    public void testEmptyStream() throws IOException {
+        assertEquals("[]", new String(write(new RdfStream()), "UTF-8"));
+    }
+
+    @Test
+    public void testWrittenThroughStreamingOutput() throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new RdfStreamStreamingOutput(new RdfStream(create(subject, predicate, other)),
+                MediaType.valueOf("application/ld+json")).write(output);
+        final JsonNode json = new ObjectMapper().readTree(output.toByteArray());
+        assertEquals("info:other", json.get(0).get("info:predicate").get(0).get("@id").asText());
+    }
+
+    private static byte[] write(final RdfStream triples) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new JsonLdStreamingWriter(output).write(triples);
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,144 @@
+/**
+ * Copyright 2015 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.responses;
+
+import static com.hp.hpl.jena.graph.NodeFactory.createAnon;
+import static com.hp.hpl.jena.graph.NodeFactory.createLiteral;
+import static com.hp.hpl.jena.graph.NodeFactory.createURI;
+import static com.hp.hpl.jena.graph.Triple.create;
+import static com.hp.hpl.jena.rdf.model.ModelFactory.createDefaultModel;
+import static java.lang.management.ManagementFactory.getThreadMXBean;
+import static com.google.common.collect.Iterables.transform;
+import static org.fcrepo.http.commons.responses.RdfStreamStreamingOutput.toStatement;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+import static org.openrdf.rio.RDFFormat.NTRIPLES;
+import static org.openrdf.rio.Rio.createWriter;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.fcrepo.kernel.utils.iterators.RdfStream;
+import org.junit.Test;
+import org.openrdf.rio.RDFHandlerException;
+import org.openrdf.rio.Rio;
+import org.slf4j.Logger;
+
+import com.hp.hpl.jena.datatypes.xsd.XSDDatatype;
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.rdf.model.AnonId;
+import com.hp.hpl.jena.rdf.model.Model;
+
+/**
+ * <p>NTriplesEncoderTest class.</p>
+ *
+ * @author agent
+ */
+public class NTriplesEncoderTest {
+
+    private static final Logger LOGGER = getLogger(NTriplesEncoderTest.class);
+
+    private static final Triple[] triples = {
+        create(createURI("info:subject"), createURI("info:predicate"), createURI("info:object")),
+        create(createURI("info:subject"), createURI("info:predicate"),
+                createLiteral("a \"quoted\"\nline\t\u00E9\uD83D\uDE00")),
+        create(createURI("info:subject"), createURI("info:predicate"), createLiteral("french", "fr", false)),
+        create(createURI("info:subject"), createURI("info:predicate"), createLiteral("1", XSDDatatype.XSDinteger)),
+        create(createAnon(), createURI("info:predicate"), createAnon()) };
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new NTriplesEncoder(output).write(new RdfStream(triples));
+
+        final Model model = createDefaultModel().read(new ByteArrayInputStream(output.toByteArray()), null,
+                "N-TRIPLE");
+        assertEquals(triples.length, model.size());
+        for (int i = 0; i < 4; i++) {
+            assertTrue("Didn't find " + triples[i], model.getGraph().contains(triples[i]));
+        }
+    }
+
+    @Test
+    public void testAsciiOutput() throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new NTriplesEncoder(output).write(new RdfStream(triples[1]));
+        assertEquals("<info:subject> <info:predicate> \"a \\\"quoted\\\"\\nline\\t\\u00E9\\U0001F600\" .\n",
+                output.toString("US-ASCII"));
+    }
+
+    @Test
+    public void testBlankNodeLabels() throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new NTriplesEncoder(output).write(new RdfStream(create(createAnon(new AnonId("-1a:x")),
+                createURI("info:predicate"), createURI("info:object"))));
+        assertEquals("_:x002D1ax003Ax0078 <info:predicate> <info:object> .\n", output.toString("US-ASCII"));
+    }
+
+    /**
+     * Compares the bytes allocated per triple by the direct path and the Rio path. The figures are
+     * logged, and only their order is asserted, since allocation varies across JVMs.
+     */
+    @Test
+    public void testAllocationPerTriple() throws IOException, RDFHandlerException {
+        final ThreadMXBean threads = getThreadMXBean();
+        assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+        final com.sun.management.ThreadMXBean allocation = (com.sun.management.ThreadMXBean) threads;
+        assumeTrue(allocation.isThreadAllocatedMemorySupported() && allocation.isThreadAllocatedMemoryEnabled());
+
+        final List<Triple> input = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            input.add(create(createURI("info:subject/" + i), createURI("info:predicate"),
+                    createLiteral("value " + i)));
+        }
+        final OutputStream sink = new OutputStream() {
+
+            @Override
+            public void write(final int b) {
+                // discard
+            }
+
+            @Override
+            public void write(final byte[] b, final int off, final int len) {
+                // discard
+            }
+        };
+        final long threadId = Thread.currentThread().getId();
+
+        // warm both paths up
+        new NTriplesEncoder(sink).write(input.iterator());
+        Rio.write(transform(input, toStatement), createWriter(NTRIPLES, sink));
+
+        long before = allocation.getThreadAllocatedBytes(threadId);
+        new NTriplesEncoder(sink).write(input.iterator());
+        final long direct = (allocation.getThreadAllocatedBytes(threadId) - before) / input.size();
+
+        before = allocation.getThreadAllocatedBytes(threadId);
+        Rio.write(transform(input, toStatement), createWriter(NTRIPLES, sink));
+        final long converted = (allocation.getThreadAllocatedBytes(threadId) - before) / input.size();
+
+        LOGGER.info("Bytes allocated per triple: {} writing Jena triples directly, {} through Rio", direct,
+                converted);
+        assertTrue("Direct path should allocate less than the Rio path", direct < converted);
+    }
+}
@@ -18,6 +18,7 @@ package org.fcrepo.http.commons.responses;
 import static com.hp.hpl.jena.graph.NodeFactory.createURI;
 import static com.hp.hpl.jena.graph.Triple.create;
 import static com.hp.hpl.jena.rdf.model.ModelFactory.createDefaultModel;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
@@ -27,6 +28,7 @@ import static org.mockito.MockitoAnnotations.initMocks;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.zip.GZIPInputStream;
 
 import javax.jcr.NamespaceRegistry;
 import javax.jcr.RepositoryException;
@@ -108,4 +110,58 @@ public class RdfStreamProviderTest {
                 .contains(postSerialization.asStatement(t)));
     }
 
+    @Test
+    public void testWriteToFromCache() throws IOException {
+        final Triple t =
+            create(createURI("info:test"), createURI("property:test"),
+                    createURI("info:test"));
+        final RepresentationCache cache = new RepresentationCache(1024 * 1024, 1024);
+        final MediaType mediaType = MediaType.valueOf("application/n-triples");
+
+        final byte[] first;
+        try (ByteArrayOutputStream entityStream = new ByteArrayOutputStream()) {
+            testProvider.writeTo(new CacheableRdfStream(new RdfStream(t).session(mockSession), cache, "/a",
+                    "1-a", null), RdfStream.class, null, null, mediaType, null, entityStream);
+            first = entityStream.toByteArray();
+        }
+        assertEquals(1, cache.size());
+
+        // no triples this time: the cached serialization must be served
+        final byte[] second;
+        try (ByteArrayOutputStream entityStream = new ByteArrayOutputStream()) {
+            testProvider.writeTo(new CacheableRdfStream(new RdfStream().session(mockSession), cache, "/a",
+                    "1-a", null), RdfStream.class, null, null, mediaType, null, entityStream);
+            second = entityStream.toByteArray();
+        }
+        assertArrayEquals(first, second);
+    }
+
+    @Test
+    public void testWriteToFromCacheCompressed() throws IOException {
+        final Triple t =
+            create(createURI("info:test"), createURI("property:test"),
+                    createURI("info:test"));
+        final RepresentationCache cache = new RepresentationCache(1024 * 1024, 1024);
+        final MediaType mediaType = MediaType.valueOf("application/n-triples");
+
+        try (ByteArrayOutputStream entityStream = new ByteArrayOutputStream()) {
+            testProvider.writeTo(new CacheableRdfStream(new RdfStream(t).session(mockSession), cache, "/a",
+                    "1-a", null).encoded(ContentCoding.GZIP), RdfStream.class, null, null, mediaType, null,
+                    entityStream);
+            final Model model = createDefaultModel().read(
+                    new GZIPInputStream(new ByteArrayInputStream(entityStream.toByteArray())), null, "N-TRIPLE");
+            assertTrue(model.getGraph().contains(t));
+        }
+
+        // the compressed and uncompressed serializations are cached separately
+        try (ByteArrayOutputStream entityStream = new ByteArrayOutputStream()) {
+            testProvider.writeTo(new CacheableRdfStream(new RdfStream(t).session(mockSession), cache, "/a",
+                    "1-a", null), RdfStream.class, null, null, mediaType, null, entityStream);
+            final Model model = createDefaultModel().read(
+                    new ByteArrayInputStream(entityStream.toByteArray()), null, "N-TRIPLE");
+            assertTrue(model.getGraph().contains(t));
+        }
+        assertEquals(2, cache.size());
+    }
+
 }
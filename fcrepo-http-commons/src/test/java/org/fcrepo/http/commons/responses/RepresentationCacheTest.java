@@ -0,0 +1,446 @@
+/**
+ * Copyright 2015 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.http.commons.responses;
+
+import static com.google.common.util.concurrent.Uninterruptibles.awaitUninterruptibly;
+import static com.google.common.util.concurrent.Uninterruptibles.sleepUninterruptibly;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static javax.jcr.PropertyType.REFERENCE;
+import static javax.jcr.observation.Event.NODE_ADDED;
+import static javax.jcr.observation.Event.PROPERTY_CHANGED;
+import static org.fcrepo.kernel.FedoraJcrTypes.FEDORA_PAIRTREE;
+import static org.fcrepo.kernel.FedoraJcrTypes.LDP_DIRECT_CONTAINER;
+import static org.fcrepo.kernel.FedoraJcrTypes.LDP_IS_MEMBER_OF_RELATION;
+import static org.fcrepo.kernel.FedoraJcrTypes.LDP_MEMBER_RESOURCE;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.jcr.Node;
+import javax.jcr.Property;
+import javax.jcr.Repository;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.observation.Event;
+
+import org.fcrepo.http.commons.responses.RepresentationCache.Key;
+import org.fcrepo.kernel.observer.FedoraEvent;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import com.google.common.eventbus.EventBus;
+
+/**
+ * <p>RepresentationCacheTest class.</p>
+ *
+ * @author agent
+ */
+public class RepresentationCacheTest {
+
+    private RepresentationCache testObj;
+
+    @Mock
+    private Event mockEvent;
+
+    @Mock
+    private Repository mockRepository;
+
+    @Mock
+    private Session mockSession;
+
+    @Mock
+    private Node mockPairtree;
+
+    @Mock
+    private Node mockContainer;
+
+    @Mock
+    private Node mockMember;
+
+    @Mock
+    private Property mockMemberResource;
+
+    private final Key key = new Key("/a/b", "1-b", "text/turtle", null);
+
+    private final byte[] representation = "<info:a> <info:b> <info:c> .".getBytes();
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+        testObj = new RepresentationCache(1024 * 1024, 1024);
+    }
+
+    @Test
+    public void testPutAndGet() {
+        assertNull(testObj.get(key));
+        testObj.put(key, representation);
+        assertArrayEquals(representation, testObj.get(key));
+        assertNull(testObj.get(new Key("/a/b", "2-b", "text/turtle", null)));
+        assertNull(testObj.get(new Key("/a/b", "1-b", "application/ld+json", null)));
+        assertNull(testObj.get(new Key("/a/b", "1-b", "text/turtle", "someone-else")));
+    }
+
+    @Test
+    public void testOversizedEntriesAreNotCached() {
+        testObj.put(key, new byte[2048]);
+        assertNull(testObj.get(key));
+    }
+
+    @Test
+    public void testWriteCachesOnMiss() throws IOException {
+        final ByteArrayOutputStream first = new ByteArrayOutputStream();
+        testObj.write(key, first, serializerOf(representation));
+        assertArrayEquals(representation, first.toByteArray());
+
+        final ByteArrayOutputStream second = new ByteArrayOutputStream();
+        testObj.write(key, second, serializerOf(new byte[0]));
+        assertArrayEquals(representation, second.toByteArray());
+    }
+
+    @Test
+    public void testWriteDoesNotCacheOversizedRepresentations() throws IOException {
+        final byte[] large = new byte[2048];
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        testObj.write(key, output, serializerOf(large));
+        assertEquals(large.length, output.size());
+        assertEquals(0, testObj.size());
+    }
+
+    @Test(expected = IOException.class)
+    public void testWriteDoesNotCacheFailedSerializations() throws IOException {
+        try {
+            testObj.write(key, new ByteArrayOutputStream(), new RepresentationCache.Serializer() {
+
+                @Override
+                public void serialize(final OutputStream output) throws IOException {
+                    output.write(representation, 0, 4);
+                    throw new IOException("expected");
+                }
+            });
+        } finally {
+            assertEquals(0, testObj.size());
+        }
+    }
+
+    @Test
+    public void testConcurrentWritesShareOneSerialization() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ExecutorService executor = newSingleThreadExecutor();
+        try {
+            final Future<byte[]> leader = executor.submit(new Callable<byte[]>() {
+
+                @Override
+                public byte[] call() throws IOException {
+                    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+                    testObj.write(key, output, new RepresentationCache.Serializer() {
+
+                        @Override
+                        public void serialize(final OutputStream out) throws IOException {
+                            started.countDown();
+                            awaitUninterruptibly(release);
+                            out.write(representation);
+                        }
+                    });
+                    return output.toByteArray();
+                }
+            });
+            started.await();
+            final AtomicInteger serializations = new AtomicInteger();
+            final ByteArrayOutputStream follower = new ByteArrayOutputStream();
+            final Thread releaser = new Thread() {
+
+                @Override
+                public void run() {
+                    sleepUninterruptibly(100, MILLISECONDS);
+                    release.countDown();
+                }
+            };
+            releaser.start();
+            testObj.write(key, follower, new RepresentationCache.Serializer() {
+
+                @Override
+                public void serialize(final OutputStream out) {
+                    serializations.incrementAndGet();
+                }
+            });
+            assertArrayEquals(representation, leader.get());
+            assertArrayEquals(representation, follower.toByteArray());
+            assertEquals(0, serializations.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFollowersOfOversizedRepresentationDoNotWait() throws Exception {
+        final CountDownLatch overflowed = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ExecutorService executor = newSingleThreadExecutor();
+        try {
+            final Future<Integer> leader = executor.submit(new Callable<Integer>() {
+
+                @Override
+                public Integer call() throws IOException {
+                    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+                    testObj.write(key, output, new RepresentationCache.Serializer() {
+
+                        @Override
+                        public void serialize(final OutputStream out) throws IOException {
+                            out.write(new byte[2048]);
+                            overflowed.countDown();
+                            awaitUninterruptibly(release);
+                        }
+                    });
+                    return output.size();
+                }
+            });
+            overflowed.await();
+            final ByteArrayOutputStream follower = new ByteArrayOutputStream();
+            testObj.write(key, follower, serializerOf(representation));
+            assertArrayEquals(representation, follower.toByteArray());
+            assertFalse("The follower waited on the leader!", leader.isDone());
+            release.countDown();
+            assertEquals(2048, leader.get().intValue());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSlowLeaderClientDoesNotHoldBackFollowers() throws Exception {
+        final CountDownLatch writing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ExecutorService executor = newSingleThreadExecutor();
+        try {
+            final Future<?> leader = executor.submit(new Callable<Void>() {
+
+                @Override
+                public Void call() throws IOException {
+                    testObj.write(key, new OutputStream() {
+
+                        @Override
+                        public void write(final int b) {
+                            writing.countDown();
+                            awaitUninterruptibly(release);
+                        }
+                    }, serializerOf(representation));
+                    return null;
+                }
+            });
+            writing.await();
+            final AtomicInteger serializations = new AtomicInteger();
+            final ByteArrayOutputStream follower = new ByteArrayOutputStream();
+            testObj.write(key, follower, new RepresentationCache.Serializer() {
+
+                @Override
+                public void serialize(final OutputStream out) {
+                    serializations.incrementAndGet();
+                }
+            });
+            assertArrayEquals(representation, follower.toByteArray());
+            assertEquals(0, serializations.get());
+            release.countDown();
+            leader.get();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testInvalidateOnEvent() throws RepositoryException {
+        testObj.put(key, representation);
+        when(mockEvent.getType()).thenReturn(PROPERTY_CHANGED);
+        when(mockEvent.getPath()).thenReturn("/a/b/dc:title");
+        testObj.invalidate(new FedoraEvent(mockEvent));
+        assertNull(testObj.get(key));
+    }
+
+    @Test
+    public void testInvalidateParentOnEvent() throws RepositoryException {
+        testObj.put(key, representation);
+        when(mockEvent.getType()).thenReturn(NODE_ADDED);
+        when(mockEvent.getPath()).thenReturn("/a/b/c");
+        testObj.invalidate(new FedoraEvent(mockEvent));
+        assertNull(testObj.get(key));
+    }
+
+    @Test
+    public void testUnrelatedEventsLeaveEntries() throws RepositoryException {
+        testObj.put(key, representation);
+        when(mockEvent.getType()).thenReturn(NODE_ADDED);
+        when(mockEvent.getPath()).thenReturn("/a/c");
+        testObj.invalidate(new FedoraEvent(mockEvent));
+        assertArrayEquals(representation, testObj.get(key));
+    }
+
+    @Test
+    public void testInvalidateContainerPastPairtree() throws RepositoryException {
+        withSession();
+        final Key container = new Key("/a", "1-a", "text/turtle", null);
+        final Key root = new Key("/", "1-root", "text/turtle", null);
+        testObj.put(container, representation);
+        testObj.put(root, representation);
+        when(mockSession.nodeExists("/a/ab/cd")).thenReturn(true);
+        when(mockSession.getNode("/a/ab/cd")).thenReturn(mockPairtree);
+        when(mockSession.nodeExists("/a/ab")).thenReturn(true);
+        when(mockSession.getNode("/a/ab")).thenReturn(mockPairtree);
+        when(mockPairtree.isNodeType(FEDORA_PAIRTREE)).thenReturn(true);
+        when(mockSession.nodeExists("/a")).thenReturn(true);
+        when(mockSession.getNode("/a")).thenReturn(mockContainer);
+        when(mockEvent.getType()).thenReturn(NODE_ADDED);
+        when(mockEvent.getPath()).thenReturn("/a/ab/cd/child");
+
+        testObj.invalidate(new FedoraEvent(mockEvent));
+
+        assertNull(testObj.get(container));
+        assertArrayEquals(representation, testObj.get(root));
+    }
+
+    @Test
+    public void testInvalidateContainerOfHashResource() throws RepositoryException {
+        withSession();
+        final Key container = new Key("/foo", "1-foo", "text/turtle", null);
+        testObj.put(container, representation);
+        when(mockSession.nodeExists("/foo")).thenReturn(true);
+        when(mockSession.getNode("/foo")).thenReturn(mockContainer);
+        when(mockEvent.getType()).thenReturn(NODE_ADDED);
+        when(mockEvent.getPath()).thenReturn("/foo/#/bar");
+
+        testObj.invalidate(new FedoraEvent(mockEvent));
+
+        assertNull(testObj.get(container));
+    }
+
+    @Test
+    public void testInvalidateMembershipResource() throws RepositoryException {
+        withSession();
+        final Key member = new Key("/m", "1-m", "text/turtle", null);
+        testObj.put(member, representation);
+        when(mockSession.nodeExists("/a")).thenReturn(true);
+        when(mockSession.getNode("/a")).thenReturn(mockContainer);
+        when(mockContainer.isNodeType(LDP_DIRECT_CONTAINER)).thenReturn(true);
+        when(mockContainer.hasProperty(LDP_MEMBER_RESOURCE)).thenReturn(true);
+        when(mockContainer.getProperty(LDP_MEMBER_RESOURCE)).thenReturn(mockMemberResource);
+        when(mockMemberResource.getType()).thenReturn(REFERENCE);
+        when(mockMemberResource.getNode()).thenReturn(mockMember);
+        when(mockMember.getPath()).thenReturn("/m");
+        when(mockEvent.getType()).thenReturn(NODE_ADDED);
+        when(mockEvent.getPath()).thenReturn("/a/child");
+
+        testObj.invalidate(new FedoraEvent(mockEvent));
+
+        assertNull(testObj.get(member));
+    }
+
+    @Test
+    public void testPutSkippedAfterInvalidation() {
+        final long generation = testObj.generation("/a/b");
+        testObj.invalidate("/a/b");
+        assertFalse(testObj.put(key, generation, representation));
+        assertNull(testObj.get(key));
+    }
+
+    @Test
+    public void testWriteNotCachedWhenInvalidatedWhileSerializing() throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        testObj.write(key, output, new RepresentationCache.Serializer() {
+
+            @Override
+            public void serialize(final OutputStream out) throws IOException {
+                out.write(representation);
+                // the event of a concurrent write arrives while the old state is serialized
+                testObj.invalidate("/a/b");
+            }
+        });
+        assertArrayEquals(representation, output.toByteArray());
+        assertNull(testObj.get(key));
+    }
+
+    @Test
+    public void testInvalidateWrite() throws RepositoryException {
+        final Key container = new Key("/a", "1-a", "text/turtle", null);
+        testObj.put(container, representation);
+        when(mockSession.nodeExists("/a")).thenReturn(true);
+        when(mockSession.getNode("/a")).thenReturn(mockContainer);
+
+        testObj.invalidateWrite(mockSession, "/a/child");
+
+        assertNull(testObj.get(container));
+    }
+
+    @Test
+    public void testInvalidateWriteOfMembershipContainer() throws RepositoryException {
+        final Key child = new Key("/a/ab/cd/child", "1-child", "text/turtle", null);
+        final Key beside = new Key("/ab", "1-ab", "text/turtle", null);
+        testObj.put(child, representation);
+        testObj.put(beside, representation);
+        when(mockSession.nodeExists("/a")).thenReturn(true);
+        when(mockSession.getNode("/a")).thenReturn(mockContainer);
+        when(mockContainer.isNodeType(LDP_DIRECT_CONTAINER)).thenReturn(true);
+
+        testObj.invalidateWrite(mockSession, "/a");
+
+        assertNull(testObj.get(child));
+        assertArrayEquals(representation, testObj.get(beside));
+    }
+
+    @Test
+    public void testInvalidateBelowOnMembershipChange() throws RepositoryException {
+        final Key child = new Key("/a/child", "1-child", "text/turtle", null);
+        testObj.put(child, representation);
+        final long generation = testObj.generation("/a/other");
+        when(mockEvent.getType()).thenReturn(PROPERTY_CHANGED);
+        when(mockEvent.getPath()).thenReturn("/a/" + LDP_IS_MEMBER_OF_RELATION);
+
+        testObj.invalidate(new FedoraEvent(mockEvent).addProperty(LDP_IS_MEMBER_OF_RELATION));
+
+        assertNull(testObj.get(child));
+        assertFalse(generation == testObj.generation("/a/other"));
+    }
+
+    private void withSession() throws RepositoryException {
+        when(mockRepository.login()).thenReturn(mockSession);
+        setField(testObj, "eventBus", new EventBus());
+        setField(testObj, "repository", mockRepository);
+        testObj.register();
+    }
+
+    private static RepresentationCache.Serializer serializerOf(final byte[] bytes) {
+        return new RepresentationCache.Serializer() {
+
+            @Override
+            public void serialize(final OutputStream output) throws IOException {
+                output.write(bytes);
+            }
+        };
+    }
+}
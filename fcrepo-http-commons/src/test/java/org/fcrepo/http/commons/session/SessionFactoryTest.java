@@ -15,27 +15,39 @@
  */
 package org.fcrepo.http.commons.session;
 
+import static javax.ws.rs.core.Response.Status.TEMPORARY_REDIRECT;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
+import java.net.URI;
 import java.security.Principal;
 
 import javax.jcr.Credentials;
 import javax.jcr.Repository;
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
+import javax.jcr.Workspace;
+import javax.jcr.observation.ObservationManager;
 import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.RedirectionException;
 
 import org.fcrepo.kernel.Transaction;
+import org.fcrepo.kernel.exception.RemoteTransactionException;
 import org.fcrepo.kernel.exception.TransactionMissingException;
 import org.fcrepo.kernel.services.TransactionService;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.modeshape.jcr.api.ServletCredentials;
 
@@ -71,11 +83,20 @@ public class SessionFactoryTest {
     @Mock
     private Principal mockUser;
 
+    @Mock
+    private Workspace mockWorkspace;
+
+    @Mock
+    private ObservationManager mockObservationManager;
+
     @Before
-    public void setUp() {
+    public void setUp() throws RepositoryException {
         initMocks(this);
         testObj = new SessionFactory(mockRepo, mockTxService);
         testObj.init();
+        when(mockSession.isLive()).thenReturn(true);
+        when(mockSession.getWorkspace()).thenReturn(mockWorkspace);
+        when(mockWorkspace.getObservationManager()).thenReturn(mockObservationManager);
     }
 
     @Test
@@ -124,6 +145,22 @@ public class SessionFactoryTest {
         }
     }
 
+    @Test
+    public void testGetSessionFromRemoteTransaction() {
+        when(mockRequest.getPathInfo()).thenReturn("/tx:123/some/path");
+        when(mockRequest.getRequestURI()).thenReturn("/rest/tx:123/some/path");
+        when(mockRequest.getQueryString()).thenReturn("a=b");
+        when(mockTxService.getTransaction("123", null)).thenThrow(
+                new RemoteTransactionException("123", "http://node2:8080/"));
+        try {
+            testObj.getSession(mockRequest);
+            fail("Expected a redirect to the transaction's node");
+        } catch (final RedirectionException e) {
+            assertEquals(TEMPORARY_REDIRECT.getStatusCode(), e.getResponse().getStatus());
+            assertEquals(URI.create("http://node2:8080/rest/tx:123/some/path?a=b"), e.getLocation());
+        }
+    }
+
     @Test
     public void testGetEmbeddedIdTx() {
         when(mockRequest.getPathInfo()).thenReturn("/tx:123/some/path");
@@ -131,4 +168,102 @@ public class SessionFactoryTest {
         assertEquals("txId should be 123", "123", txId);
     }
 
+    @Test
+    public void testPooledSession() throws RepositoryException {
+        testObj = new SessionFactory(mockRepo, mockTxService, 2);
+        when(mockRequest.getPathInfo()).thenReturn("/some/path");
+        when(mockRequest.getMethod()).thenReturn("GET");
+        when(mockRepo.login(any(Credentials.class))).thenReturn(mockSession);
+
+        final Session session = testObj.getSession(mockRequest);
+        testObj.releaseSession(session);
+        assertEquals(session, testObj.getSession(mockRequest));
+
+        verify(mockRepo).login(any(Credentials.class));
+        verify(mockSession).refresh(false);
+        verify(mockObservationManager).setUserData(null);
+        verify(mockSession, never()).logout();
+    }
+
+    @Test
+    public void testPooledSessionIsNotTiedToRequest() throws RepositoryException {
+        testObj = new SessionFactory(mockRepo, mockTxService, 2);
+        when(mockRequest.getPathInfo()).thenReturn("/some/path");
+        when(mockRequest.getMethod()).thenReturn("HEAD");
+        when(mockRepo.login(any(Credentials.class))).thenReturn(mockSession);
+
+        testObj.getSession(mockRequest);
+
+        final ArgumentCaptor<ServletCredentials> credentials = ArgumentCaptor.forClass(ServletCredentials.class);
+        verify(mockRepo).login(credentials.capture());
+        assertNotEquals(mockRequest, credentials.getValue().getRequest());
+        assertNull(credentials.getValue().getRequest().getUserPrincipal());
+    }
+
+    @Test
+    public void testAuthenticatedSessionIsNotPooled() throws RepositoryException {
+        testObj = new SessionFactory(mockRepo, mockTxService, 2);
+        when(mockRequest.getPathInfo()).thenReturn("/some/path");
+        when(mockRequest.getMethod()).thenReturn("GET");
+        when(mockRequest.getUserPrincipal()).thenReturn(mockUser);
+        when(mockRepo.login(any(Credentials.class))).thenReturn(mockSession);
+
+        testObj.releaseSession(testObj.getSession(mockRequest));
+        testObj.getSession(mockRequest);
+
+        verify(mockSession).logout();
+        verify(mockRepo, times(2)).login(any(Credentials.class));
+    }
+
+    @Test
+    public void testWriteSessionIsNotPooled() throws RepositoryException {
+        testObj = new SessionFactory(mockRepo, mockTxService, 2);
+        when(mockRequest.getPathInfo()).thenReturn("/some/path");
+        when(mockRequest.getMethod()).thenReturn("PUT");
+        when(mockRepo.login(any(Credentials.class))).thenReturn(mockSession);
+
+        testObj.releaseSession(testObj.getSession(mockRequest));
+
+        verify(mockSession).logout();
+    }
+
+    @Test
+    public void testDirtySessionIsDiscarded() throws RepositoryException {
+        testObj = new SessionFactory(mockRepo, mockTxService, 2);
+        when(mockRequest.getPathInfo()).thenReturn("/some/path");
+        when(mockRequest.getMethod()).thenReturn("GET");
+        when(mockRepo.login(any(Credentials.class))).thenReturn(mockSession);
+        when(mockSession.hasPendingChanges()).thenReturn(true);
+
+        testObj.releaseSession(testObj.getSession(mockRequest));
+        testObj.getSession(mockRequest);
+
+        verify(mockSession).logout();
+        verify(mockRepo, times(2)).login(any(Credentials.class));
+    }
+
+    @Test
+    public void testPoolDisabled() throws RepositoryException {
+        testObj = new SessionFactory(mockRepo, mockTxService, 0);
+        when(mockRequest.getPathInfo()).thenReturn("/some/path");
+        when(mockRequest.getMethod()).thenReturn("GET");
+        when(mockRepo.login(any(Credentials.class))).thenReturn(mockSession);
+
+        testObj.releaseSession(testObj.getSession(mockRequest));
+
+        verify(mockSession).logout();
+    }
+
+    @Test
+    public void testShutdown() throws RepositoryException {
+        testObj = new SessionFactory(mockRepo, mockTxService, 2);
+        when(mockRequest.getPathInfo()).thenReturn("/some/path");
+        when(mockRequest.getMethod()).thenReturn("GET");
+        when(mockRepo.login(any(Credentials.class))).thenReturn(mockSession);
+
+        testObj.releaseSession(testObj.getSession(mockRequest));
+        testObj.shutdown();
+
+        verify(mockSession).logout();
+    }
 }
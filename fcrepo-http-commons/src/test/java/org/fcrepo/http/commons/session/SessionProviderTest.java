@@ -17,6 +17,8 @@ package org.fcrepo.http.commons.session;
 
 import static org.fcrepo.http.commons.test.util.TestHelpers.setField;
 import static org.junit.Assert.assertNotNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
@@ -62,4 +64,17 @@ public class SessionProviderTest {
         final Session inj = testObj.provide();
         assertNotNull("Didn't get a session", inj);
     }
+
+    @Test
+    public void testDispose() {
+        testObj.dispose(mockSession);
+        verify(mockSessionFactory).releaseSession(mockSession);
+    }
+
+    @Test
+    public void testDisposeDetached() {
+        SessionProvider.detach(mockSession);
+        testObj.dispose(mockSession);
+        verify(mockSessionFactory, never()).releaseSession(mockSession);
+    }
 }
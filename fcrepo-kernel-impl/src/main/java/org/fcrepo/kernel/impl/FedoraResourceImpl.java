@@ -24,8 +24,8 @@ import static com.google.common.collect.Iterators.transform;
 import static com.google.common.collect.Lists.newArrayList;
 import static com.hp.hpl.jena.update.UpdateAction.execute;
 import static com.hp.hpl.jena.update.UpdateFactory.create;
-import static org.apache.commons.codec.digest.DigestUtils.shaHex;
 import static org.fcrepo.kernel.impl.identifiers.NodeResourceConverter.nodeConverter;
+import static org.fcrepo.kernel.impl.services.TransactionServiceImpl.getCurrentTransactionId;
 import static org.fcrepo.kernel.impl.utils.FedoraTypesUtils.isFrozenNode;
 import static org.fcrepo.kernel.impl.utils.FedoraTypesUtils.isInternalNode;
 import static org.fcrepo.kernel.services.functions.JcrPropertyFunctions.isFrozen;
@@ -38,8 +38,10 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import javax.jcr.ItemNotFoundException;
 import javax.jcr.Node;
@@ -64,6 +66,7 @@ import org.fcrepo.kernel.exception.MalformedRdfException;
 import org.fcrepo.kernel.exception.PathNotFoundRuntimeException;
 import org.fcrepo.kernel.exception.RepositoryRuntimeException;
 import org.fcrepo.kernel.identifiers.IdentifierConverter;
+import org.fcrepo.kernel.impl.identifiers.ResourcePathCache;
 import org.fcrepo.kernel.impl.utils.JcrPropertyStatementListener;
 import org.fcrepo.kernel.utils.iterators.GraphDifferencingIterator;
 import org.fcrepo.kernel.impl.utils.iterators.RdfAdder;
@@ -89,6 +92,23 @@ public class FedoraResourceImpl extends JcrTools implements FedoraJcrTypes, Fedo
 
     protected Node node;
 
+    private static final long NOT_MEMOIZED = Long.MIN_VALUE;
+
+    private static final long ABSENT = Long.MIN_VALUE + 1;
+
+    /*
+     * Read-only state memoized after #memoizeState() has been called. Instances are not shared
+     * between requests, so these need no synchronization.
+     */
+    private boolean memoizing = false;
+    private Map<String, Boolean> typeMemo;
+    private Map<String, Boolean> propertyMemo;
+    private Map<String, Property> propertyValueMemo;
+    private String pathMemo;
+    private long createdMemo = NOT_MEMOIZED;
+    private long lastModifiedMemo = NOT_MEMOIZED;
+    private String etagMemo;
+
     /**
      * Construct a {@link org.fcrepo.kernel.models.FedoraResource} from an existing JCR Node
      * @param node an existing JCR node to treat as an fcrepo object
@@ -110,6 +130,16 @@ public class FedoraResourceImpl extends JcrTools implements FedoraJcrTypes, Fedo
      */
     @Override
     public String getPath() {
+        if (memoizing) {
+            if (pathMemo == null) {
+                pathMemo = readPath();
+            }
+            return pathMemo;
+        }
+        return readPath();
+    }
+
+    private String readPath() {
         try {
             return node.getPath();
         } catch (final RepositoryException e) {
@@ -205,22 +235,63 @@ public class FedoraResourceImpl extends JcrTools implements FedoraJcrTypes, Fedo
                 return null;
             }
 
-            Node container = getNode().getParent();
-            while (container.getDepth() > 0) {
-                if (container.isNodeType(FEDORA_PAIRTREE)
-                        || container.isNodeType(FEDORA_NON_RDF_SOURCE_DESCRIPTION)) {
-                    container = container.getParent();
-                } else {
-                    return nodeConverter.convert(container);
-                }
+            final ResourcePathCache pathCache = ResourcePathCache.getInstance();
+            // a transaction may have moved the node, or its container, where other sessions cannot see
+            if (!pathCache.isEnabled() || getCurrentTransactionId(getSession()) != null) {
+                return nodeConverter.convert(findContainer());
+            }
+            final String path = getNode().getPath();
+            final Node cached = getCachedContainer(pathCache, path);
+            if (cached != null) {
+                return nodeConverter.convert(cached);
+            }
+            final Node container = findContainer();
+            if (!getNode().isNew() && !container.isNew()) {
+                pathCache.putContainer(path, getNode().getIdentifier(), container.getIdentifier());
             }
-
             return nodeConverter.convert(container);
         } catch (final RepositoryException e) {
             throw new RepositoryRuntimeException(e);
         }
     }
 
+    /**
+     * Walk up past pairtree and description nodes to the nearest real container
+     */
+    private Node findContainer() throws RepositoryException {
+        Node container = getNode().getParent();
+        while (container.getDepth() > 0) {
+            if (container.isNodeType(FEDORA_PAIRTREE)
+                    || container.isNodeType(FEDORA_NON_RDF_SOURCE_DESCRIPTION)) {
+                container = container.getParent();
+            } else {
+                return container;
+            }
+        }
+        return container;
+    }
+
+    /**
+     * The cached container of the node at a path, if it is still an ancestor of the path
+     */
+    private Node getCachedContainer(final ResourcePathCache pathCache, final String path) {
+        final String identifier = pathCache.getContainer(path);
+        if (identifier == null) {
+            return null;
+        }
+        try {
+            final Node container = getSession().getNodeByIdentifier(identifier);
+            final String containerPath = container.getPath();
+            if (path.startsWith(containerPath.equals("/") ? "/" : containerPath + "/")) {
+                return container;
+            }
+        } catch (final RepositoryException e) {
+            LOGGER.trace("Cached container {} of {} is gone", identifier, path, e);
+        }
+        pathCache.remove(path);
+        return null;
+    }
+
     @Override
     public FedoraResource getChild(final String relPath) {
         try {
@@ -232,6 +303,18 @@ public class FedoraResourceImpl extends JcrTools implements FedoraJcrTypes, Fedo
 
     @Override
     public boolean hasProperty(final String relPath) {
+        if (memoizing) {
+            Boolean result = propertyMemo.get(relPath);
+            if (result == null) {
+                result = readHasProperty(relPath);
+                propertyMemo.put(relPath, result);
+            }
+            return result;
+        }
+        return readHasProperty(relPath);
+    }
+
+    private boolean readHasProperty(final String relPath) {
         try {
             return getNode().hasProperty(relPath);
         } catch (final RepositoryException e) {
@@ -241,6 +324,19 @@ public class FedoraResourceImpl extends JcrTools implements FedoraJcrTypes, Fedo
 
     @Override
     public Property getProperty(final String relPath) {
+        if (memoizing) {
+            Property result = propertyValueMemo.get(relPath);
+            if (result == null) {
+                result = readProperty(relPath);
+                propertyValueMemo.put(relPath, result);
+                propertyMemo.put(relPath, true);
+            }
+            return result;
+        }
+        return readProperty(relPath);
+    }
+
+    private Property readProperty(final String relPath) {
         try {
             return getNode().getProperty(relPath);
         } catch (final RepositoryException e) {
@@ -288,6 +384,16 @@ public class FedoraResourceImpl extends JcrTools implements FedoraJcrTypes, Fedo
      */
     @Override
     public Date getCreatedDate() {
+        if (memoizing) {
+            if (createdMemo == NOT_MEMOIZED) {
+                createdMemo = toMemo(readCreatedDate());
+            }
+            return fromMemo(createdMemo);
+        }
+        return readCreatedDate();
+    }
+
+    private Date readCreatedDate() {
         try {
             if (hasProperty(JCR_CREATED)) {
                 return new Date(getProperty(JCR_CREATED).getDate().getTimeInMillis());
@@ -306,7 +412,16 @@ public class FedoraResourceImpl extends JcrTools implements FedoraJcrTypes, Fedo
      */
     @Override
     public Date getLastModifiedDate() {
+        if (memoizing) {
+            if (lastModifiedMemo == NOT_MEMOIZED) {
+                lastModifiedMemo = toMemo(readLastModifiedDate());
+            }
+            return fromMemo(lastModifiedMemo);
+        }
+        return readLastModifiedDate();
+    }
 
+    private Date readLastModifiedDate() {
         try {
             if (hasProperty(JCR_LASTMODIFIED)) {
                 return new Date(getProperty(JCR_LASTMODIFIED).getDate().getTimeInMillis());
@@ -327,9 +442,28 @@ public class FedoraResourceImpl extends JcrTools implements FedoraJcrTypes, Fedo
         return null;
     }
 
+    private static long toMemo(final Date date) {
+        return date == null ? ABSENT : date.getTime();
+    }
+
+    private static Date fromMemo(final long memo) {
+        return memo == ABSENT ? null : new Date(memo);
+    }
 
     @Override
     public boolean hasType(final String type) {
+        if (memoizing) {
+            Boolean result = typeMemo.get(type);
+            if (result == null) {
+                result = readHasType(type);
+                typeMemo.put(type, result);
+            }
+            return result;
+        }
+        return readHasType(type);
+    }
+
+    private boolean readHasType(final String type) {
         try {
             if (isFrozen.apply(node) && hasProperty(FROZEN_MIXIN_TYPES)) {
                 final List<String> types = newArrayList(
@@ -477,14 +611,36 @@ public class FedoraResourceImpl extends JcrTools implements FedoraJcrTypes, Fedo
      */
     @Override
     public String getEtagValue() {
+        if (memoizing) {
+            if (etagMemo == null) {
+                etagMemo = readEtagValue();
+            }
+            return etagMemo;
+        }
+        return readEtagValue();
+    }
+
+    private String readEtagValue() {
         final Date lastModifiedDate = getLastModifiedDate();
 
         if (lastModifiedDate != null) {
-            return shaHex(getPath() + lastModifiedDate.getTime());
+            return etagFor(getPath(), lastModifiedDate.getTime());
         }
         return "";
     }
 
+    /**
+     * Build an etag from the write-time stamp ModeShape keeps in jcr:lastModified and the path
+     * hash, so a conditional request costs one property read and no digest computation.
+     *
+     * @param path the resource path
+     * @param lastModified the last-modified time in milliseconds
+     * @return etag value
+     */
+    protected static String etagFor(final String path, final long lastModified) {
+        return Long.toHexString(lastModified) + "-" + Integer.toHexString(path.hashCode());
+    }
+
     @Override
     public void enableVersioning() {
         try {
@@ -614,6 +770,21 @@ public class FedoraResourceImpl extends JcrTools implements FedoraJcrTypes, Fedo
 
     }
 
+    /**
+     * Serve mixin type checks, property existence checks and lookups, the path, the created and
+     * last-modified dates and the etag of this resource from a memo for the rest of its life, so that the many
+     * repeated calls made while answering a single request cost one JCR lookup apiece. Only use
+     * this on a resource that the current request reads but does not modify.
+     */
+    public void memoizeState() {
+        if (!memoizing) {
+            typeMemo = new HashMap<>();
+            propertyMemo = new HashMap<>();
+            propertyValueMemo = new HashMap<>();
+            memoizing = true;
+        }
+    }
+
     @Override
     public boolean equals(final Object object) {
         if (object instanceof FedoraResourceImpl) {
@@ -22,7 +22,6 @@ import static org.fcrepo.kernel.Transaction.State.DIRTY;
 import static org.fcrepo.kernel.Transaction.State.NEW;
 import static org.fcrepo.kernel.Transaction.State.ROLLED_BACK;
 
-import java.util.Calendar;
 import java.util.Date;
 
 import javax.jcr.RepositoryException;
@@ -52,7 +51,9 @@ public class TransactionImpl implements Transaction {
 
     private final Date created;
 
-    private final Calendar expires;
+    private final long timeout;
+
+    private volatile long expires;
 
     private State state = NEW;
 
@@ -66,7 +67,7 @@ public class TransactionImpl implements Transaction {
         this.session = session;
         this.created = new Date();
         this.id = randomUUID().toString();
-        this.expires = Calendar.getInstance();
+        this.timeout = timeout();
         this.updateExpiryDate();
         this.userName = userName;
     }
@@ -112,7 +113,7 @@ public class TransactionImpl implements Transaction {
      */
     @Override
     public Date getExpires() {
-        return expires.getTime();
+        return new Date(expires);
     }
 
     /* (non-Javadoc)
@@ -136,7 +137,7 @@ public class TransactionImpl implements Transaction {
     @Override
     public void expire() {
         this.session.logout();
-        this.expires.setTimeInMillis(currentTimeMillis());
+        this.expires = currentTimeMillis();
     }
 
     /* (non-Javadoc)
@@ -174,13 +175,14 @@ public class TransactionImpl implements Transaction {
      */
     @Override
     public void updateExpiryDate() {
-        long duration;
-        if (System.getProperty(TIMEOUT_SYSTEM_PROPERTY) != null) {
-            duration =
-                    Long.parseLong(System.getProperty(TIMEOUT_SYSTEM_PROPERTY));
-        } else {
-            duration = DEFAULT_TIMEOUT;
-        }
-        this.expires.setTimeInMillis(currentTimeMillis() + duration);
+        this.expires = currentTimeMillis() + timeout;
+    }
+
+    /**
+     * The timeout is read once per transaction, rather than each time it is renewed
+     */
+    private static long timeout() {
+        final String timeout = System.getProperty(TIMEOUT_SYSTEM_PROPERTY);
+        return timeout != null ? Long.parseLong(timeout) : DEFAULT_TIMEOUT;
     }
 }
@@ -0,0 +1,324 @@
+/**
+ * Copyright 2015 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.kernel.impl.identifiers;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static com.google.common.cache.RemovalCause.REPLACED;
+import static javax.jcr.observation.Event.NODE_MOVED;
+import static javax.jcr.observation.Event.NODE_REMOVED;
+import static org.fcrepo.kernel.FedoraJcrTypes.JCR_MIXIN_TYPES;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.jcr.RepositoryException;
+
+import org.fcrepo.kernel.observer.FedoraEvent;
+import org.fcrepo.metrics.RegistryService;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.codahale.metrics.Meter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+
+/**
+ * A size-bounded, least-recently-used cache of how repository paths resolve: the identifier of
+ * the node at a path (for version paths, the frozen node, along with the node it is a version of)
+ * and the identifier of the resource's logical container, skipping pairtree and description nodes.
+ *
+ * Entries only save traversals; callers load the nodes by identifier in their own sessions, and
+ * must check that what they load is still at the path before trusting an entry. Entries at and
+ * below nodes that are removed or moved are dropped as events arrive on the internal event bus.
+ *
+ * The cache is shared by the kernel and the HTTP layer through {@link #getInstance()}, and caches
+ * nothing until it is given a maximum size.
+ *
+ * @author agent
+ */
+public class ResourcePathCache {
+
+    private static final Logger LOGGER = getLogger(ResourcePathCache.class);
+
+    static final Meter hitMeter = RegistryService.getInstance().getMetrics().meter(
+            name(ResourcePathCache.class, "hits"));
+
+    static final Meter missMeter = RegistryService.getInstance().getMetrics().meter(
+            name(ResourcePathCache.class, "misses"));
+
+    static final Meter containerHitMeter = RegistryService.getInstance().getMetrics().meter(
+            name(ResourcePathCache.class, "container-hits"));
+
+    static final Meter containerMissMeter = RegistryService.getInstance().getMetrics().meter(
+            name(ResourcePathCache.class, "container-misses"));
+
+    private static final ResourcePathCache instance = new ResourcePathCache(0);
+
+    /**
+     * Cached paths, in order, so that the entries below a path can be found without a scan
+     */
+    private final ConcurrentSkipListSet<String> index = new ConcurrentSkipListSet<>();
+
+    private volatile Cache<String, Resolution> cache;
+
+    @Autowired(required = false)
+    private EventBus eventBus;
+
+    /**
+     * @param maximumSize how many paths to remember; zero disables the cache
+     */
+    public ResourcePathCache(final long maximumSize) {
+        setMaximumSize(maximumSize);
+    }
+
+    /**
+     * @return the cache shared by the kernel and the HTTP layer
+     */
+    public static ResourcePathCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Resize the cache, dropping every entry
+     *
+     * @param maximumSize how many paths to remember; zero disables the cache
+     */
+    public void setMaximumSize(final long maximumSize) {
+        index.clear();
+        if (maximumSize <= 0) {
+            cache = null;
+            return;
+        }
+        cache = CacheBuilder.newBuilder().maximumSize(maximumSize)
+                .removalListener(new RemovalListener<String, Resolution>() {
+
+                    @Override
+                    public void onRemoval(final RemovalNotification<String, Resolution> notification) {
+                        if (notification.getCause() != REPLACED) {
+                            index.remove(notification.getKey());
+                        }
+                    }
+                }).build();
+    }
+
+    /**
+     * @return whether the cache caches anything
+     */
+    public boolean isEnabled() {
+        return cache != null;
+    }
+
+    /**
+     * Subscribe to repository events, if there is an event bus to subscribe to
+     */
+    @PostConstruct
+    public void register() {
+        if (eventBus != null) {
+            eventBus.register(this);
+        }
+    }
+
+    /**
+     * Stop listening for repository events
+     */
+    @PreDestroy
+    public void unregister() {
+        if (eventBus != null) {
+            eventBus.unregister(this);
+        }
+    }
+
+    /**
+     * Drop the cached resolutions at and below a node that was removed or moved, or whose mixins
+     * changed (a pairtree node may have become a container). Other events leave paths as they were.
+     *
+     * @param event
+     */
+    @Subscribe
+    public void invalidate(final FedoraEvent event) {
+        if (!event.getTypes().contains(NODE_REMOVED) && !event.getTypes().contains(NODE_MOVED)
+                && !event.getProperties().contains(JCR_MIXIN_TYPES)) {
+            return;
+        }
+        try {
+            invalidate(event.getPath());
+        } catch (final RepositoryException e) {
+            LOGGER.debug("Unable to get the path of event {}; invalidating everything", event, e);
+            invalidateAll();
+        }
+    }
+
+    /**
+     * Drop the cached resolutions at and below a path
+     *
+     * @param path
+     */
+    public void invalidate(final String path) {
+        final Cache<String, Resolution> current = cache;
+        if (current == null) {
+            return;
+        }
+        if (path.equals("/")) {
+            current.invalidateAll();
+            return;
+        }
+        current.invalidate(path);
+        // '0' is the character after '/', so this is every path below this one
+        current.invalidateAll(index.subSet(path + "/", path + "0"));
+    }
+
+    /**
+     * Drop every cached resolution
+     */
+    public void invalidateAll() {
+        final Cache<String, Resolution> current = cache;
+        if (current != null) {
+            current.invalidateAll();
+        }
+    }
+
+    /**
+     * @param path
+     * @return how the path resolved, or null if it is not cached
+     */
+    public Resolution get(final String path) {
+        final Cache<String, Resolution> current = cache;
+        if (current == null) {
+            return null;
+        }
+        final Resolution resolution = current.getIfPresent(path);
+        if (resolution == null) {
+            missMeter.mark();
+        } else {
+            hitMeter.mark();
+        }
+        return resolution;
+    }
+
+    /**
+     * @param path
+     * @return the identifier of the logical container of the resource at the path, or null if it
+     *         is not cached
+     */
+    public String getContainer(final String path) {
+        final Cache<String, Resolution> current = cache;
+        if (current == null) {
+            return null;
+        }
+        final Resolution resolution = current.getIfPresent(path);
+        if (resolution == null || resolution.containerIdentifier == null) {
+            containerMissMeter.mark();
+            return null;
+        }
+        containerHitMeter.mark();
+        return resolution.containerIdentifier;
+    }
+
+    /**
+     * Remember the node a path resolved to
+     *
+     * @param path
+     * @param identifier the identifier of the node at the path
+     * @param versionedIdentifier for a path into a version, the identifier of the versioned node;
+     *        otherwise null
+     */
+    public void put(final String path, final String identifier, final String versionedIdentifier) {
+        final Cache<String, Resolution> current = cache;
+        if (current == null) {
+            return;
+        }
+        index.add(path);
+        current.put(path, new Resolution(identifier, versionedIdentifier, null));
+    }
+
+    /**
+     * Remember the logical container of the node at a path
+     *
+     * @param path
+     * @param identifier the identifier of the node at the path
+     * @param containerIdentifier the identifier of its logical container
+     */
+    public void putContainer(final String path, final String identifier, final String containerIdentifier) {
+        final Cache<String, Resolution> current = cache;
+        if (current == null) {
+            return;
+        }
+        final Resolution resolution = current.getIfPresent(path);
+        final String versionedIdentifier = resolution != null && resolution.identifier.equals(identifier)
+                ? resolution.versionedIdentifier : null;
+        index.add(path);
+        current.put(path, new Resolution(identifier, versionedIdentifier, containerIdentifier));
+    }
+
+    /**
+     * Drop the cached resolution of a path that turned out to be stale
+     *
+     * @param path
+     */
+    public void remove(final String path) {
+        final Cache<String, Resolution> current = cache;
+        if (current != null) {
+            current.invalidate(path);
+        }
+    }
+
+    /**
+     * @return the number of cached paths
+     */
+    public long size() {
+        final Cache<String, Resolution> current = cache;
+        return current == null ? 0 : current.size();
+    }
+
+    /**
+     * How a path resolved
+     */
+    public static final class Resolution {
+
+        private final String identifier;
+
+        private final String versionedIdentifier;
+
+        private final String containerIdentifier;
+
+        private Resolution(final String identifier, final String versionedIdentifier,
+                final String containerIdentifier) {
+            this.identifier = identifier;
+            this.versionedIdentifier = versionedIdentifier;
+            this.containerIdentifier = containerIdentifier;
+        }
+
+        /**
+         * @return the identifier of the node at the path
+         */
+        public String getIdentifier() {
+            return identifier;
+        }
+
+        /**
+         * @return for a path into a version, the identifier of the versioned node; otherwise null
+         */
+        public String getVersionedIdentifier() {
+            return versionedIdentifier;
+        }
+    }
+}
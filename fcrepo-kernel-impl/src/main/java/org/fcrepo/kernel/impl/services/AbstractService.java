@@ -21,9 +21,13 @@ import org.fcrepo.kernel.impl.TombstoneImpl;
 import org.modeshape.jcr.api.JcrTools;
 
 import javax.jcr.Node;
+import javax.jcr.PathNotFoundException;
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 import static org.fcrepo.kernel.FedoraJcrTypes.FEDORA_PAIRTREE;
 import static org.fcrepo.kernel.impl.utils.FedoraTypesUtils.getClosestExistingAncestor;
 import static org.modeshape.jcr.api.JcrConstants.NT_FOLDER;
@@ -37,10 +41,31 @@ import static org.modeshape.jcr.api.JcrConstants.NT_FOLDER;
 public abstract class AbstractService {
     protected final static JcrTools jcrTools = new JcrTools();
 
+    private static final int KNOWN_PARENTS_SIZE = 10000;
+
+    /**
+     * Paths of recent parents of created nodes (mostly pairtree branches), so that their next
+     * children can be created without looking up each of their ancestors again. Entries are only
+     * hints: a parent is looked up before use, and forgotten if it has gone.
+     */
+    private final Cache<String, Boolean> knownParents =
+            CacheBuilder.newBuilder().maximumSize(KNOWN_PARENTS_SIZE).build();
+
     protected Node findOrCreateNode(final Session session,
                                     final String path,
                                     final String finalNodeType) throws RepositoryException {
 
+        final int lastSlash = path.lastIndexOf('/');
+        final String parentPath = lastSlash > 0 ? path.substring(0, lastSlash) : null;
+
+        if (parentPath != null && knownParents.getIfPresent(parentPath) != null) {
+            final Node created = createUnderKnownParent(session, parentPath, path.substring(lastSlash + 1),
+                    finalNodeType);
+            if (created != null) {
+                return created;
+            }
+        }
+
         final Node preexistingNode = getClosestExistingAncestor(session, path);
 
         if (TombstoneImpl.hasMixin(preexistingNode)) {
@@ -52,10 +77,34 @@ public abstract class AbstractService {
         if (node.isNew()) {
             tagHierarchyWithPairtreeMixin(preexistingNode, node);
         }
+        if (parentPath != null) {
+            knownParents.put(parentPath, true);
+        }
 
         return node;
     }
 
+    /**
+     * Create a new node under a parent thought to exist
+     *
+     * @return the new node, or null if it must be found or created the long way
+     */
+    private Node createUnderKnownParent(final Session session, final String parentPath, final String name,
+            final String nodeType) throws RepositoryException {
+        final Node parent;
+        try {
+            parent = session.getNode(parentPath);
+        } catch (final PathNotFoundException e) {
+            knownParents.invalidate(parentPath);
+            return null;
+        }
+        // existing nodes and tombstones are left to the full lookup
+        if (parent == null || TombstoneImpl.hasMixin(parent) || parent.hasNode(name)) {
+            return null;
+        }
+        return parent.addNode(name, nodeType);
+    }
+
     protected Node findNode(final Session session, final String path) {
         try {
             return session.getNode(path);
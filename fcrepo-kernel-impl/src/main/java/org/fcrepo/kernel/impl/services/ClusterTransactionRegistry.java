@@ -0,0 +1,159 @@
+/**
+ * Copyright 2015 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.kernel.impl.services;
+
+import static java.lang.System.currentTimeMillis;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.apache.commons.lang.StringUtils.isBlank;
+import static org.infinispan.configuration.cache.CacheMode.REPL_SYNC;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.PostConstruct;
+import javax.jcr.Repository;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.modeshape.jcr.GetBinaryStore;
+import org.modeshape.jcr.value.binary.BinaryStore;
+import org.modeshape.jcr.value.binary.infinispan.InfinispanBinaryStore;
+import org.slf4j.Logger;
+
+/**
+ * Records which node of a cluster holds each open transaction, in a cache replicated across the
+ * repository's Infinispan cluster, so that any node can send a request in a transaction to the
+ * node that holds it. A transaction's session cannot leave the node it was opened on.
+ *
+ * Each node is known by the base URL at which other nodes, or their clients, can reach it. With
+ * no base URL, or outside a clustered Infinispan repository, the registry does nothing and
+ * transactions are only found on the node that opened them.
+ *
+ * Entries live only as long as their transactions would without being renewed, so the
+ * transactions of a node that leaves the cluster without ending them expire with it. Renewing a
+ * transaction re-records it once half of its recorded lifespan has passed.
+ *
+ * @author agent
+ */
+public class ClusterTransactionRegistry {
+
+    private static final Logger LOGGER = getLogger(ClusterTransactionRegistry.class);
+
+    static final String CACHE_NAME = "fcrepo-transactions";
+
+    private final Repository repository;
+
+    private final String nodeUrl;
+
+    private final GetBinaryStore getBinaryStore = new GetBinaryStore();
+
+    private Cache<String, String> owners;
+
+    // when each transaction held here was last recorded to expire
+    private final ConcurrentMap<String, Long> recordedExpiries = new ConcurrentHashMap<>();
+
+    /**
+     * @param repository the clustered repository
+     * @param nodeUrl the base URL of this node
+     */
+    public ClusterTransactionRegistry(final Repository repository, final String nodeUrl) {
+        this.repository = repository;
+        this.nodeUrl = nodeUrl;
+    }
+
+    ClusterTransactionRegistry(final Cache<String, String> owners, final String nodeUrl) {
+        this.repository = null;
+        this.nodeUrl = nodeUrl;
+        this.owners = owners;
+    }
+
+    /**
+     * Join the registry of the repository's cluster, if it has one
+     */
+    @PostConstruct
+    public void start() {
+        if (isBlank(nodeUrl)) {
+            LOGGER.info("No base URL for this node; transactions will not be shared across a cluster");
+            return;
+        }
+        final BinaryStore store = getBinaryStore.apply(repository);
+        if (!(store instanceof InfinispanBinaryStore)) {
+            LOGGER.info("Repository is not backed by Infinispan; transactions will not be shared");
+            return;
+        }
+        final EmbeddedCacheManager cm = ((InfinispanBinaryStore) store).getCaches().get(0).getCacheManager();
+        if (cm == null || cm.getTransport() == null) {
+            LOGGER.info("Repository is not clustered; transactions will not be shared");
+            return;
+        }
+        cm.defineConfiguration(CACHE_NAME, new ConfigurationBuilder().clustering().cacheMode(REPL_SYNC).build());
+        owners = cm.getCache(CACHE_NAME);
+        LOGGER.info("Sharing transactions across cluster {} as {}", cm.getClusterName(), nodeUrl);
+    }
+
+    /**
+     * @return whether transactions are shared across a cluster
+     */
+    public boolean isEnabled() {
+        return owners != null;
+    }
+
+    /**
+     * Record that this node holds a transaction, until it expires
+     *
+     * @param txId
+     * @param expires when the transaction expires, in milliseconds since the epoch
+     */
+    public void register(final String txId, final long expires) {
+        if (owners == null) {
+            return;
+        }
+        final long now = currentTimeMillis();
+        final Long recorded = recordedExpiries.get(txId);
+        if (recorded != null && recorded - now > (expires - now) / 2) {
+            return;
+        }
+        owners.put(txId, nodeUrl, Math.max(expires - now, 1L), MILLISECONDS);
+        recordedExpiries.put(txId, expires);
+    }
+
+    /**
+     * Record that a transaction has ended
+     *
+     * @param txId
+     */
+    public void unregister(final String txId) {
+        if (owners != null) {
+            owners.remove(txId);
+            recordedExpiries.remove(txId);
+        }
+    }
+
+    /**
+     * @param txId
+     * @return the base URL of the other node that holds a transaction, or null if no other node
+     *         holds it
+     */
+    public String ownerOf(final String txId) {
+        if (owners == null) {
+            return null;
+        }
+        final String owner = owners.get(txId);
+        return owner == null || owner.equals(nodeUrl) ? null : owner;
+    }
+}
@@ -22,22 +22,23 @@ package org.fcrepo.kernel.impl.services;
 import static java.lang.System.currentTimeMillis;
 import static org.slf4j.LoggerFactory.getLogger;
 
-import java.util.Iterator;
-import java.util.Map;
-import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
-import javax.jcr.RepositoryException;
 import javax.jcr.Session;
 
-import com.google.common.collect.ImmutableSet;
+import com.google.common.base.Function;
+import com.google.common.collect.MapMaker;
 import org.fcrepo.kernel.Transaction;
+import org.fcrepo.kernel.exception.RemoteTransactionException;
 import org.fcrepo.kernel.exception.RepositoryRuntimeException;
 import org.fcrepo.kernel.impl.TransactionImpl;
+import org.fcrepo.kernel.impl.utils.ExpiryWheel;
 import org.fcrepo.kernel.TxSession;
 import org.fcrepo.kernel.exception.TransactionMissingException;
 import org.fcrepo.kernel.services.TransactionService;
 import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
@@ -55,35 +56,57 @@ public class TransactionServiceImpl extends AbstractService implements Transacti
     private static final Logger LOGGER = getLogger(TransactionService.class);
 
     /**
-     * A key for looking up the transaction id in a session key-value pair
+     * The transactions open on this node. A transaction's session cannot leave
+     * the node it was opened on, so other nodes of a cluster only learn where
+     * it is, from the {@link ClusterTransactionRegistry}.
      */
-    static final String FCREPO4_TX_ID = "fcrepo4.tx.id";
+    private static ConcurrentMap<String, Transaction> transactions = new ConcurrentHashMap<>();
 
     /**
-     * TODO since transactions have to be available on all nodes, they have to
-     * be either persisted or written to a distributed map or sth, not just this
-     * plain hashmap that follows
+     * The ids of the transactions that sessions back. Keys are weak, so a session is forgotten
+     * once its transaction and the transaction's session wrappers are gone.
      */
-    private static Map<String, Transaction> transactions = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<Session, String> sessionTransactions = new MapMaker().weakKeys().makeMap();
 
     public static final long REAP_INTERVAL = 1000;
 
+    /**
+     * Where other nodes' transactions are, if transactions are shared across a cluster
+     */
+    @Autowired(required = false)
+    private ClusterTransactionRegistry clusterRegistry;
+
+    /**
+     * Enough slots, at one per REAP_INTERVAL, to hold the default timeout within one turn
+     */
+    private static final int EXPIRY_SLOTS = 512;
+
+    /**
+     * Finds expired transactions without looking at every open one; renewing a transaction only
+     * moves its expiry date, which the wheel reads when it comes to the transaction's slot.
+     */
+    private static final ExpiryWheel<Transaction> expiries = new ExpiryWheel<>(REAP_INTERVAL, EXPIRY_SLOTS,
+            new Function<Transaction, Long>() {
+
+                @Override
+                public Long apply(final Transaction tx) {
+                    return tx.getExpires().getTime();
+                }
+            }, currentTimeMillis());
+
     /**
      * Check if a session is possibly within a transaction
      * @param session
      * @return
      */
     public static boolean isInTransaction(final Session session) {
-        try {
-            return ImmutableSet.copyOf(session.getNamespacePrefixes()).contains(FCREPO4_TX_ID);
-        } catch (final RepositoryException e) {
-            throw new RepositoryRuntimeException(e);
-        }
+        return session instanceof TxSession || sessionTransactions.containsKey(session);
     }
 
     /**
      * Every REAP_INTERVAL milliseconds, check for expired transactions. If the
-     * tx is expired, roll it back and remove it from the registry.
+     * tx is expired, roll it back and remove it from the registry. Only the
+     * transactions due to expire since the last check are looked at.
      */
     /*
      * (non-Javadoc)
@@ -93,26 +116,32 @@ public class TransactionServiceImpl extends AbstractService implements Transacti
     @Override
     @Scheduled(fixedRate = REAP_INTERVAL)
     public void removeAndRollbackExpired() {
-        synchronized (transactions) {
-            final Iterator<Entry<String, Transaction>> txs =
-                    transactions.entrySet().iterator();
-            while (txs.hasNext()) {
-                final Transaction tx = txs.next().getValue();
-                if (tx.getExpires().getTime() <= currentTimeMillis()) {
-                    try {
-                        tx.rollback();
-                    } catch (final RepositoryRuntimeException e) {
-                        LOGGER.error(
-                                "Got exception rolling back expired" +
-                                        " transaction {}: {}",
-                                        tx, e);
-                    }
-                    txs.remove();
+        for (final Transaction tx : expiries.expire(currentTimeMillis())) {
+            // transactions committed or rolled back already have nothing left to reap
+            if (transactions.remove(tx.getId(), tx)) {
+                unregister(tx.getId());
+                try {
+                    tx.rollback();
+                } catch (final RepositoryRuntimeException e) {
+                    LOGGER.error(
+                            "Got exception rolling back expired" +
+                                    " transaction {}: {}",
+                                    tx, e);
                 }
             }
         }
     }
 
+    /**
+     * Add a transaction to the currently open ones
+     *
+     * @param tx
+     */
+    static void register(final Transaction tx) {
+        transactions.put(tx.getId(), tx);
+        expiries.schedule(tx);
+    }
+
     /**
      * Create a new Transaction and add it to the currently open ones
      *
@@ -123,12 +152,9 @@ public class TransactionServiceImpl extends AbstractService implements Transacti
     public Transaction beginTransaction(final Session sess, final String userName) {
         final Transaction tx = new TransactionImpl(sess, userName);
         final String txId = tx.getId();
-        transactions.put(txId, tx);
-        try {
-            sess.setNamespacePrefix(FCREPO4_TX_ID, txId);
-        } catch (final RepositoryException e) {
-            throw new RepositoryRuntimeException(e);
-        }
+        register(tx);
+        sessionTransactions.put(sess, txId);
+        renew(tx);
         return tx;
     }
 
@@ -139,6 +165,10 @@ public class TransactionServiceImpl extends AbstractService implements Transacti
         final Transaction tx = transactions.get(txId);
 
         if (tx == null) {
+            final String owner = clusterRegistry == null ? null : clusterRegistry.ownerOf(txId);
+            if (owner != null) {
+                throw new RemoteTransactionException(txId, owner);
+            }
             throw new TransactionMissingException(
                     "Transaction is not available");
         }
@@ -147,6 +177,8 @@ public class TransactionServiceImpl extends AbstractService implements Transacti
             throw new TransactionMissingException("Transaction with id " +
                         txId + " is not available for user " + userName);
         }
+        tx.updateExpiryDate();
+        renew(tx);
         return tx;
     }
 
@@ -184,15 +216,10 @@ public class TransactionServiceImpl extends AbstractService implements Transacti
      * @return the current Transaction ID for the given session
      */
     public static String getCurrentTransactionId(final Session session) {
-        try {
-            if (session instanceof TxSession) {
-                return ((TxSession) session).getTxId();
-            }
-            return session.getNamespaceURI(FCREPO4_TX_ID);
-        } catch (final RepositoryException e) {
-            LOGGER.trace("Unable to retrieve current transaction ID from session", e);
-            return null;
+        if (session instanceof TxSession) {
+            return ((TxSession) session).getTxId();
         }
+        return sessionTransactions.get(session);
     }
 
     /**
@@ -218,6 +245,7 @@ public class TransactionServiceImpl extends AbstractService implements Transacti
             throw new TransactionMissingException("Transaction with id " + txid +
                     " is not available");
         }
+        unregister(txid);
         tx.commit();
         return tx;
     }
@@ -235,8 +263,20 @@ public class TransactionServiceImpl extends AbstractService implements Transacti
             throw new TransactionMissingException("Transaction with id " + txid +
                     " is not available");
         }
+        unregister(txid);
         tx.rollback();
         return tx;
     }
 
+    private void renew(final Transaction tx) {
+        if (clusterRegistry != null) {
+            clusterRegistry.register(tx.getId(), tx.getExpires().getTime());
+        }
+    }
+
+    private void unregister(final String txId) {
+        if (clusterRegistry != null) {
+            clusterRegistry.unregister(txId);
+        }
+    }
 }
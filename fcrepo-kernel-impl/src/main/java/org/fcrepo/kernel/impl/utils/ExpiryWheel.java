@@ -0,0 +1,115 @@
+/**
+ * Copyright 2015 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.kernel.impl.utils;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import com.google.common.base.Function;
+
+/**
+ * A hashed timing wheel for finding items whose deadlines have passed. Items are scheduled into
+ * the slot for the tick of their deadline, without locking; each call to {@link #expire(long)}
+ * visits only the slots for the ticks that have passed since the last call.
+ *
+ * Deadlines may move after an item is scheduled: an item found in a slot before its current
+ * deadline is scheduled again, rather than moved each time its deadline changes. So extending a
+ * deadline costs nothing here, and an item is looked at about once per deadline extension, or
+ * once per turn of the wheel for deadlines further out than that.
+ *
+ * @author agent
+ * @param <T> the type of item
+ */
+public class ExpiryWheel<T> {
+
+    private final long tickMillis;
+
+    private final Queue<T>[] slots;
+
+    private final Function<T, Long> deadline;
+
+    private volatile long lastTick;
+
+    /**
+     * @param tickMillis how many milliseconds each slot covers
+     * @param size how many slots the wheel has
+     * @param deadline the current deadline of an item, in milliseconds since the epoch
+     * @param now the current time, in milliseconds since the epoch
+     */
+    @SuppressWarnings("unchecked")
+    public ExpiryWheel(final long tickMillis, final int size, final Function<T, Long> deadline, final long now) {
+        checkArgument(tickMillis > 0, "Ticks must be positive!");
+        checkArgument(size > 0, "The wheel must have slots!");
+        this.tickMillis = tickMillis;
+        this.deadline = deadline;
+        this.slots = new Queue[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.lastTick = now / tickMillis - 1;
+    }
+
+    /**
+     * Schedule an item for its current deadline
+     *
+     * @param item
+     */
+    public void schedule(final T item) {
+        // a deadline already passed goes in the slot expire() will look at next
+        final long tick = Math.max(deadline.apply(item) / tickMillis, lastTick);
+        slots[slot(tick)].offer(item);
+    }
+
+    /**
+     * Remove and return the items whose deadlines have passed. Only one thread should call this
+     * at a time.
+     *
+     * @param now the current time, in milliseconds since the epoch
+     * @return the expired items
+     */
+    public synchronized List<T> expire(final long now) {
+        final List<T> expired = new ArrayList<>();
+        final long nowTick = now / tickMillis;
+        // the last slot visited is visited again, in case an item was scheduled into it while
+        // it was being visited; a wheel left for more than a turn needs only one turn to catch up
+        final long lastVisit = Math.min(nowTick, lastTick + slots.length - 1);
+        for (long tick = lastTick; tick <= lastVisit; tick++) {
+            final Queue<T> slot = slots[slot(tick)];
+            // items scheduled again into this slot wait for its next visit
+            for (int remaining = slot.size(); remaining > 0; remaining--) {
+                final T item = slot.poll();
+                if (item == null) {
+                    break;
+                }
+                if (deadline.apply(item) <= now) {
+                    expired.add(item);
+                } else {
+                    schedule(item);
+                }
+            }
+        }
+        lastTick = nowTick;
+        return expired;
+    }
+
+    private int slot(final long tick) {
+        return (int) (tick % slots.length);
+    }
+}
@@ -17,7 +17,6 @@ package org.fcrepo.kernel.impl;
 
 import static com.hp.hpl.jena.rdf.model.ModelFactory.createDefaultModel;
 import static java.util.Calendar.JULY;
-import static org.apache.commons.codec.digest.DigestUtils.shaHex;
 import static org.fcrepo.kernel.FedoraJcrTypes.FEDORA_PAIRTREE;
 import static org.fcrepo.kernel.FedoraJcrTypes.FEDORA_TOMBSTONE;
 import static org.fcrepo.kernel.FedoraJcrTypes.FROZEN_NODE;
@@ -33,6 +32,7 @@ import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
@@ -53,9 +53,11 @@ import javax.jcr.version.Version;
 import javax.jcr.version.VersionHistory;
 import javax.jcr.version.VersionManager;
 
+import org.fcrepo.kernel.TxSession;
 import org.fcrepo.kernel.exception.RepositoryRuntimeException;
 import org.fcrepo.kernel.models.FedoraResource;
 import org.fcrepo.kernel.identifiers.IdentifierConverter;
+import org.fcrepo.kernel.impl.identifiers.ResourcePathCache;
 import org.fcrepo.kernel.impl.rdf.JcrRdfTools;
 import org.fcrepo.kernel.impl.rdf.impl.DefaultIdentifierTranslator;
 import org.fcrepo.kernel.impl.testutilities.TestPropertyIterator;
@@ -312,9 +314,77 @@ public class FedoraResourceImplTest {
         when(mockNode.getProperty(JCR_LASTMODIFIED)).thenReturn(mockMod);
         when(mockMod.getDate()).thenReturn(modDate);
 
-        assertEquals(shaHex("some-path"
-                + testObj.getLastModifiedDate().getTime()), testObj
-                .getEtagValue());
+        assertEquals(Long.toHexString(modDate.getTimeInMillis()) + "-"
+                + Integer.toHexString("some-path".hashCode()), testObj.getEtagValue());
+    }
+
+    @Test
+    public void shouldChangeEtagWhenModified() throws RepositoryException {
+        final Property mockMod = mock(Property.class);
+        final Calendar modDate = Calendar.getInstance();
+        when(mockNode.hasProperty(JCR_LASTMODIFIED)).thenReturn(true);
+        when(mockNode.getProperty(JCR_LASTMODIFIED)).thenReturn(mockMod);
+        when(mockMod.getDate()).thenReturn(modDate);
+
+        final String etag = testObj.getEtagValue();
+        final Calendar laterDate = (Calendar) modDate.clone();
+        laterDate.add(Calendar.MILLISECOND, 1);
+        when(mockMod.getDate()).thenReturn(laterDate);
+
+        assertNotEquals(etag, testObj.getEtagValue());
+    }
+
+    @Test
+    public void shouldGetEmptyEtagWithoutDates() throws RepositoryException {
+        when(mockNode.hasProperty(JCR_LASTMODIFIED)).thenReturn(false);
+        when(mockNode.hasProperty(JCR_CREATED)).thenReturn(false);
+        assertEquals("", testObj.getEtagValue());
+    }
+
+    @Test
+    public void testMemoizedStateIsReadOnce() throws RepositoryException {
+        final Property mockMod = mock(Property.class);
+        final Calendar modDate = Calendar.getInstance();
+        when(mockNode.hasProperty(JCR_LASTMODIFIED)).thenReturn(true);
+        when(mockNode.getProperty(JCR_LASTMODIFIED)).thenReturn(mockMod);
+        when(mockMod.getDate()).thenReturn(modDate);
+        when(mockNode.isNodeType(FEDORA_PAIRTREE)).thenReturn(true);
+
+        ((FedoraResourceImpl) testObj).memoizeState();
+
+        final String etag = testObj.getEtagValue();
+        assertEquals(etag, testObj.getEtagValue());
+        assertEquals(modDate.getTimeInMillis(), testObj.getLastModifiedDate().getTime());
+        assertEquals(modDate.getTimeInMillis(), testObj.getLastModifiedDate().getTime());
+        assertTrue(testObj.hasType(FEDORA_PAIRTREE));
+        assertTrue(testObj.hasType(FEDORA_PAIRTREE));
+
+        verify(mockNode).getPath();
+        verify(mockNode).getProperty(JCR_LASTMODIFIED);
+        verify(mockNode).isNodeType(FEDORA_PAIRTREE);
+    }
+
+    @Test
+    public void testMemoizedPropertyIsReadOnce() throws RepositoryException {
+        final Property mockProp = mock(Property.class);
+        when(mockNode.getProperty("dc:title")).thenReturn(mockProp);
+
+        ((FedoraResourceImpl) testObj).memoizeState();
+
+        assertEquals(mockProp, testObj.getProperty("dc:title"));
+        assertEquals(mockProp, testObj.getProperty("dc:title"));
+        assertTrue(testObj.hasProperty("dc:title"));
+
+        verify(mockNode).getProperty("dc:title");
+        verify(mockNode, never()).hasProperty("dc:title");
+    }
+
+    @Test
+    public void testUnmemoizedStateIsReadEachTime() throws RepositoryException {
+        when(mockNode.isNodeType(FEDORA_PAIRTREE)).thenReturn(true);
+        testObj.hasType(FEDORA_PAIRTREE);
+        testObj.hasType(FEDORA_PAIRTREE);
+        verify(mockNode, times(2)).isNodeType(FEDORA_PAIRTREE);
     }
 
     @Test
@@ -337,6 +407,56 @@ public class FedoraResourceImplTest {
         assertEquals(new FedoraResourceImpl(mockContainer), actual);
     }
 
+    @Test
+    public void testGetContainerFromPathCache() throws RepositoryException {
+        final ResourcePathCache pathCache = ResourcePathCache.getInstance();
+        pathCache.setMaximumSize(10);
+        try {
+            when(mockNode.getParent()).thenReturn(mockChild);
+            when(mockNode.getDepth()).thenReturn(3);
+            when(mockNode.getPath()).thenReturn("/a/b/c");
+            when(mockNode.getIdentifier()).thenReturn("id-c");
+            when(mockChild.getParent()).thenReturn(mockContainer);
+            when(mockChild.getDepth()).thenReturn(2);
+            when(mockChild.isNodeType(FEDORA_PAIRTREE)).thenReturn(true);
+            when(mockContainer.getDepth()).thenReturn(1);
+            when(mockContainer.getPath()).thenReturn("/a");
+            when(mockContainer.getIdentifier()).thenReturn("id-a");
+            when(mockSession.getNodeByIdentifier("id-a")).thenReturn(mockContainer);
+
+            assertEquals(new FedoraResourceImpl(mockContainer), testObj.getContainer());
+            assertEquals(new FedoraResourceImpl(mockContainer), testObj.getContainer());
+            verify(mockNode).getParent();
+            verify(mockChild).getParent();
+        } finally {
+            pathCache.setMaximumSize(0);
+        }
+    }
+
+    @Test
+    public void testGetContainerNotCachedInTransaction() throws RepositoryException {
+        final ResourcePathCache pathCache = ResourcePathCache.getInstance();
+        pathCache.setMaximumSize(10);
+        try {
+            final TxSession mockTxSession = mock(TxSession.class);
+            when(mockTxSession.getTxId()).thenReturn("tx");
+            when(mockNode.getSession()).thenReturn(mockTxSession);
+            when(mockNode.getParent()).thenReturn(mockContainer);
+            when(mockNode.getDepth()).thenReturn(2);
+            when(mockNode.getPath()).thenReturn("/a/b");
+            when(mockNode.getIdentifier()).thenReturn("id-b");
+            when(mockContainer.getDepth()).thenReturn(1);
+            when(mockContainer.getIdentifier()).thenReturn("id-a");
+
+            assertEquals(new FedoraResourceImpl(mockContainer), testObj.getContainer());
+            assertEquals(new FedoraResourceImpl(mockContainer), testObj.getContainer());
+            verify(mockNode, times(2)).getParent();
+            assertNull(pathCache.getContainer("/a/b"));
+        } finally {
+            pathCache.setMaximumSize(0);
+        }
+    }
+
     @Test
     public void testGetChild() throws RepositoryException {
         when(mockNode.getNode("xyz")).thenReturn(mockChild);
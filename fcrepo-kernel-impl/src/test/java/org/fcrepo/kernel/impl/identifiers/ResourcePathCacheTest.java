@@ -0,0 +1,149 @@
+/**
+ * Copyright 2015 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.kernel.impl.identifiers;
+
+import static javax.jcr.observation.Event.NODE_REMOVED;
+import static javax.jcr.observation.Event.PROPERTY_CHANGED;
+import static org.fcrepo.kernel.FedoraJcrTypes.JCR_MIXIN_TYPES;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.observation.Event;
+
+import org.fcrepo.kernel.observer.FedoraEvent;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+/**
+ * <p>ResourcePathCacheTest class.</p>
+ *
+ * @author agent
+ */
+public class ResourcePathCacheTest {
+
+    @Mock
+    private Event mockEvent;
+
+    private ResourcePathCache testObj;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+        testObj = new ResourcePathCache(100);
+    }
+
+    @Test
+    public void testDisabled() {
+        final ResourcePathCache disabled = new ResourcePathCache(0);
+        assertFalse(disabled.isEnabled());
+        disabled.put("/a", "id-a", null);
+        assertNull(disabled.get("/a"));
+        assertEquals(0, disabled.size());
+    }
+
+    @Test
+    public void testGetAndPut() {
+        assertTrue(testObj.isEnabled());
+        assertNull(testObj.get("/a"));
+        testObj.put("/a", "id-a", null);
+        assertEquals("id-a", testObj.get("/a").getIdentifier());
+        assertNull(testObj.get("/a").getVersionedIdentifier());
+    }
+
+    @Test
+    public void testPutVersion() {
+        testObj.put("/a/fcr:versions/v1", "id-frozen", "id-a");
+        assertEquals("id-frozen", testObj.get("/a/fcr:versions/v1").getIdentifier());
+        assertEquals("id-a", testObj.get("/a/fcr:versions/v1").getVersionedIdentifier());
+    }
+
+    @Test
+    public void testContainer() {
+        assertNull(testObj.getContainer("/a/b/c"));
+        testObj.put("/a/b/c", "id-c", null);
+        assertNull(testObj.getContainer("/a/b/c"));
+        testObj.putContainer("/a/b/c", "id-c", "id-a");
+        assertEquals("id-a", testObj.getContainer("/a/b/c"));
+        assertEquals("id-c", testObj.get("/a/b/c").getIdentifier());
+    }
+
+    @Test
+    public void testInvalidate() {
+        testObj.put("/a/b", "id-b", null);
+        testObj.put("/a/b/c", "id-c", null);
+        testObj.put("/a/b/fcr:versions/v1", "id-frozen", "id-b");
+        testObj.put("/a/bc", "id-bc", null);
+        testObj.put("/a", "id-a", null);
+
+        testObj.invalidate("/a/b");
+
+        assertNull(testObj.get("/a/b"));
+        assertNull(testObj.get("/a/b/c"));
+        assertNull(testObj.get("/a/b/fcr:versions/v1"));
+        assertNotNull(testObj.get("/a/bc"));
+        assertNotNull(testObj.get("/a"));
+    }
+
+    @Test
+    public void testInvalidateRoot() {
+        testObj.put("/a", "id-a", null);
+        testObj.invalidate("/");
+        assertEquals(0, testObj.size());
+    }
+
+    @Test
+    public void testInvalidateOnRemoval() throws RepositoryException {
+        testObj.put("/a/b", "id-b", null);
+        when(mockEvent.getType()).thenReturn(NODE_REMOVED);
+        when(mockEvent.getPath()).thenReturn("/a/b");
+        testObj.invalidate(new FedoraEvent(mockEvent));
+        assertNull(testObj.get("/a/b"));
+    }
+
+    @Test
+    public void testPropertyChangeKeepsPaths() throws RepositoryException {
+        testObj.put("/a/b", "id-b", null);
+        when(mockEvent.getType()).thenReturn(PROPERTY_CHANGED);
+        when(mockEvent.getPath()).thenReturn("/a/b/dc:title");
+        testObj.invalidate(new FedoraEvent(mockEvent).addProperty("dc:title"));
+        assertNotNull(testObj.get("/a/b"));
+    }
+
+    @Test
+    public void testMixinChangeInvalidates() throws RepositoryException {
+        testObj.put("/a/b/c", "id-c", null);
+        when(mockEvent.getType()).thenReturn(PROPERTY_CHANGED);
+        when(mockEvent.getPath()).thenReturn("/a/b/" + JCR_MIXIN_TYPES);
+        testObj.invalidate(new FedoraEvent(mockEvent).addProperty(JCR_MIXIN_TYPES));
+        assertNull(testObj.get("/a/b/c"));
+    }
+
+    @Test
+    public void testResize() {
+        testObj.put("/a", "id-a", null);
+        testObj.setMaximumSize(10);
+        assertNull(testObj.get("/a"));
+        testObj.setMaximumSize(0);
+        assertFalse(testObj.isEnabled());
+    }
+}
@@ -0,0 +1,118 @@
+/**
+ * Copyright 2015 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.kernel.impl.services;
+
+import static java.lang.System.currentTimeMillis;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import org.infinispan.Cache;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+
+/**
+ * <p>ClusterTransactionRegistryTest class.</p>
+ *
+ * @author agent
+ */
+public class ClusterTransactionRegistryTest {
+
+    private static final String NODE = "http://node1:8080";
+
+    private static final String OTHER_NODE = "http://node2:8080";
+
+    private static final long TIMEOUT = 180000L;
+
+    @Mock
+    private Cache<String, String> mockOwners;
+
+    private ClusterTransactionRegistry testObj;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+        testObj = new ClusterTransactionRegistry(mockOwners, NODE);
+    }
+
+    @Test
+    public void testRegister() {
+        testObj.register("123", currentTimeMillis() + TIMEOUT);
+        final ArgumentCaptor<Long> lifespan = ArgumentCaptor.forClass(Long.class);
+        verify(mockOwners).put(eq("123"), eq(NODE), lifespan.capture(), eq(MILLISECONDS));
+        assertTrue(lifespan.getValue() > 0 && lifespan.getValue() <= TIMEOUT);
+        testObj.unregister("123");
+        verify(mockOwners).remove("123");
+    }
+
+    @Test
+    public void testRenewal() {
+        final long now = currentTimeMillis();
+        testObj.register("123", now + TIMEOUT);
+        // a renewal soon after the last one leaves the recorded entry alone
+        testObj.register("123", now + TIMEOUT + 1000L);
+        verify(mockOwners).put(eq("123"), eq(NODE), anyLong(), eq(MILLISECONDS));
+        // one past half of the recorded lifespan records the transaction again
+        testObj.register("123", now + 2 * TIMEOUT);
+        verify(mockOwners, times(2)).put(eq("123"), eq(NODE), anyLong(), eq(MILLISECONDS));
+    }
+
+    @Test
+    public void testRegisterAgainAfterUnregister() {
+        final long expires = currentTimeMillis() + TIMEOUT;
+        testObj.register("123", expires);
+        testObj.unregister("123");
+        testObj.register("123", expires);
+        verify(mockOwners, times(2)).put(eq("123"), eq(NODE), anyLong(), eq(MILLISECONDS));
+    }
+
+    @Test
+    public void testOwnerOf() {
+        when(mockOwners.get("123")).thenReturn(OTHER_NODE);
+        assertEquals(OTHER_NODE, testObj.ownerOf("123"));
+    }
+
+    @Test
+    public void testOwnerOfLocalTransaction() {
+        when(mockOwners.get("123")).thenReturn(NODE);
+        assertNull(testObj.ownerOf("123"));
+    }
+
+    @Test
+    public void testOwnerOfUnknownTransaction() {
+        assertNull(testObj.ownerOf("123"));
+    }
+
+    @Test
+    public void testDisabledWithoutNodeUrl() {
+        final ClusterTransactionRegistry disabled = new ClusterTransactionRegistry((Cache<String, String>) null, "");
+        disabled.start();
+        assertFalse(disabled.isEnabled());
+        disabled.register("123", currentTimeMillis() + TIMEOUT);
+        assertNull(disabled.ownerOf("123"));
+        assertTrue(testObj.isEnabled());
+    }
+}
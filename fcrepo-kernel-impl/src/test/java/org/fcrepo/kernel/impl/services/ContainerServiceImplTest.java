@@ -17,12 +17,14 @@ package org.fcrepo.kernel.impl.services;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 import static org.modeshape.jcr.api.JcrConstants.NT_FOLDER;
 
 import javax.jcr.Node;
+import javax.jcr.PathNotFoundException;
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
 import javax.jcr.nodetype.NodeType;
@@ -55,6 +57,9 @@ public class ContainerServiceImplTest implements FedoraJcrTypes {
     @Mock
     private Node mockParent;
 
+    @Mock
+    private Node mockSibling;
+
     @Mock
     private NodeType mockNodeType;
 
@@ -113,6 +118,38 @@ public class ContainerServiceImplTest implements FedoraJcrTypes {
     }
 
 
+    @Test
+    public void testCreateObjectUnderKnownParent() throws Exception {
+        when(mockNode.getParent()).thenReturn(mockParent);
+        when(mockParent.getParent()).thenReturn(mockRoot);
+        when(mockRoot.hasNode("foo")).thenReturn(true);
+        when(mockRoot.getNode("foo")).thenReturn(mockParent);
+        when(mockRoot.getNode("foo/bar")).thenReturn(mockNode);
+        when(mockSession.getNode("/foo")).thenReturn(mockParent);
+        when(mockParent.addNode("baz", NT_FOLDER)).thenReturn(mockSibling);
+
+        testObj.findOrCreate(mockSession, "/foo/bar");
+        final Node actual = testObj.findOrCreate(mockSession, "/foo/baz").getNode();
+        assertEquals(mockSibling, actual);
+        verify(mockSession, times(1)).nodeExists("/foo");
+    }
+
+    @Test
+    public void testCreateObjectUnderStaleParent() throws Exception {
+        when(mockNode.getParent()).thenReturn(mockParent);
+        when(mockParent.getParent()).thenReturn(mockRoot);
+        when(mockRoot.hasNode("foo")).thenReturn(true);
+        when(mockRoot.getNode("foo")).thenReturn(mockParent);
+        when(mockRoot.getNode("foo/bar")).thenReturn(mockNode);
+        when(mockSession.getNode("/foo")).thenThrow(new PathNotFoundException());
+
+        testObj.findOrCreate(mockSession, "/foo/bar");
+        final Node actual = testObj.findOrCreate(mockSession, "/foo/bar").getNode();
+        assertEquals(mockNode, actual);
+        verify(mockSession, times(2)).nodeExists("/foo");
+    }
+
+
     @Test
     public void testGetObject() throws RepositoryException {
         final String testPath = "/foo";
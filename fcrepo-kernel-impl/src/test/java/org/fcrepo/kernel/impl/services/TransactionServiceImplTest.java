@@ -17,24 +17,24 @@ package org.fcrepo.kernel.impl.services;
 
 import static java.lang.System.currentTimeMillis;
 import static org.fcrepo.kernel.Transaction.State.NEW;
-import static org.fcrepo.kernel.impl.services.TransactionServiceImpl.FCREPO4_TX_ID;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
 
 import java.lang.reflect.Field;
 import java.util.Date;
 import java.util.Map;
 
-import javax.jcr.NamespaceException;
-import javax.jcr.RepositoryException;
 import javax.jcr.Session;
 
 import org.fcrepo.kernel.Transaction;
+import org.fcrepo.kernel.exception.RemoteTransactionException;
 import org.fcrepo.kernel.exception.RepositoryRuntimeException;
 import org.fcrepo.kernel.exception.TransactionMissingException;
 import org.fcrepo.kernel.services.TransactionService;
@@ -68,6 +68,9 @@ public class TransactionServiceImplTest {
     @Mock
     private Session mockSession;
 
+    @Mock
+    private ClusterTransactionRegistry mockRegistry;
+
     @Before
     public void setup() throws Exception {
         service = new TransactionServiceImpl();
@@ -87,8 +90,20 @@ public class TransactionServiceImplTest {
     public void testExpiration() {
         final Date fiveSecondsAgo = new Date(currentTimeMillis() - 5000);
         when(mockTx.getExpires()).thenReturn(fiveSecondsAgo);
+        TransactionServiceImpl.register(mockTx);
         service.removeAndRollbackExpired();
         verify(mockTx).rollback();
+        assertFalse(service.exists(IS_A_TX));
+    }
+
+    @Test
+    public void testNoExpirationBeforeExpiryDate() {
+        final Date inFiveSeconds = new Date(currentTimeMillis() + 5000);
+        when(mockTx.getExpires()).thenReturn(inFiveSeconds);
+        TransactionServiceImpl.register(mockTx);
+        service.removeAndRollbackExpired();
+        verify(mockTx, never()).rollback();
+        assertTrue(service.exists(IS_A_TX));
     }
 
     @Test
@@ -96,6 +111,7 @@ public class TransactionServiceImplTest {
         final Date fiveSecondsAgo = new Date(currentTimeMillis() - 5000);
         doThrow(new RepositoryRuntimeException("")).when(mockTx).rollback();
         when(mockTx.getExpires()).thenReturn(fiveSecondsAgo);
+        TransactionServiceImpl.register(mockTx);
         service.removeAndRollbackExpired();
     }
 
@@ -140,17 +156,50 @@ public class TransactionServiceImplTest {
 
     @Test
     public void testGetTxForSession() throws Exception {
-        when(mockSession.getNamespaceURI(FCREPO4_TX_ID)).thenReturn(IS_A_TX);
-        final Transaction tx = service.getTransaction(mockSession);
-        assertEquals(IS_A_TX, tx.getId());
+        final Transaction tx = service.beginTransaction(mockSession, null);
+        assertEquals(tx.getId(), service.getTransaction(mockSession).getId());
+        assertEquals(tx.getId(), service.getTransaction(tx.getSession()).getId());
     }
 
     @Test(expected = TransactionMissingException.class)
-    public void testGetTxForNonTxSession() throws RepositoryException {
-        when(mockSession.getNamespaceURI(FCREPO4_TX_ID)).thenThrow(new NamespaceException(""));
+    public void testGetTxForNonTxSession() {
         service.getTransaction(mockSession);
     }
 
+    @Test
+    public void testIsInTransaction() {
+        assertFalse(TransactionServiceImpl.isInTransaction(mockSession));
+        final Transaction tx = service.beginTransaction(mockSession, null);
+        assertTrue(TransactionServiceImpl.isInTransaction(mockSession));
+        assertTrue(TransactionServiceImpl.isInTransaction(tx.getSession()));
+    }
+
+    @Test(expected = RemoteTransactionException.class)
+    public void testGetTxOnAnotherNode() {
+        when(mockRegistry.ownerOf(NOT_A_TX)).thenReturn("http://node2:8080");
+        setField(service, "clusterRegistry", mockRegistry);
+        service.getTransaction(NOT_A_TX, null);
+    }
+
+    @Test
+    public void testRegisterTxWithCluster() {
+        setField(service, "clusterRegistry", mockRegistry);
+        final Transaction tx = service.beginTransaction(mockSession, null);
+        verify(mockRegistry).register(tx.getId(), tx.getExpires().getTime());
+        service.rollback(tx.getId());
+        verify(mockRegistry).unregister(tx.getId());
+    }
+
+    @Test
+    public void testRenewTxWithCluster() {
+        setField(service, "clusterRegistry", mockRegistry);
+        final Date expires = new Date(currentTimeMillis() + 5000);
+        when(mockTx.getExpires()).thenReturn(expires);
+        service.getTransaction(IS_A_TX, null);
+        verify(mockTx).updateExpiryDate();
+        verify(mockRegistry).register(IS_A_TX, expires.getTime());
+    }
+
     @Test
     public void testExists() {
         assertTrue(service.exists(IS_A_TX));
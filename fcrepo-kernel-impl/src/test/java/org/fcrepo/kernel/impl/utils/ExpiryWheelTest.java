@@ -0,0 +1,97 @@
+/**
+ * Copyright 2015 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.kernel.impl.utils;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.base.Function;
+
+/**
+ * <p>ExpiryWheelTest class.</p>
+ *
+ * @author agent
+ */
+public class ExpiryWheelTest {
+
+    private static final long START = 100000;
+
+    private ExpiryWheel<AtomicLong> testObj;
+
+    @Before
+    public void setUp() {
+        testObj = new ExpiryWheel<>(1000, 8, new Function<AtomicLong, Long>() {
+
+            @Override
+            public Long apply(final AtomicLong deadline) {
+                return deadline.get();
+            }
+        }, START);
+    }
+
+    @Test
+    public void testExpire() {
+        final AtomicLong item = new AtomicLong(START + 2500);
+        testObj.schedule(item);
+        assertEquals(emptyList(), testObj.expire(START + 1000));
+        assertEquals(emptyList(), testObj.expire(START + 2000));
+        assertEquals(asList(item), testObj.expire(START + 3000));
+        assertEquals(emptyList(), testObj.expire(START + 4000));
+    }
+
+    @Test
+    public void testExtendedDeadline() {
+        final AtomicLong item = new AtomicLong(START + 2500);
+        testObj.schedule(item);
+        item.set(START + 5500);
+        assertEquals(emptyList(), testObj.expire(START + 3000));
+        assertEquals(emptyList(), testObj.expire(START + 5000));
+        assertEquals(asList(item), testObj.expire(START + 6000));
+    }
+
+    @Test
+    public void testPastDeadline() {
+        testObj.expire(START + 5000);
+        final AtomicLong item = new AtomicLong(START);
+        testObj.schedule(item);
+        assertEquals(asList(item), testObj.expire(START + 6000));
+    }
+
+    @Test
+    public void testDeadlineBeyondOneTurn() {
+        final AtomicLong item = new AtomicLong(START + 20500);
+        testObj.schedule(item);
+        for (long now = START + 1000; now <= START + 20000; now += 1000) {
+            assertEquals(emptyList(), testObj.expire(now));
+        }
+        assertEquals(asList(item), testObj.expire(START + 21000));
+    }
+
+    @Test
+    public void testLateExpiry() {
+        final AtomicLong early = new AtomicLong(START + 1500);
+        final AtomicLong late = new AtomicLong(START + 6500);
+        testObj.schedule(early);
+        testObj.schedule(late);
+        assertEquals(asList(early, late), testObj.expire(START + 30000));
+    }
+}
@@ -0,0 +1,44 @@
+/**
+ * Copyright 2015 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.kernel.exception;
+
+/**
+ * A transaction is open, but on another node of the cluster
+ *
+ * @author agent
+ */
+public class RemoteTransactionException extends TransactionMissingException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String owner;
+
+    /**
+     * @param txId the transaction identifier
+     * @param owner the base URL of the node that holds the transaction
+     */
+    public RemoteTransactionException(final String txId, final String owner) {
+        super("Transaction " + txId + " is held by " + owner);
+        this.owner = owner;
+    }
+
+    /**
+     * @return the base URL of the node that holds the transaction
+     */
+    public String getOwner() {
+        return owner;
+    }
+}
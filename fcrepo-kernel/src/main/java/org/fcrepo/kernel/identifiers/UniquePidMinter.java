@@ -0,0 +1,26 @@
+/**
+ * Copyright 2015 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.kernel.identifiers;
+
+/**
+ * A {@link PidMinter} whose PIDs are unique by construction, so that callers
+ * need not look for an existing resource at each new PID before using it.
+ *
+ * @author agent
+ */
+public interface UniquePidMinter extends PidMinter {
+
+}
@@ -169,10 +169,11 @@ public interface FedoraResource {
                                 final RdfStream originalTriples) throws MalformedRdfException;
 
     /**
-         * Construct an ETag value from the last modified date and path. JCR has a
+     * Construct an ETag value from the last modified date and path. JCR has a
      * mix:etag type, but it only takes into account binary properties. We
-     * actually want whole-object etag data. TODO : construct and store an ETag
-     * value on object modify
+     * actually want whole-object etag data. The last modified date is stamped
+     * by the repository on every save, so the value is cheap to derive and
+     * changes whenever the object does.
      *
      * @return constructed etag value
      */
@@ -0,0 +1,277 @@
+/**
+ * Copyright 2015 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.mint;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.System.currentTimeMillis;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+
+import org.fcrepo.kernel.identifiers.PidMinter;
+import org.fcrepo.metrics.RegistryService;
+import org.slf4j.Logger;
+
+import com.codahale.metrics.Meter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * PID minter that serves PIDs from a buffer filled in the background by another, slower minter
+ * (such as an {@link HttpPidMinter}), so that minting does not wait on a remote service.
+ *
+ * Once the buffer falls to its low-water mark, background workers refill it to capacity. If the
+ * remote minter fails repeatedly, a circuit breaker stops calling it for a while, and PIDs come
+ * from a local fallback minter until a trial call succeeds again.
+ *
+ * @author agent
+ */
+public class BufferingPidMinter implements PidMinter {
+
+    private static final Logger log = getLogger(BufferingPidMinter.class);
+
+    static final Meter fallbackMeter = RegistryService.getInstance().getMetrics().meter(
+            name(BufferingPidMinter.class, "fallback"));
+
+    static final Meter failureMeter = RegistryService.getInstance().getMetrics().meter(
+            name(BufferingPidMinter.class, "failures"));
+
+    private static final int DEFAULT_CAPACITY = 1000;
+
+    private static final int DEFAULT_LOW_WATER_MARK = 250;
+
+    private static final int DEFAULT_WORKERS = 4;
+
+    private static final int DEFAULT_FAILURE_THRESHOLD = 5;
+
+    private static final long DEFAULT_RETRY_DELAY = 30000;
+
+    private final PidMinter minter;
+
+    private final PidMinter fallback;
+
+    private final int capacity;
+
+    private final int lowWaterMark;
+
+    private final int workers;
+
+    private final Executor executor;
+
+    private final Queue<String> buffer = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger buffered = new AtomicInteger();
+
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+
+    private final CircuitBreaker breaker;
+
+    /**
+     * Buffer PIDs from a minter using some reasonable defaults
+     *
+     * @param minter the minter to buffer
+     * @param fallback the minter to use while the buffered minter is failing
+     */
+    public BufferingPidMinter(final PidMinter minter, final PidMinter fallback) {
+        this(minter, fallback, DEFAULT_CAPACITY, DEFAULT_LOW_WATER_MARK, DEFAULT_WORKERS,
+                DEFAULT_FAILURE_THRESHOLD, DEFAULT_RETRY_DELAY);
+    }
+
+    /**
+     * @param minter the minter to buffer
+     * @param fallback the minter to use while the buffered minter is failing
+     * @param capacity how many PIDs to buffer
+     * @param lowWaterMark how few PIDs may remain buffered before refilling
+     * @param workers how many calls to make to the buffered minter at once
+     * @param failureThreshold how many consecutive failures open the circuit breaker
+     * @param retryDelay how long, in milliseconds, to wait before trying an open circuit again
+     */
+    public BufferingPidMinter(final PidMinter minter, final PidMinter fallback, final int capacity,
+            final int lowWaterMark, final int workers, final int failureThreshold, final long retryDelay) {
+        this(minter, fallback, capacity, lowWaterMark, workers, failureThreshold, retryDelay,
+                newFixedThreadPool(workers, daemonThreads()));
+    }
+
+    BufferingPidMinter(final PidMinter minter, final PidMinter fallback, final int capacity,
+            final int lowWaterMark, final int workers, final int failureThreshold, final long retryDelay,
+            final Executor executor) {
+        checkArgument(capacity > 0, "Capacity must be positive!");
+        checkArgument(lowWaterMark >= 0 && lowWaterMark < capacity, "Low-water mark must be below capacity!");
+        checkArgument(workers > 0, "There must be at least one worker!");
+        this.minter = minter;
+        this.fallback = fallback;
+        this.capacity = capacity;
+        this.lowWaterMark = lowWaterMark;
+        this.workers = workers;
+        this.breaker = new CircuitBreaker(failureThreshold, retryDelay);
+        this.executor = executor;
+        refill();
+    }
+
+    /**
+     * Take a buffered PID, or mint one directly if the buffer is empty.
+     *
+     * @return a new identifier
+     */
+    @Override
+    public String mintPid() {
+        String pid = buffer.poll();
+        if (pid == null) {
+            refill();
+            pid = buffer.poll();
+        }
+        if (pid != null) {
+            if (buffered.decrementAndGet() <= lowWaterMark) {
+                refill();
+            }
+            return pid;
+        }
+        if (breaker.allowsCall()) {
+            try {
+                final String minted = minter.mintPid();
+                breaker.succeeded();
+                return minted;
+            } catch (final RuntimeException e) {
+                failed(e);
+            }
+        }
+        fallbackMeter.mark();
+        return fallback.mintPid();
+    }
+
+    /**
+     * @return how many PIDs are buffered
+     */
+    public int buffered() {
+        return buffered.get();
+    }
+
+    /**
+     * Stop the background workers
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (executor instanceof ExecutorService) {
+            ((ExecutorService) executor).shutdownNow();
+        }
+    }
+
+    private void refill() {
+        // while the breaker is open, only mintPid makes the trial call that may close it
+        while (buffered.get() < capacity && breaker.isClosed()) {
+            final int active = activeWorkers.get();
+            if (active >= workers) {
+                return;
+            }
+            if (activeWorkers.compareAndSet(active, active + 1)) {
+                executor.execute(new Worker());
+            }
+        }
+    }
+
+    private void failed(final RuntimeException e) {
+        failureMeter.mark();
+        log.warn("Error minting PID with {}: {}", minter, e.getMessage());
+        breaker.failed();
+    }
+
+    private static ThreadFactory daemonThreads() {
+        return new ThreadFactoryBuilder().setDaemon(true).setNameFormat("pid-minter-%d").build();
+    }
+
+    /**
+     * Mints into the buffer until it is full or the minter fails.
+     */
+    private class Worker implements Runnable {
+
+        @Override
+        public void run() {
+            try {
+                while (buffered.get() < capacity && breaker.isClosed()) {
+                    final String pid = minter.mintPid();
+                    breaker.succeeded();
+                    buffer.offer(pid);
+                    buffered.incrementAndGet();
+                }
+            } catch (final RuntimeException e) {
+                failed(e);
+            } finally {
+                activeWorkers.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Opens after a run of consecutive failures; once the retry delay has passed, lets a single
+     * trial call through, which either closes it again or restarts the delay.
+     */
+    static class CircuitBreaker {
+
+        private final int failureThreshold;
+
+        private final long retryDelay;
+
+        private final AtomicInteger failures = new AtomicInteger();
+
+        private volatile long retryAt = 0;
+
+        CircuitBreaker(final int failureThreshold, final long retryDelay) {
+            this.failureThreshold = failureThreshold;
+            this.retryDelay = retryDelay;
+        }
+
+        boolean isClosed() {
+            return failures.get() < failureThreshold;
+        }
+
+        boolean allowsCall() {
+            if (isClosed()) {
+                return true;
+            }
+            final long retry = retryAt;
+            final long now = currentTimeMillis();
+            // only the caller that moves the retry time forward gets the trial call
+            return now >= retry && compareAndSetRetryAt(retry, now + retryDelay);
+        }
+
+        private synchronized boolean compareAndSetRetryAt(final long expected, final long next) {
+            if (retryAt != expected) {
+                return false;
+            }
+            retryAt = next;
+            return true;
+        }
+
+        void succeeded() {
+            failures.set(0);
+        }
+
+        void failed() {
+            if (failures.incrementAndGet() == failureThreshold) {
+                log.warn("PID minter failed {} times in a row; using the fallback minter", failureThreshold);
+                retryAt = currentTimeMillis() + retryDelay;
+            }
+        }
+    }
+}
@@ -31,6 +31,7 @@ import org.w3c.dom.Document;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.xpath.XPathException;
 import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathFactory;
@@ -67,6 +68,18 @@ public class HttpPidMinter implements PidMinter {
     private final String regex;
     private XPathExpression xpath;
 
+    private static final ThreadLocal<DocumentBuilder> documentBuilders = new ThreadLocal<DocumentBuilder>() {
+
+        @Override
+        protected DocumentBuilder initialValue() {
+            try {
+                return DocumentBuilderFactory.newInstance().newDocumentBuilder();
+            } catch ( ParserConfigurationException ex ) {
+                throw new IllegalStateException("Unable to create an XML parser", ex);
+            }
+        }
+    };
+
     protected HttpClient client;
 
     /**
@@ -150,12 +163,17 @@ public class HttpPidMinter implements PidMinter {
     }
 
     /**
-     * Extract the desired identifier value from an XML response using XPath
+     * Extract the desired identifier value from an XML response using XPath. Parsers are reused
+     * per thread, and the compiled expression, which is not thread-safe, is evaluated by one
+     * thread at a time, so that PIDs may be minted from several threads at once.
     **/
     private static String xpath( final String xml, final XPathExpression xpath ) throws Exception {
-        final DocumentBuilder builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+        final DocumentBuilder builder = documentBuilders.get();
+        builder.reset();
         final Document doc = builder.parse(new ByteArrayInputStream(xml.getBytes()));
-        return xpath.evaluate(doc);
+        synchronized (xpath) {
+            return xpath.evaluate(doc);
+        }
     }
 
     /**
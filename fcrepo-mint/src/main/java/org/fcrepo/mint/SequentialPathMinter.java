@@ -0,0 +1,142 @@
+/**
+ * Copyright 2015 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.mint;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static com.google.common.base.Joiner.on;
+import static com.google.common.base.Splitter.fixedLength;
+import static java.lang.Long.toHexString;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.fcrepo.kernel.identifiers.UniquePidMinter;
+import org.fcrepo.metrics.RegistryService;
+
+import com.codahale.metrics.Timer;
+
+/**
+ * PID minter that creates hierarchical IDs which are unique by construction: each ID joins a
+ * random prefix, chosen once per minter, to a counter, so no two IDs from one minter are alike
+ * and IDs from different minters differ in their prefixes.
+ *
+ * Consecutive IDs share their branch nodes, which change once per block of IDs; branches are
+ * scattered like those of {@link UUIDPathMinter}, but each is created once per block rather
+ * than for nearly every ID.
+ *
+ * @author agent
+ */
+public class SequentialPathMinter implements UniquePidMinter {
+
+    static final Timer timer = RegistryService.getInstance().getMetrics().timer(
+            name(SequentialPathMinter.class, "mint"));
+
+    private static final int DEFAULT_LENGTH = 2;
+
+    private static final int DEFAULT_COUNT = 4;
+
+    private static final int DEFAULT_BLOCK_BITS = 10;
+
+    private final int length;
+
+    private final int count;
+
+    private final int blockBits;
+
+    private final long prefix;
+
+    private final AtomicLong counter = new AtomicLong();
+
+    /**
+     * Configure the path minter using some reasonable defaults for the length
+     * and count of the branch nodes
+     */
+    public SequentialPathMinter() {
+        this(DEFAULT_LENGTH, DEFAULT_COUNT);
+    }
+
+    /**
+     * Configure the path minter for the length of the keys and depth of the
+     * branch node prefix
+     *
+     * @param length how long the branch node identifiers should be
+     * @param count how many branch nodes should be inserted
+     */
+    public SequentialPathMinter(final int length, final int count) {
+        this(length, count, DEFAULT_BLOCK_BITS, new SecureRandom().nextLong());
+    }
+
+    SequentialPathMinter(final int length, final int count, final int blockBits, final long prefix) {
+        this.length = length;
+        this.count = count;
+        this.blockBits = blockBits;
+        this.prefix = prefix;
+    }
+
+    /**
+     * Mint a unique identifier
+     *
+     * @return the identifier, with branch nodes if configured
+     */
+    @Override
+    public String mintPid() {
+
+        try (final Timer.Context context = timer.time()) {
+            final long next = counter.getAndIncrement();
+            final String s = new UUID(prefix, next).toString();
+
+            if (length == 0 || count == 0) {
+                return s;
+            }
+
+            final String branch = branchKey(next >>> blockBits);
+            final Iterable<String> split = fixedLength(length).split(branch.substring(0, length * count));
+
+            return on("/").join(split) + "/" + s;
+        }
+    }
+
+    /**
+     * Scatter blocks across branches, repeating the key as needed to fill the requested depth.
+     */
+    private String branchKey(final long block) {
+        final StringBuilder key = new StringBuilder();
+        long seed = prefix ^ block;
+        while (key.length() < length * count) {
+            seed = mix(seed);
+            final String hex = toHexString(seed);
+            for (int i = hex.length(); i < 16; i++) {
+                key.append('0');
+            }
+            key.append(hex);
+        }
+        return key.toString();
+    }
+
+    /**
+     * The MurmurHash3 64-bit finalizer
+     */
+    private static long mix(final long value) {
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
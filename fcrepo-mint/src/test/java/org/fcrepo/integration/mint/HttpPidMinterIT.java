@@ -15,7 +15,9 @@
  */
 package org.fcrepo.integration.mint;
 
+import org.fcrepo.mint.BufferingPidMinter;
 import org.fcrepo.mint.HttpPidMinter;
+import org.fcrepo.mint.UUIDPidMinter;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.test.context.ContextConfiguration;
@@ -155,5 +157,29 @@ public class HttpPidMinterIT{
         minter.mintPid();
     }
 
-}
+    @Test
+    public void shouldMintBufferedPid() {
+        final String res = "/buffered";
+        final String server = PREFIX + getPort() + res;
+        addHandler("abc", res);
+        final BufferingPidMinter minter = new BufferingPidMinter(
+                new HttpPidMinter(server, "POST", "", "", ".*/", null), new UUIDPidMinter(), 10, 5, 2, 3, 1000);
+        try {
+            assertEquals("abc", minter.mintPid());
+        } finally {
+            minter.shutdown();
+        }
+    }
 
+    @Test
+    public void shouldFallBackWhenMinterIsDown() {
+        final BufferingPidMinter minter = new BufferingPidMinter(
+                new HttpPidMinter("http://localhost:1/minter", "POST", "", "", ".*/", null), new UUIDPidMinter(),
+                10, 5, 2, 3, 1000);
+        try {
+            assertEquals(36, minter.mintPid().length());
+        } finally {
+            minter.shutdown();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/**
+ * Copyright 2015 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.mint;
+
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.util.concurrent.Executor;
+
+import org.fcrepo.kernel.identifiers.PidMinter;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+/**
+ * <p>BufferingPidMinterTest class.</p>
+ *
+ * @author agent
+ */
+public class BufferingPidMinterTest {
+
+    @Mock
+    private PidMinter mockMinter;
+
+    @Mock
+    private PidMinter mockFallback;
+
+    @Mock
+    private Executor mockExecutor;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+        when(mockMinter.mintPid()).thenReturn("a", "b", "c", "d", "e", "f");
+        when(mockFallback.mintPid()).thenReturn("local");
+    }
+
+    @Test
+    public void testFillsBufferOnCreation() {
+        final BufferingPidMinter testObj = new BufferingPidMinter(mockMinter, mockFallback, 3, 1, 1, 2, 1000,
+                directExecutor());
+        assertEquals(3, testObj.buffered());
+        verify(mockMinter, times(3)).mintPid();
+        assertEquals("a", testObj.mintPid());
+        assertEquals(2, testObj.buffered());
+    }
+
+    @Test
+    public void testRefillsAtLowWaterMark() {
+        final BufferingPidMinter testObj = new BufferingPidMinter(mockMinter, mockFallback, 3, 1, 1, 2, 1000,
+                directExecutor());
+        assertEquals("a", testObj.mintPid());
+        verify(mockMinter, times(3)).mintPid();
+        assertEquals("b", testObj.mintPid());
+        verify(mockMinter, times(5)).mintPid();
+        assertEquals(3, testObj.buffered());
+        assertEquals("c", testObj.mintPid());
+        assertEquals("d", testObj.mintPid());
+    }
+
+    @Test
+    public void testMintsDirectlyWhenEmpty() {
+        final BufferingPidMinter testObj = new BufferingPidMinter(mockMinter, mockFallback, 3, 1, 1, 2, 1000,
+                mockExecutor);
+        assertEquals("a", testObj.mintPid());
+        verify(mockFallback, never()).mintPid();
+    }
+
+    @Test
+    public void testFallsBackWhenMinterFails() {
+        when(mockMinter.mintPid()).thenThrow(new RuntimeException("Minter is down"));
+        final BufferingPidMinter testObj = new BufferingPidMinter(mockMinter, mockFallback, 3, 1, 1, 2, 1000,
+                directExecutor());
+        assertEquals("local", testObj.mintPid());
+        assertEquals(0, testObj.buffered());
+    }
+
+    @Test
+    public void testOpenCircuitSkipsMinter() {
+        when(mockMinter.mintPid()).thenThrow(new RuntimeException("Minter is down"));
+        final BufferingPidMinter testObj = new BufferingPidMinter(mockMinter, mockFallback, 3, 1, 1, 2, 60000,
+                directExecutor());
+        verify(mockMinter, times(2)).mintPid();
+        reset(mockMinter);
+        for (int i = 0; i < 10; i++) {
+            assertEquals("local", testObj.mintPid());
+        }
+        verify(mockMinter, never()).mintPid();
+    }
+
+    @Test
+    public void testClosesCircuitAfterRetryDelay() throws InterruptedException {
+        when(mockMinter.mintPid()).thenThrow(new RuntimeException("Minter is down"));
+        final BufferingPidMinter testObj = new BufferingPidMinter(mockMinter, mockFallback, 3, 1, 1, 2, 10,
+                directExecutor());
+        assertEquals("local", testObj.mintPid());
+        reset(mockMinter);
+        when(mockMinter.mintPid()).thenReturn("a", "b", "c", "d");
+        Thread.sleep(20);
+        assertEquals("a", testObj.mintPid());
+        assertEquals("b", testObj.mintPid());
+        verify(mockFallback, times(1)).mintPid();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLowWaterMarkBelowCapacity() {
+        new BufferingPidMinter(mockMinter, mockFallback, 3, 3, 1, 2, 1000, directExecutor());
+    }
+}
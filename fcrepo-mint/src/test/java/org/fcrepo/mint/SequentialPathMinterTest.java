@@ -0,0 +1,85 @@
+/**
+ * Copyright 2015 DuraSpace, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.mint;
+
+import static java.util.regex.Pattern.compile;
+import static org.fcrepo.mint.UUIDPathMinterTest.UUID_PATTERN;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * <p>SequentialPathMinterTest class.</p>
+ *
+ * @author agent
+ */
+public class SequentialPathMinterTest {
+
+    private static final String PID_PATTERN = "^([a-f0-9]{2}/){4}" + UUID_PATTERN + "$";
+
+    @Test
+    public void testMintPid() {
+        final String pid = new SequentialPathMinter().mintPid();
+        assertTrue("PID wasn't a UUID path", compile(PID_PATTERN).matcher(pid).find());
+    }
+
+    @Test
+    public void testMintPidWithoutSegments() {
+        final String pid = new SequentialPathMinter(0, 0).mintPid();
+        assertTrue("PID wasn't a UUID", compile("^" + UUID_PATTERN + "$").matcher(pid).find());
+    }
+
+    @Test
+    public void testMintPidWithDeepSegments() {
+        final String pid = new SequentialPathMinter(4, 6).mintPid();
+        assertTrue("PID wasn't a UUID path",
+                compile("^([a-f0-9]{4}/){6}" + UUID_PATTERN + "$").matcher(pid).find());
+    }
+
+    @Test
+    public void testPidsAreUnique() {
+        final SequentialPathMinter minter = new SequentialPathMinter(2, 4, 2, 0);
+        final Set<String> pids = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            assertTrue("Minted a PID twice", pids.add(minter.mintPid()));
+        }
+    }
+
+    @Test
+    public void testBlocksShareBranches() {
+        final SequentialPathMinter minter = new SequentialPathMinter(2, 4, 2, 42);
+        final String first = branch(minter.mintPid());
+        assertEquals(first, branch(minter.mintPid()));
+        assertEquals(first, branch(minter.mintPid()));
+        assertEquals(first, branch(minter.mintPid()));
+        assertNotEquals(first, branch(minter.mintPid()));
+    }
+
+    @Test
+    public void testPrefixesSeparateMinters() {
+        final String pid = new SequentialPathMinter(2, 4, 2, 1).mintPid();
+        assertNotEquals(pid, new SequentialPathMinter(2, 4, 2, 2).mintPid());
+    }
+
+    private static String branch(final String pid) {
+        return pid.substring(0, pid.lastIndexOf('/'));
+    }
+}